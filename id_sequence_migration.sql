@@ -0,0 +1,25 @@
+-- 主键生成策略迁移脚本
+-- 实体主键由 IDENTITY 改为 pooled 序列后，MySQL 上使用 *_seq 表模拟序列
+-- 已有数据的数据库需要在启动新版本之前执行本脚本，让序列从当前最大id之后开始分配
+
+USE jpa_learning;
+
+CREATE TABLE IF NOT EXISTS users_seq (next_val BIGINT);
+DELETE FROM users_seq;
+INSERT INTO users_seq SELECT COALESCE(MAX(id), 0) + 1 FROM users;
+
+CREATE TABLE IF NOT EXISTS departments_seq (next_val BIGINT);
+DELETE FROM departments_seq;
+INSERT INTO departments_seq SELECT COALESCE(MAX(id), 0) + 1 FROM departments;
+
+CREATE TABLE IF NOT EXISTS orders_seq (next_val BIGINT);
+DELETE FROM orders_seq;
+INSERT INTO orders_seq SELECT COALESCE(MAX(id), 0) + 1 FROM orders;
+
+CREATE TABLE IF NOT EXISTS order_items_seq (next_val BIGINT);
+DELETE FROM order_items_seq;
+INSERT INTO order_items_seq SELECT COALESCE(MAX(id), 0) + 1 FROM order_items;
+
+CREATE TABLE IF NOT EXISTS persons_seq (next_val BIGINT);
+DELETE FROM persons_seq;
+INSERT INTO persons_seq SELECT COALESCE(MAX(id), 0) + 1 FROM persons;
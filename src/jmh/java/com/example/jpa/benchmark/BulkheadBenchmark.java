@@ -0,0 +1,60 @@
+package com.example.jpa.benchmark;
+
+import com.example.jpa.dto.UserBatchResult;
+import com.example.jpa.dto.UserSummary;
+import com.example.jpa.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 连接池舱壁隔离基准测试
+ * 
+ * 12个线程持续批量导入用户（@Workload(BATCH)），同时2个线程执行交互式查询，
+ * 对比交互式查询的延迟分位数：
+ *   mvn -Pbenchmark -DskipTests verify -Djmh.includes=BulkheadBenchmark
+ *   mvn -Pbenchmark -DskipTests verify -Djmh.includes=BulkheadBenchmark -Djmh.args="-jvmArgs -Dapp.datasource.pools.enabled=false"
+ * 第二条命令关闭连接池拆分，所有工作负载共用一个连接池
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class BulkheadBenchmark {
+    
+    private static final int BATCH_SIZE = 100;
+    
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    
+    @Benchmark
+    @Group("bulkhead")
+    @GroupThreads(2)
+    public List<UserSummary> interactive(JpaBenchmarkState state) {
+        return state.userService.findUserSummariesByAge(18 + ThreadLocalRandom.current().nextInt(60));
+    }
+    
+    @Benchmark
+    @Group("bulkhead")
+    @GroupThreads(12)
+    public UserBatchResult batch(JpaBenchmarkState state) {
+        List<User> users = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long n = SEQUENCE.incrementAndGet();
+            users.add(JpaBenchmarkState.user("bulk" + n, "bulk" + n + "@example.com", 30));
+        }
+        return state.userService.createUsers(users);
+    }
+}
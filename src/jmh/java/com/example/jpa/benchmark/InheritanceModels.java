@@ -0,0 +1,245 @@
+package com.example.jpa.benchmark;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.DiscriminatorColumn;
+import jakarta.persistence.DiscriminatorValue;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Inheritance;
+import jakarta.persistence.InheritanceType;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * 继承映射基准测试的模型
+ * 
+ * 同一个Person/Employee/Customer模型分别用SINGLE_TABLE、JOINED、TABLE_PER_CLASS映射，
+ * 字段与com.example.jpa.entity中的实体对应。三种映射都使用pooled序列生成主键
+ * （TABLE_PER_CLASS不能使用IDENTITY），按部门查询员工的列都有索引。
+ * 应用上下文会扫描到这些实体，表名都加了bench_前缀，不与应用的表冲突
+ */
+final class InheritanceModels {
+    
+    private InheritanceModels() {
+    }
+    
+    /**
+     * 一种映射方式的实体类和实体名称
+     */
+    record Model(InheritanceType strategy, List<Class<?>> entityClasses,
+                 String person, String employee, String customer,
+                 IntFunction<Object> newEmployee, IntFunction<Object> newCustomer) {
+    }
+    
+    static Model of(InheritanceType strategy) {
+        return switch (strategy) {
+            case SINGLE_TABLE -> new Model(strategy,
+                    List.of(SingleTablePerson.class, SingleTableEmployee.class, SingleTableCustomer.class),
+                    "SingleTablePerson", "SingleTableEmployee", "SingleTableCustomer",
+                    SingleTableEmployee::new, SingleTableCustomer::new);
+            case JOINED -> new Model(strategy,
+                    List.of(JoinedPerson.class, JoinedEmployee.class, JoinedCustomer.class),
+                    "JoinedPerson", "JoinedEmployee", "JoinedCustomer",
+                    JoinedEmployee::new, JoinedCustomer::new);
+            case TABLE_PER_CLASS -> new Model(strategy,
+                    List.of(TablePerClassPerson.class, TablePerClassEmployee.class, TablePerClassCustomer.class),
+                    "TablePerClassPerson", "TablePerClassEmployee", "TablePerClassCustomer",
+                    TablePerClassEmployee::new, TablePerClassCustomer::new);
+        };
+    }
+    
+    static String department(int i) {
+        return "部门" + i % 20;
+    }
+    
+    // ========== SINGLE_TABLE：一张表，person_type区分类型，子类的列可为空 ==========
+    
+    @Entity(name = "SingleTablePerson")
+    @Table(name = "bench_st_persons", indexes = {
+            @Index(name = "idx_bench_st_type_id", columnList = "person_type, id"),
+            @Index(name = "idx_bench_st_department", columnList = "department")})
+    @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
+    @DiscriminatorColumn(name = "person_type")
+    abstract static class SingleTablePerson {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bench_st_seq")
+        @SequenceGenerator(name = "bench_st_seq", sequenceName = "bench_st_seq", allocationSize = 50)
+        Long id;
+        @Column(nullable = false, length = 100)
+        String name;
+        String email;
+        String phone;
+    }
+    
+    @Entity(name = "SingleTableEmployee")
+    @DiscriminatorValue("EMPLOYEE")
+    static class SingleTableEmployee extends SingleTablePerson {
+        String employeeId;
+        @Column(precision = 10, scale = 2)
+        BigDecimal salary;
+        String position;
+        String department;
+        
+        SingleTableEmployee() {
+        }
+        
+        SingleTableEmployee(int i) {
+            name = "员工" + i;
+            email = "employee" + i + "@example.com";
+            employeeId = "EMP" + i;
+            salary = BigDecimal.valueOf(800_000 + i % 1000, 2);
+            position = "SENIOR_DEVELOPER";
+            department = department(i);
+        }
+    }
+    
+    @Entity(name = "SingleTableCustomer")
+    @DiscriminatorValue("CUSTOMER")
+    static class SingleTableCustomer extends SingleTablePerson {
+        String customerId;
+        @Column(precision = 10, scale = 2)
+        BigDecimal totalSpent;
+        String customerType;
+        String address;
+        
+        SingleTableCustomer() {
+        }
+        
+        SingleTableCustomer(int i) {
+            name = "客户" + i;
+            email = "customer" + i + "@example.com";
+            customerId = "CUST" + i;
+            totalSpent = BigDecimal.valueOf(i, 2);
+            customerType = "REGULAR";
+            address = "北京市朝阳区";
+        }
+    }
+    
+    // ========== JOINED：父表保存公共列，每个子类一张表，按主键连接 ==========
+    
+    @Entity(name = "JoinedPerson")
+    @Table(name = "bench_joined_persons")
+    @Inheritance(strategy = InheritanceType.JOINED)
+    abstract static class JoinedPerson {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bench_joined_seq")
+        @SequenceGenerator(name = "bench_joined_seq", sequenceName = "bench_joined_seq", allocationSize = 50)
+        Long id;
+        @Column(nullable = false, length = 100)
+        String name;
+        String email;
+        String phone;
+    }
+    
+    @Entity(name = "JoinedEmployee")
+    @Table(name = "bench_joined_employees",
+            indexes = @Index(name = "idx_bench_joined_department", columnList = "department"))
+    static class JoinedEmployee extends JoinedPerson {
+        String employeeId;
+        @Column(precision = 10, scale = 2)
+        BigDecimal salary;
+        String position;
+        String department;
+        
+        JoinedEmployee() {
+        }
+        
+        JoinedEmployee(int i) {
+            name = "员工" + i;
+            email = "employee" + i + "@example.com";
+            employeeId = "EMP" + i;
+            salary = BigDecimal.valueOf(800_000 + i % 1000, 2);
+            position = "SENIOR_DEVELOPER";
+            department = department(i);
+        }
+    }
+    
+    @Entity(name = "JoinedCustomer")
+    @Table(name = "bench_joined_customers")
+    static class JoinedCustomer extends JoinedPerson {
+        String customerId;
+        @Column(precision = 10, scale = 2)
+        BigDecimal totalSpent;
+        String customerType;
+        String address;
+        
+        JoinedCustomer() {
+        }
+        
+        JoinedCustomer(int i) {
+            name = "客户" + i;
+            email = "customer" + i + "@example.com";
+            customerId = "CUST" + i;
+            totalSpent = BigDecimal.valueOf(i, 2);
+            customerType = "REGULAR";
+            address = "北京市朝阳区";
+        }
+    }
+    
+    // ========== TABLE_PER_CLASS：每个具体类一张完整的表，多态查询使用UNION ALL ==========
+    
+    @Entity(name = "TablePerClassPerson")
+    @Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
+    abstract static class TablePerClassPerson {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bench_tpc_seq")
+        @SequenceGenerator(name = "bench_tpc_seq", sequenceName = "bench_tpc_seq", allocationSize = 50)
+        Long id;
+        @Column(nullable = false, length = 100)
+        String name;
+        String email;
+        String phone;
+    }
+    
+    @Entity(name = "TablePerClassEmployee")
+    @Table(name = "bench_tpc_employees",
+            indexes = @Index(name = "idx_bench_tpc_department", columnList = "department"))
+    static class TablePerClassEmployee extends TablePerClassPerson {
+        String employeeId;
+        @Column(precision = 10, scale = 2)
+        BigDecimal salary;
+        String position;
+        String department;
+        
+        TablePerClassEmployee() {
+        }
+        
+        TablePerClassEmployee(int i) {
+            name = "员工" + i;
+            email = "employee" + i + "@example.com";
+            employeeId = "EMP" + i;
+            salary = BigDecimal.valueOf(800_000 + i % 1000, 2);
+            position = "SENIOR_DEVELOPER";
+            department = department(i);
+        }
+    }
+    
+    @Entity(name = "TablePerClassCustomer")
+    @Table(name = "bench_tpc_customers")
+    static class TablePerClassCustomer extends TablePerClassPerson {
+        String customerId;
+        @Column(precision = 10, scale = 2)
+        BigDecimal totalSpent;
+        String customerType;
+        String address;
+        
+        TablePerClassCustomer() {
+        }
+        
+        TablePerClassCustomer(int i) {
+            name = "客户" + i;
+            email = "customer" + i + "@example.com";
+            customerId = "CUST" + i;
+            totalSpent = BigDecimal.valueOf(i, 2);
+            customerType = "REGULAR";
+            address = "北京市朝阳区";
+        }
+    }
+}
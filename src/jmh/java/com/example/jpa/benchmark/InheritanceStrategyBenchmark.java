@@ -0,0 +1,178 @@
+package com.example.jpa.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.InheritanceType;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 继承映射策略对比
+ * 
+ * 同一个Person/Employee/Customer模型分别按SINGLE_TABLE、JOINED、TABLE_PER_CLASS映射（见InheritanceModels），
+ * 每种映射单独启动一个只包含这三个实体的SessionFactory（H2内存数据库，不启动Spring上下文），
+ * 预先写入PERSON_COUNT个人员（员工、客户各一半），测量：
+ * 1. insert - 批量插入员工和客户
+ * 2. polymorphicScan - 对Person按主键分页（JOINED需要连接所有子表，TABLE_PER_CLASS需要UNION ALL）
+ * 3. polymorphicLookup - 按主键查找Person，事先不知道子类型
+ * 4. subtypeScan - 按部门分页查询员工
+ * 5. subtypeLookup - 按主键查找Employee
+ * 
+ *   mvn -Pbenchmark -DskipTests verify -Djmh.includes=InheritanceStrategyBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class InheritanceStrategyBenchmark {
+    
+    static final int PERSON_COUNT = 20_000;
+    static final int PAGE_SIZE = 100;
+    static final int INSERT_BATCH = 100;
+    
+    @State(Scope.Benchmark)
+    public static class InheritanceState {
+        
+        @Param({"SINGLE_TABLE", "JOINED", "TABLE_PER_CLASS"})
+        public InheritanceType strategy;
+        
+        InheritanceModels.Model model;
+        HikariDataSource dataSource;
+        SessionFactory sessionFactory;
+        long[] personIds;
+        long[] employeeIds;
+        long maxId;
+        final AtomicInteger sequence = new AtomicInteger(PERSON_COUNT);
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            model = InheritanceModels.of(strategy);
+            
+            dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:h2:mem:inheritance_" + strategy.name().toLowerCase() + ";DB_CLOSE_DELAY=-1");
+            dataSource.setUsername("sa");
+            dataSource.setPassword("");
+            
+            StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                    .applySetting(AvailableSettings.DATASOURCE, dataSource)
+                    .applySetting(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect")
+                    .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                    .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, 50)
+                    .applySetting(AvailableSettings.ORDER_INSERTS, true)
+                    .applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, false)
+                    .build();
+            MetadataSources sources = new MetadataSources(registry);
+            model.entityClasses().forEach(sources::addAnnotatedClass);
+            sessionFactory = sources.buildMetadata().buildSessionFactory();
+            
+            insert(0, PERSON_COUNT / 2);
+            try (Session session = sessionFactory.openSession()) {
+                personIds = toArray(session.createSelectionQuery(
+                        "SELECT p.id FROM " + model.person() + " p ORDER BY p.id", Long.class).getResultList());
+                employeeIds = toArray(session.createSelectionQuery(
+                        "SELECT e.id FROM " + model.employee() + " e", Long.class).getResultList());
+            }
+            maxId = personIds[personIds.length - 1];
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            sessionFactory.close();
+            dataSource.close();
+        }
+        
+        /**
+         * 在一个事务中插入count个员工和count个客户
+         */
+        void insert(int from, int count) {
+            sessionFactory.inTransaction(session -> {
+                for (int i = from; i < from + count; i++) {
+                    session.persist(model.newEmployee().apply(i));
+                    session.persist(model.newCustomer().apply(i));
+                    if ((i - from + 1) % 25 == 0) {
+                        session.flush();
+                        session.clear();
+                    }
+                }
+            });
+        }
+        
+        private static long[] toArray(List<Long> ids) {
+            return ids.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(INSERT_BATCH)
+    public void insert(InheritanceState state) {
+        state.insert(state.sequence.getAndAdd(INSERT_BATCH / 2), INSERT_BATCH / 2);
+    }
+    
+    @Benchmark
+    public List<Object> polymorphicScan(InheritanceState state) {
+        long afterId = ThreadLocalRandom.current().nextLong(state.maxId - PAGE_SIZE * 4L);
+        try (Session session = state.sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            return session.createSelectionQuery(
+                            "SELECT p FROM " + state.model.person() + " p WHERE p.id > :afterId ORDER BY p.id", Object.class)
+                    .setParameter("afterId", afterId)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+        }
+    }
+    
+    @Benchmark
+    public Object polymorphicLookup(InheritanceState state) {
+        long id = state.personIds[ThreadLocalRandom.current().nextInt(state.personIds.length)];
+        try (Session session = state.sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            return session.get(state.model.entityClasses().get(0), id);
+        }
+    }
+    
+    @Benchmark
+    public List<Object> subtypeScan(InheritanceState state) {
+        String department = InheritanceModels.department(ThreadLocalRandom.current().nextInt(20));
+        try (Session session = state.sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            return session.createSelectionQuery(
+                            "SELECT e FROM " + state.model.employee() + " e WHERE e.department = :department ORDER BY e.id",
+                            Object.class)
+                    .setParameter("department", department)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+        }
+    }
+    
+    @Benchmark
+    public Object subtypeLookup(InheritanceState state) {
+        long id = state.employeeIds[ThreadLocalRandom.current().nextInt(state.employeeIds.length)];
+        try (Session session = state.sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            return session.get(state.model.entityClasses().get(1), id);
+        }
+    }
+}
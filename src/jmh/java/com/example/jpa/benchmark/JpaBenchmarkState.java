@@ -0,0 +1,88 @@
+package com.example.jpa.benchmark;
+
+import com.example.jpa.JpaLearningApplication;
+import com.example.jpa.entity.User;
+import com.example.jpa.repository.OrderRepository;
+import com.example.jpa.repository.UserRepository;
+import com.example.jpa.service.SearchIndexService;
+import com.example.jpa.service.UserService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试共享状态
+ * 
+ * 每个fork启动一次不带Web层的Spring上下文，使用H2内存数据库，
+ * 并预先写入USER_COUNT个用户。数据源配置以命令行参数传入，
+ * 优先级高于application.yml中的MySQL配置
+ */
+@State(Scope.Benchmark)
+public class JpaBenchmarkState {
+    
+    static final int USER_COUNT = 10_000;
+    
+    ConfigurableApplicationContext context;
+    UserRepository userRepository;
+    OrderRepository orderRepository;
+    UserService userService;
+    SearchIndexService searchIndexService;
+    TransactionTemplate transactionTemplate;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpaLearningApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--spring.sql.init.mode=never",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.com.example.jpa=WARN");
+        
+        userRepository = context.getBean(UserRepository.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        userService = context.getBean(UserService.class);
+        searchIndexService = context.getBean(SearchIndexService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        
+        List<User> users = new ArrayList<>(USER_COUNT);
+        for (int i = 0; i < USER_COUNT; i++) {
+            users.add(user("user" + i, "user" + i + "@example.com", 18 + i % 60));
+        }
+        userRepository.saveAll(users);
+        // 同步重建搜索索引，保证测量开始时索引已就绪
+        searchIndexService.rebuild();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    static User user(String username, String email, Integer age) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setAge(age);
+        return user;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.jpa.benchmark;
+
+import com.example.jpa.entity.Money;
+import com.example.jpa.entity.Order;
+import com.example.jpa.entity.OrderItem;
+import com.example.jpa.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OrderRepository基准测试
+ * 
+ * 保存订单时级联保存100个订单项，刷新到数据库后回滚
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class OrderRepositoryBenchmark {
+    
+    private static final int ITEM_COUNT = 100;
+    
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    
+    @Benchmark
+    public Long saveOrderWithItems(JpaBenchmarkState state) {
+        return state.transactionTemplate.execute(status -> {
+            String username = "user" + ThreadLocalRandom.current().nextInt(JpaBenchmarkState.USER_COUNT);
+            User user = state.userRepository.findByUsername(username).orElseThrow();
+            
+            Order order = new Order();
+            order.setOrderNumber("BENCH-" + SEQUENCE.incrementAndGet());
+            order.setUser(user);
+            for (int i = 0; i < ITEM_COUNT; i++) {
+                OrderItem item = new OrderItem();
+                item.setProductName("商品" + i);
+                item.setQuantity(1 + i % 3);
+                item.setPrice(Money.ofMinor(999 + i));
+                order.addOrderItem(item);
+            }
+            order.calculateTotalAmount();
+            
+            Long id = state.orderRepository.save(order).getId();
+            state.orderRepository.flush();
+            status.setRollbackOnly();
+            return id;
+        });
+    }
+}
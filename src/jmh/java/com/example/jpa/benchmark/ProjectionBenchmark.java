@@ -0,0 +1,53 @@
+package com.example.jpa.benchmark;
+
+import com.example.jpa.dto.UserSummary;
+import com.example.jpa.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体查询与DTO投影对比
+ * 
+ * 使用默认的 -prof gc 运行，对比 gc.alloc.rate.norm（每次操作分配的字节数）：
+ * 实体查询需要创建托管实体、脏检查快照和关联集合代理，投影只创建record
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ProjectionBenchmark {
+    
+    private static final PageRequest PAGE = PageRequest.of(0, 100, Sort.by("id"));
+    
+    @Benchmark
+    public List<User> listEntities(JpaBenchmarkState state) {
+        return state.userRepository.findAll();
+    }
+    
+    @Benchmark
+    public List<UserSummary> listSummaries(JpaBenchmarkState state) {
+        return state.userRepository.findAllSummaries();
+    }
+    
+    @Benchmark
+    public Page<User> pageEntities(JpaBenchmarkState state) {
+        return state.userRepository.findAll(PAGE);
+    }
+    
+    @Benchmark
+    public Page<UserSummary> pageSummaries(JpaBenchmarkState state) {
+        return state.userRepository.findSummaries(PAGE);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.jpa.benchmark;
+
+import com.example.jpa.dto.UserSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户名子串搜索：数据库LIKE '%kw%'与内存三元组索引对比
+ * 
+ * LIKE查询每次都扫描整张用户表并执行COUNT，索引只访问关键词三元组的倒排表
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    
+    private static final PageRequest PAGE = PageRequest.of(0, 20);
+    
+    /**
+     * 选择性不同的关键词：匹配1个、约111个、全部用户
+     */
+    @Param({"user4321", "user12", "user"})
+    public String keyword;
+    
+    @Benchmark
+    public Page<UserSummary> databaseLike(JpaBenchmarkState state) {
+        return state.userRepository.findSummariesByUsernameKeyword(keyword, PAGE);
+    }
+    
+    @Benchmark
+    public Page<UserSummary> trigramIndex(JpaBenchmarkState state) {
+        return state.searchIndexService.searchUsers(keyword, PAGE);
+    }
+}
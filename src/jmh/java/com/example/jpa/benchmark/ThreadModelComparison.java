@@ -0,0 +1,199 @@
+package com.example.jpa.benchmark;
+
+import com.example.jpa.JpaLearningApplication;
+import com.example.jpa.entity.User;
+import com.example.jpa.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * 平台线程与虚拟线程的HTTP压测对比
+ *
+ * 分别以spring.threads.virtual.enabled=false和true启动完整的Web应用（H2内存数据库、随机端口），
+ * 用固定数量的并发客户端（闭环：收到响应后立即发送下一个请求）循环访问已有的用户接口，
+ * 输出每个接口的吞吐量、p50/p99/p99.9延迟和错误数。
+ *
+ * 参数：-c 并发客户端数（默认400），-d 压测秒数（默认20），-w 预热秒数（默认5）；
+ * 其余以--开头的参数原样传给两次启动的应用，例如 --server.tomcat.threads.max=50
+ */
+public class ThreadModelComparison {
+
+    private static final int USER_COUNT = JpaBenchmarkState.USER_COUNT;
+
+    private static final List<Endpoint> ENDPOINTS = List.of(
+            new Endpoint("GET /api/users/{id}", id -> "/api/users/" + id),
+            new Endpoint("GET /api/users/search", id -> "/api/users/search?keyword=user" + id % 100),
+            new Endpoint("GET /api/users/page", id -> "/api/users/page?size=20&page=" + id % 100));
+
+    public static void main(String[] args) throws Exception {
+        int clients = 400;
+        int durationSeconds = 20;
+        int warmupSeconds = 5;
+        List<String> applicationArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-c" -> clients = Integer.parseInt(args[++i]);
+                case "-d" -> durationSeconds = Integer.parseInt(args[++i]);
+                case "-w" -> warmupSeconds = Integer.parseInt(args[++i]);
+                default -> applicationArgs.add(args[i]);
+            }
+        }
+
+        System.out.printf("并发客户端=%d, 预热=%ds, 压测=%ds, 应用参数=%s%n",
+                clients, warmupSeconds, durationSeconds, applicationArgs);
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = start(virtual, applicationArgs)) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                long firstId = seed(context.getBean(UserRepository.class));
+
+                run(port, firstId, clients, Duration.ofSeconds(warmupSeconds));
+                Result[] results = run(port, firstId, clients, Duration.ofSeconds(durationSeconds));
+                print(virtual ? "虚拟线程" : "平台线程", results, durationSeconds);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual, List<String> applicationArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--spring.datasource.url=jdbc:h2:mem:threads-" + virtual + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.sql.init.mode=never",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--logging.level.com.example.jpa=WARN"));
+        args.addAll(applicationArgs);
+        return new SpringApplicationBuilder(JpaLearningApplication.class).run(args.toArray(String[]::new));
+    }
+
+    /**
+     * 写入测试用户，返回第一个用户的id
+     */
+    private static long seed(UserRepository userRepository) {
+        List<User> users = new ArrayList<>(USER_COUNT);
+        for (int i = 0; i < USER_COUNT; i++) {
+            users.add(JpaBenchmarkState.user("user" + i, "user" + i + "@example.com", 18 + i % 60));
+        }
+        return userRepository.saveAll(users).get(0).getId();
+    }
+
+    /**
+     * 闭环压测：每个客户端在自己的虚拟线程中依次访问各接口，直到时间结束
+     */
+    private static Result[] run(int port, long firstId, int clients, Duration duration) throws InterruptedException {
+        Result[] results = new Result[ENDPOINTS.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new Result(ENDPOINTS.get(i).name());
+        }
+
+        long deadline = System.nanoTime() + duration.toNanos();
+        // 先关闭executor（等待所有客户端结束），再关闭HttpClient
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int offset = c;
+                executor.submit(() -> {
+                    long[][] latencies = new long[ENDPOINTS.size()][1024];
+                    int[] counts = new int[ENDPOINTS.size()];
+                    for (int n = offset; System.nanoTime() < deadline; n++) {
+                        int endpoint = n % ENDPOINTS.size();
+                        long id = firstId + ThreadLocalRandom.current().nextInt(USER_COUNT);
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(
+                                "http://localhost:" + port + ENDPOINTS.get(endpoint).path().apply(id))).build();
+
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                results[endpoint].errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            results[endpoint].errors.incrementAndGet();
+                            continue;
+                        }
+                        if (counts[endpoint] == latencies[endpoint].length) {
+                            latencies[endpoint] = Arrays.copyOf(latencies[endpoint], counts[endpoint] * 2);
+                        }
+                        latencies[endpoint][counts[endpoint]++] = System.nanoTime() - start;
+                    }
+                    for (int i = 0; i < results.length; i++) {
+                        results[i].add(latencies[i], counts[i]);
+                    }
+                });
+            }
+        }
+        return results;
+    }
+
+    private static void print(String mode, Result[] results, int durationSeconds) {
+        System.out.printf("%n== %s ==%n", mode);
+        System.out.printf("%-24s %10s %10s %10s %10s %10s %8s%n",
+                "接口", "请求数", "req/s", "p50(ms)", "p99(ms)", "p99.9(ms)", "错误");
+        for (Result result : results) {
+            long[] latencies = result.sorted();
+            System.out.printf("%-24s %10d %10.1f %10.2f %10.2f %10.2f %8d%n",
+                    result.name, latencies.length, (double) latencies.length / durationSeconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    result.errors.get());
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private record Endpoint(String name, LongFunction<String> path) {
+    }
+
+    /**
+     * 单个接口的延迟样本（纳秒）和错误数
+     */
+    private static class Result {
+
+        private final String name;
+        private final AtomicLong errors = new AtomicLong();
+        private final List<long[]> samples = new ArrayList<>();
+
+        Result(String name) {
+            this.name = name;
+        }
+
+        synchronized void add(long[] latencies, int count) {
+            samples.add(Arrays.copyOf(latencies, count));
+        }
+
+        synchronized long[] sorted() {
+            long[] all = samples.stream().flatMapToLong(Arrays::stream).toArray();
+            Arrays.sort(all);
+            return all;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.jpa.benchmark;
+
+import com.example.jpa.dto.UserStatistics;
+import com.example.jpa.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserRepository基准测试
+ * 
+ * 覆盖方法名查询、分页（OFFSET与Keyset对比）和统计聚合查询
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class UserRepositoryBenchmark {
+    
+    /**
+     * 深页页号，用于对比OFFSET分页与Keyset分页
+     */
+    private static final int DEEP_PAGE = 400;
+    private static final int PAGE_SIZE = 20;
+    
+    @Benchmark
+    public Optional<User> findByUsername(JpaBenchmarkState state) {
+        int i = ThreadLocalRandom.current().nextInt(JpaBenchmarkState.USER_COUNT);
+        return state.userRepository.findByUsername("user" + i);
+    }
+    
+    @Benchmark
+    public List<User> findByAgeBetween(JpaBenchmarkState state) {
+        int age = 18 + ThreadLocalRandom.current().nextInt(58);
+        return state.userRepository.findByAgeBetween(age, age + 2);
+    }
+    
+    @Benchmark
+    public Page<User> offsetPagingDeepPage(JpaBenchmarkState state) {
+        return state.userRepository.findAll(PageRequest.of(DEEP_PAGE, PAGE_SIZE, Sort.by("id")));
+    }
+    
+    @Benchmark
+    public Window<User> keysetScrollDeepPage(JpaBenchmarkState state) {
+        // 从与DEEP_PAGE相同的位置继续读取一页，不需要OFFSET和COUNT
+        long afterId = (long) DEEP_PAGE * PAGE_SIZE;
+        return state.userRepository.findBy(ScrollPosition.forward(Map.of("id", afterId)),
+                Sort.by("id"), Limit.of(PAGE_SIZE));
+    }
+    
+    @Benchmark
+    public UserStatistics getUserStatisticsAggregate(JpaBenchmarkState state) {
+        return state.userRepository.getUserStatistics();
+    }
+}
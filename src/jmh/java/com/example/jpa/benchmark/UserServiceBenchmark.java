@@ -0,0 +1,53 @@
+package com.example.jpa.benchmark;
+
+import com.example.jpa.dto.UserStatistics;
+import com.example.jpa.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UserService基准测试
+ * 
+ * 写入类的基准测试在事务中执行并刷新到数据库后回滚，数据量不会随迭代增长
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class UserServiceBenchmark {
+    
+    private static final int BATCH_SIZE = 100;
+    
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    
+    @Benchmark
+    public UserStatistics getUserStatistics(JpaBenchmarkState state) {
+        return state.userService.getUserStatistics();
+    }
+    
+    @Benchmark
+    public Integer saveAllBatch(JpaBenchmarkState state) {
+        return state.transactionTemplate.execute(status -> {
+            List<User> users = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                long n = SEQUENCE.incrementAndGet();
+                users.add(JpaBenchmarkState.user("batch" + n, "batch" + n + "@example.com", 30));
+            }
+            int saved = state.userRepository.saveAll(users).size();
+            state.userRepository.flush();
+            status.setRollbackOnly();
+            return saved;
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.jpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 数据源配置
+ * 
+ * 1. 主库：连接信息来自spring.datasource，按工作负载拆分为interactive、batch、reporting三个连接池
+ *    （app.datasource.pools），由@Workload选择
+ * 2. 只读副本：设置app.datasource.routing.enabled=true后，只读事务路由到副本（app.datasource.routing）
+ * 3. JPA使用的数据源为LazyConnectionDataSourceProxy，执行第一条语句时才选择连接池，
+ *    此时事务的只读标记和工作负载类型都已确定
+ * 4. 所有连接池（包括副本）先绑定spring.datasource.hikari作为公共配置，
+ *    再应用各自的连接池名称、最大连接数和获取连接超时时间
+ */
+@Configuration
+@EnableConfigurationProperties({DataSourcePoolsProperties.class, DataSourceRoutingProperties.class})
+@RequiredArgsConstructor
+@Slf4j
+public class DataSourceConfig {
+    
+    private final DataSourcePoolsProperties poolsProperties;
+    private final DataSourceRoutingProperties routingProperties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ObjectProvider<ReadWriteRoutingDataSource> routingDataSource;
+    private final Environment environment;
+    
+    /**
+     * 主库数据源
+     */
+    @Bean
+    public DataSource primaryDataSource(DataSourceProperties properties) {
+        if (!poolsProperties.isEnabled()) {
+            return pool(properties, ReadWriteRoutingDataSource.PRIMARY, poolsProperties.get(WorkloadType.INTERACTIVE));
+        }
+        
+        Map<WorkloadType, DataSource> pools = new EnumMap<>(WorkloadType.class);
+        Map<WorkloadType, Integer> maxWaiting = new EnumMap<>(WorkloadType.class);
+        for (WorkloadType workload : WorkloadType.values()) {
+            DataSourcePoolsProperties.Pool pool = poolsProperties.get(workload);
+            pools.put(workload, pool(properties, WorkloadRoutingDataSource.poolName(workload), pool));
+            maxWaiting.put(workload, pool.getMaxWaiting());
+            log.info("注册主库连接池: {}, 最大连接数={}, 最大等待线程数={}",
+                    WorkloadRoutingDataSource.poolName(workload), pool.getMaximumPoolSize(), pool.getMaxWaiting());
+        }
+        return new WorkloadRoutingDataSource(pools, maxWaiting, meterRegistry.getIfAvailable());
+    }
+    
+    /**
+     * 读写分离路由数据源，持有并负责关闭副本连接池
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.datasource.routing", name = "enabled", havingValue = "true")
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < routingProperties.getReplicas().size(); i++) {
+            DataSourceRoutingProperties.Replica replica = routingProperties.getReplicas().get(i);
+            String name = StringUtils.hasText(replica.getName()) ? replica.getName() : "replica-" + (i + 1);
+            
+            HikariDataSource dataSource = bindHikariProperties(new HikariDataSource());
+            dataSource.setPoolName(name);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            if (StringUtils.hasText(replica.getDriverClassName())) {
+                dataSource.setDriverClassName(replica.getDriverClassName());
+            }
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            meterRegistry.ifAvailable(dataSource::setMetricRegistry);
+            
+            replicas.put(name, dataSource);
+            log.info("注册只读副本: {} -> {}", name, replica.getUrl());
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas);
+    }
+    
+    /**
+     * JPA和JdbcTemplate使用的数据源
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource) {
+        DataSource target = routingDataSource.getIfAvailable();
+        return new LazyConnectionDataSourceProxy(target != null ? target : primaryDataSource);
+    }
+    
+    /**
+     * 定时校验副本连接，恢复之前被排除的副本
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.routing.health-check-interval:PT10S}")
+    public void checkReplicaHealth() {
+        routingDataSource.ifAvailable(routing -> routing.checkReplicas(routingProperties.getHealthCheckTimeout()));
+    }
+    
+    /**
+     * 创建主库连接池，连接池不是Spring Bean，需要手动注册Hikari指标
+     * （hikaricp.connections.pending、hikaricp.connections.acquire等，pool标签为连接池名称）
+     */
+    private HikariDataSource pool(DataSourceProperties properties, String name, DataSourcePoolsProperties.Pool pool) {
+        HikariDataSource dataSource = bindHikariProperties(
+                properties.initializeDataSourceBuilder().type(HikariDataSource.class).build());
+        dataSource.setPoolName(name);
+        dataSource.setMaximumPoolSize(pool.getMaximumPoolSize());
+        dataSource.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+        meterRegistry.ifAvailable(dataSource::setMetricRegistry);
+        return dataSource;
+    }
+    
+    /**
+     * 绑定spring.datasource.hikari下的公共配置（最小空闲连接数、maxLifetime、数据源属性等），
+     * 与Spring Boot自动配置的连接池保持一致；连接池名称、最大连接数和获取连接超时时间随后被各连接池的配置覆盖
+     */
+    private HikariDataSource bindHikariProperties(HikariDataSource dataSource) {
+        return Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource))
+                .orElse(dataSource);
+    }
+}
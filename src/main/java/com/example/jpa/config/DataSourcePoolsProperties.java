@@ -0,0 +1,52 @@
+package com.example.jpa.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 主库连接池配置：app.datasource.pools
+ * 
+ * 启用后每种WorkloadType使用独立的连接池，连接信息仍然来自spring.datasource；
+ * 未启用时所有工作负载共用一个连接池
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource.pools")
+public class DataSourcePoolsProperties {
+    
+    /**
+     * 是否按工作负载拆分连接池
+     */
+    private boolean enabled = true;
+    
+    /**
+     * 每种工作负载的连接池配置，未配置的使用Pool的默认值
+     */
+    private Map<WorkloadType, Pool> workloads = new EnumMap<>(WorkloadType.class);
+    
+    public Pool get(WorkloadType workload) {
+        return workloads.getOrDefault(workload, new Pool());
+    }
+    
+    @Data
+    public static class Pool {
+        
+        /**
+         * 最大连接数
+         */
+        private int maximumPoolSize = 10;
+        
+        /**
+         * 同时等待获取连接的最大线程数，超过后立即失败
+         */
+        private int maxWaiting = 50;
+        
+        /**
+         * 获取连接的最长等待时间
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(30);
+    }
+}
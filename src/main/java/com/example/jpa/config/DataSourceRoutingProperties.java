@@ -0,0 +1,52 @@
+package com.example.jpa.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离数据源配置：app.datasource.routing
+ * 
+ * 主库仍然使用spring.datasource配置，这里只配置只读副本
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class DataSourceRoutingProperties {
+    
+    /**
+     * 是否启用读写分离
+     */
+    private boolean enabled;
+    
+    /**
+     * 只读副本列表，只读事务在健康的副本之间轮询
+     */
+    private List<Replica> replicas = new ArrayList<>();
+    
+    /**
+     * 副本健康检查间隔
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(10);
+    
+    /**
+     * 健康检查时等待连接校验的超时时间
+     */
+    private Duration healthCheckTimeout = Duration.ofSeconds(2);
+    
+    @Data
+    public static class Replica {
+        
+        /**
+         * 副本名称，同时作为连接池名称
+         */
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.jpa.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据库并发限制
+ *
+ * 使用虚拟线程后请求线程数不再受Tomcat线程池限制，所有请求会同时进入@Transactional方法并在Hikari上排队，
+ * 排队过长时大量请求因connectionTimeout失败。这里在开启事务之前用公平信号量限制并发事务数：
+ * 1. 每种WorkloadType一个信号量，许可数等于对应连接池的maximumPoolSize；连接池未拆分时共用一个信号量
+ * 2. 在WorkloadAspect之后、事务拦截器之前执行，因此能按工作负载选择信号量，且事务期间一直持有许可
+ * 3. 嵌套的@Transactional调用不重复获取许可
+ * 4. 等待时间超过连接池的connectionTimeout时抛出CannotCreateTransactionException
+ *
+ * 由app.datasource.concurrency-limit.enabled开启，默认跟随spring.threads.virtual.enabled
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(prefix = "app.datasource.concurrency-limit", name = "enabled", havingValue = "true")
+@Slf4j
+public class DatabaseConcurrencyLimiter {
+
+    public static final String WAIT_METRIC = "jdbc.concurrency.wait";
+    public static final String WAITING_METRIC = "jdbc.concurrency.waiting";
+
+    /**
+     * 当前线程已持有的许可，用于跳过嵌套调用
+     */
+    private static final ThreadLocal<List<Semaphore>> HELD = ThreadLocal.withInitial(ArrayList::new);
+
+    private final Map<WorkloadType, Semaphore> permits = new EnumMap<>(WorkloadType.class);
+    private final Map<WorkloadType, Long> timeoutMillis = new EnumMap<>(WorkloadType.class);
+    private final Map<WorkloadType, Timer> waitTimers = new EnumMap<>(WorkloadType.class);
+
+    public DatabaseConcurrencyLimiter(DataSourcePoolsProperties poolsProperties,
+                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        Semaphore shared = null;
+        for (WorkloadType workload : WorkloadType.values()) {
+            // 连接池未拆分时所有工作负载使用interactive的配置，共用一个信号量
+            WorkloadType poolWorkload = poolsProperties.isEnabled() ? workload : WorkloadType.INTERACTIVE;
+            DataSourcePoolsProperties.Pool pool = poolsProperties.get(poolWorkload);
+
+            Semaphore semaphore;
+            if (poolsProperties.isEnabled() || shared == null) {
+                semaphore = new Semaphore(pool.getMaximumPoolSize(), true);
+                if (registry != null) {
+                    Gauge.builder(WAITING_METRIC, semaphore, Semaphore::getQueueLength)
+                            .description("等待数据库并发许可的线程数")
+                            .tag("pool", poolName(poolWorkload))
+                            .register(registry);
+                }
+                shared = semaphore;
+            } else {
+                semaphore = shared;
+            }
+            permits.put(workload, semaphore);
+            timeoutMillis.put(workload, pool.getConnectionTimeout().toMillis());
+            if (registry != null) {
+                waitTimers.put(workload, Timer.builder(WAIT_METRIC)
+                        .description("等待数据库并发许可的时间")
+                        .tag("pool", poolName(poolWorkload))
+                        .register(registry));
+            }
+            log.info("数据库并发限制: {} -> {}个许可", workload, pool.getMaximumPoolSize());
+        }
+    }
+
+    @Around("@annotation(org.springframework.transaction.annotation.Transactional) " +
+            "|| @within(org.springframework.transaction.annotation.Transactional)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        WorkloadType workload = WorkloadContext.current();
+        Semaphore semaphore = permits.get(workload);
+        List<Semaphore> held = HELD.get();
+        if (held.contains(semaphore)) {
+            return joinPoint.proceed();
+        }
+
+        acquire(workload, semaphore);
+        held.add(semaphore);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            held.remove(held.size() - 1);
+            semaphore.release();
+        }
+    }
+
+    private void acquire(WorkloadType workload, Semaphore semaphore) throws InterruptedException {
+        long start = System.nanoTime();
+        boolean acquired = semaphore.tryAcquire(timeoutMillis.get(workload), TimeUnit.MILLISECONDS);
+        Timer timer = waitTimers.get(workload);
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            log.warn("等待数据库并发许可超时: {}, 等待线程数={}", workload, semaphore.getQueueLength());
+            throw new CannotCreateTransactionException("等待数据库并发许可超时: " + poolName(workload));
+        }
+    }
+
+    private static String poolName(WorkloadType workload) {
+        return WorkloadRoutingDataSource.poolName(workload);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.jpa.config;
+
+import com.example.jpa.service.DepartmentMemberCountListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate事件监听器配置
+ * 
+ * 把容器中实现了PostCommit*EventListener的Bean注册到Hibernate，
+ * 使监听器可以使用Spring依赖注入；部门成员数监听器在flush中同步执行，单独注册
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class HibernateListenerConfig {
+    
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<PostCommitInsertEventListener> insertListeners;
+    private final ObjectProvider<PostCommitUpdateEventListener> updateListeners;
+    private final ObjectProvider<PostCommitDeleteEventListener> deleteListeners;
+    private final ObjectProvider<DepartmentMemberCountListener> departmentMemberCountListener;
+    
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        
+        insertListeners.orderedStream().forEach(listener -> {
+            log.info("注册Hibernate插入监听器: {}", listener.getClass().getSimpleName());
+            registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        });
+        updateListeners.orderedStream().forEach(listener -> {
+            log.info("注册Hibernate更新监听器: {}", listener.getClass().getSimpleName());
+            registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        });
+        deleteListeners.orderedStream().forEach(listener -> {
+            log.info("注册Hibernate删除监听器: {}", listener.getClass().getSimpleName());
+            registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        });
+        departmentMemberCountListener.ifAvailable(listener -> {
+            log.info("注册Hibernate部门成员数监听器");
+            registry.appendListeners(EventType.POST_INSERT, listener);
+            registry.appendListeners(EventType.POST_DELETE, listener);
+            registry.appendListeners(EventType.PRE_COLLECTION_RECREATE, listener);
+            registry.appendListeners(EventType.PRE_COLLECTION_UPDATE, listener);
+            registry.appendListeners(EventType.PRE_COLLECTION_REMOVE, listener);
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.jpa.config;
+
+import com.example.jpa.monitoring.QueryCountInspector;
+import com.example.jpa.monitoring.RepositoryQueryMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * 监控指标配置
+ * 
+ * Repository方法耗时由Spring Boot自动记录为 spring.data.repository.invocations，
+ * Hibernate Statistics由hibernate-micrometer导出为 hibernate.* 指标；
+ * 这里补充每个Repository方法执行的SQL语句数
+ */
+@Configuration
+public class MetricsConfig {
+    
+    /**
+     * 注册SQL语句计数器
+     */
+    @Bean
+    public HibernatePropertiesCustomizer queryCountInspectorCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector());
+    }
+    
+    /**
+     * 为所有Repository代理添加SQL语句数拦截器
+     * 
+     * 声明为static，避免BeanPostProcessor提前初始化配置类；
+     * MeterRegistry在第一次调用时才获取
+     */
+    @Bean
+    public static BeanPostProcessor repositoryQueryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, information) ->
+                                    proxyFactory.addAdvice(new RepositoryQueryMetricsInterceptor(
+                                            meterRegistry::getIfAvailable, information.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.jpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离路由数据源
+ * 
+ * 1. 只读事务（@Transactional(readOnly = true)）在健康的副本之间轮询
+ * 2. 读写事务和事务之外的访问使用主库
+ * 3. 副本获取连接失败时立即标记为不健康并改用主库，由定时健康检查恢复
+ * 4. 没有健康的副本时只读事务也使用主库
+ * 
+ * 事务开始时还没有设置只读标记，必须用LazyConnectionDataSourceProxy包装，
+ * 在执行第一条语句时才真正选择数据源
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    
+    static final String PRIMARY = "primary";
+    
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final AtomicInteger counter = new AtomicInteger();
+    
+    /**
+     * 当前健康的副本名称，按配置顺序排列
+     */
+    private volatile List<String> healthyReplicas;
+    
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.healthyReplicas = List.copyOf(replicas.keySet());
+        
+        Map<Object, Object> targets = new LinkedHashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        List<String> healthy = healthyReplicas;
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(counter.getAndIncrement(), healthy.size()));
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        log.debug("获取数据库连接: {}", key);
+        if (PRIMARY.equals(key)) {
+            return primary.getConnection();
+        }
+        try {
+            return replicas.get(key).getConnection();
+        } catch (SQLException e) {
+            markDown((String) key, e);
+            return primary.getConnection();
+        }
+    }
+    
+    /**
+     * 校验所有副本的连接，更新健康副本列表
+     */
+    public void checkReplicas(Duration timeout) {
+        List<String> healthy = new ArrayList<>(replicas.size());
+        replicas.forEach((name, dataSource) -> {
+            try (Connection connection = dataSource.getConnection()) {
+                if (connection.isValid((int) Math.max(1, timeout.toSeconds()))) {
+                    healthy.add(name);
+                } else {
+                    log.warn("只读副本连接校验失败: {}", name);
+                }
+            } catch (SQLException e) {
+                log.warn("只读副本不可用: {}, 原因: {}", name, e.getMessage());
+            }
+        });
+        
+        List<String> previous;
+        synchronized (this) {
+            previous = healthyReplicas;
+            healthyReplicas = List.copyOf(healthy);
+        }
+        healthy.stream()
+                .filter(name -> !previous.contains(name))
+                .forEach(name -> log.info("只读副本恢复: {}", name));
+    }
+    
+    /**
+     * 当前健康的副本名称
+     */
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+    
+    private synchronized void markDown(String name, SQLException e) {
+        List<String> healthy = new ArrayList<>(healthyReplicas);
+        if (healthy.remove(name)) {
+            healthyReplicas = List.copyOf(healthy);
+            log.warn("只读副本获取连接失败，暂时改用主库: {}, 原因: {}", name, e.getMessage());
+        }
+    }
+    
+    /**
+     * 关闭副本连接池，主库连接池由Spring容器关闭
+     */
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource dataSource : replicas.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
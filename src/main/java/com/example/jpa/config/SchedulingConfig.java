@@ -0,0 +1,13 @@
+package com.example.jpa.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置
+ * 启用@Scheduled注解，用于统计信息校准等后台任务
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
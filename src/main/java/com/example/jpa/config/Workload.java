@@ -0,0 +1,21 @@
+package com.example.jpa.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指定方法使用的连接池
+ * 
+ * 可以标注在方法或类上，方法上的注解优先。
+ * 只有在方法内第一次获取连接时才生效：已经在外层事务中持有连接时，继续使用外层的连接
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Workload {
+    
+    WorkloadType value();
+}
@@ -0,0 +1,37 @@
+package com.example.jpa.config;
+
+/**
+ * 当前线程的工作负载类型，由WorkloadAspect设置，WorkloadRoutingDataSource读取
+ */
+public final class WorkloadContext {
+    
+    private static final ThreadLocal<WorkloadType> CURRENT = new ThreadLocal<>();
+    
+    private WorkloadContext() {
+    }
+    
+    /**
+     * 当前线程的工作负载类型，未指定时为INTERACTIVE
+     */
+    public static WorkloadType current() {
+        WorkloadType workload = CURRENT.get();
+        return workload != null ? workload : WorkloadType.INTERACTIVE;
+    }
+    
+    /**
+     * 设置当前线程的工作负载类型，返回之前的值（可能为null），用于恢复
+     */
+    static WorkloadType set(WorkloadType workload) {
+        WorkloadType previous = CURRENT.get();
+        CURRENT.set(workload);
+        return previous;
+    }
+    
+    static void restore(WorkloadType previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.jpa.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 按工作负载路由的主库数据源（舱壁隔离）
+ * 
+ * 1. 每种WorkloadType一个独立的连接池，批处理占满自己的连接池不会影响交互式请求
+ * 2. 每个连接池同时等待获取连接的线程数有上限，超过上限立即失败，不会无限排队
+ * 3. 等待时间由连接池的connectionTimeout限制，等待时间和排队数量通过Hikari指标导出
+ */
+@Slf4j
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    
+    public static final String REJECTED_METRIC = "jdbc.connections.rejected";
+    
+    private final Map<WorkloadType, DataSource> pools;
+    private final Map<WorkloadType, Semaphore> waiting = new EnumMap<>(WorkloadType.class);
+    private final Map<WorkloadType, Counter> rejected = new EnumMap<>(WorkloadType.class);
+    
+    /**
+     * @param pools      每种工作负载的连接池
+     * @param maxWaiting 每种工作负载同时获取连接的最大线程数
+     */
+    public WorkloadRoutingDataSource(Map<WorkloadType, DataSource> pools, Map<WorkloadType, Integer> maxWaiting,
+                                     MeterRegistry meterRegistry) {
+        this.pools = new EnumMap<>(pools);
+        pools.keySet().forEach(workload -> {
+            waiting.put(workload, new Semaphore(maxWaiting.get(workload)));
+            if (meterRegistry != null) {
+                rejected.put(workload, Counter.builder(REJECTED_METRIC)
+                        .description("等待连接的线程数超过上限而被拒绝的次数")
+                        .tag("pool", poolName(workload))
+                        .register(meterRegistry));
+            }
+        });
+        
+        setTargetDataSources(Map.copyOf(this.pools));
+        setDefaultTargetDataSource(this.pools.get(WorkloadType.INTERACTIVE));
+        afterPropertiesSet();
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return WorkloadContext.current();
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        WorkloadType workload = WorkloadContext.current();
+        Semaphore permits = waiting.get(workload);
+        if (!permits.tryAcquire()) {
+            Counter counter = rejected.get(workload);
+            if (counter != null) {
+                counter.increment();
+            }
+            log.warn("连接池等待队列已满，拒绝获取连接: {}", poolName(workload));
+            throw new SQLTransientConnectionException("连接池等待队列已满: " + poolName(workload));
+        }
+        try {
+            return pools.get(workload).getConnection();
+        } finally {
+            permits.release();
+        }
+    }
+    
+    /**
+     * 连接池名称，也是指标中的pool标签
+     */
+    public static String poolName(WorkloadType workload) {
+        return workload.name().toLowerCase();
+    }
+    
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource dataSource : pools.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.jpa.config;
+
+/**
+ * 数据库访问的工作负载类型，每种类型使用独立的主库连接池
+ */
+public enum WorkloadType {
+    
+    /**
+     * 交互式请求：按ID查询、单条增删改等对延迟敏感的操作（默认）
+     */
+    INTERACTIVE,
+    
+    /**
+     * 批处理：批量导入、批量删除、演示数据生成等
+     */
+    BATCH,
+    
+    /**
+     * 报表：导出、全表聚合等长时间只读查询
+     */
+    REPORTING
+}
@@ -0,0 +1,44 @@
+package com.example.jpa.controller;
+
+import com.example.jpa.service.CacheStatisticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 二级缓存控制器
+ * 提供缓存命中统计的查询和缓存清理接口
+ */
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+@Slf4j
+public class CacheController {
+    
+    private final CacheStatisticsService cacheStatisticsService;
+    
+    /**
+     * 获取二级缓存统计信息
+     */
+    @GetMapping("/statistics")
+    public ResponseEntity<Map<String, Object>> getStatistics() {
+        log.info("获取二级缓存统计信息");
+        return ResponseEntity.ok(cacheStatisticsService.getStatistics());
+    }
+    
+    /**
+     * 清空所有二级缓存
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> evictAll() {
+        log.info("清空所有二级缓存");
+        cacheStatisticsService.evictAll();
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.jpa.controller;
+
+import com.example.jpa.dto.JobStatus;
+import com.example.jpa.entity.Money;
+import com.example.jpa.service.CustomerSpendAccumulator;
+import com.example.jpa.service.CustomerTierService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.net.URI;
+
+/**
+ * 客户控制器
+ */
+@RestController
+@RequestMapping("/api/customers")
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerController {
+
+    private final CustomerSpendAccumulator customerSpendAccumulator;
+    private final CustomerTierService customerTierService;
+
+    /**
+     * 记录客户的一笔消费，累计消费金额在后台批量写入数据库，返回202
+     */
+    @PostMapping("/{id}/purchases")
+    public ResponseEntity<Void> recordPurchase(@PathVariable Long id, @RequestParam BigDecimal amount) {
+        log.debug("记录客户消费: {} {}", id, amount);
+
+        try {
+            customerSpendAccumulator.record(id, Money.of(amount));
+            return ResponseEntity.accepted().build();
+        } catch (RuntimeException e) {
+            log.error("记录客户消费失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 根据累计消费重新计算所有客户的等级
+     * 在后台分区并行执行，返回202和任务状态，进度通过 /api/jobs/{id} 查询
+     */
+    @PostMapping("/tiers/recalculate")
+    public ResponseEntity<JobStatus> recalculateTiers() {
+        log.info("重新计算客户等级");
+
+        JobStatus job = customerTierService.recalculateTiers();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.id()))
+                .body(job);
+    }
+}
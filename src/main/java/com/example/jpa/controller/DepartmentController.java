@@ -0,0 +1,66 @@
+package com.example.jpa.controller;
+
+import com.example.jpa.dto.DepartmentMembershipChange;
+import com.example.jpa.dto.DepartmentMembershipResult;
+import com.example.jpa.dto.DepartmentUserCount;
+import com.example.jpa.service.DepartmentMemberCountReconciler;
+import com.example.jpa.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 部门控制器
+ */
+@RestController
+@RequestMapping("/api/departments")
+@RequiredArgsConstructor
+@Slf4j
+public class DepartmentController {
+
+    private final UserService userService;
+    private final DepartmentMemberCountReconciler departmentMemberCountReconciler;
+
+    /**
+     * 获取所有部门及其成员数
+     */
+    @GetMapping
+    public ResponseEntity<List<DepartmentUserCount>> getDepartments() {
+        return ResponseEntity.ok(userService.getDepartmentsWithUserCount());
+    }
+
+    /**
+     * 批量调整部门成员，请求体如 {"add": [1, 2], "remove": [3]}
+     */
+    @PostMapping("/{id}/members")
+    public ResponseEntity<DepartmentMembershipResult> changeMembers(@PathVariable Long id,
+                                                                    @RequestBody DepartmentMembershipChange change) {
+        log.info("批量调整部门成员: {}", id);
+
+        try {
+            return ResponseEntity.ok(userService.changeDepartmentMembers(id, change));
+        } catch (RuntimeException e) {
+            log.error("批量调整部门成员失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 立即校准部门成员数，返回修正的部门数
+     */
+    @PostMapping("/member-counts/reconcile")
+    public ResponseEntity<Map<String, Integer>> reconcileMemberCounts() {
+        log.info("校准部门成员数");
+
+        return ResponseEntity.ok(Map.of("corrected", departmentMemberCountReconciler.reconcile()));
+    }
+}
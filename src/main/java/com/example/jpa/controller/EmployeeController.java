@@ -0,0 +1,44 @@
+package com.example.jpa.controller;
+
+import com.example.jpa.dto.SalaryAdjustment;
+import com.example.jpa.dto.SalaryAdjustmentSummary;
+import com.example.jpa.service.SalaryAdjustmentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 员工控制器
+ */
+@RestController
+@RequestMapping("/api/employees")
+@RequiredArgsConstructor
+@Slf4j
+public class EmployeeController {
+
+    private final SalaryAdjustmentService salaryAdjustmentService;
+
+    /**
+     * 按职位/部门批量调整员工薪资
+     * 默认只试运行，返回受影响的员工数和薪资总额的变化；dryRun=false时写入
+     */
+    @PostMapping("/salary-adjustments")
+    public ResponseEntity<SalaryAdjustmentSummary> adjustSalaries(
+            @RequestBody SalaryAdjustment adjustment,
+            @RequestParam(defaultValue = "true") boolean dryRun) {
+
+        log.info("批量调整员工薪资: {}, dryRun={}", adjustment, dryRun);
+
+        try {
+            return ResponseEntity.ok(salaryAdjustmentService.adjustSalaries(adjustment, dryRun));
+        } catch (RuntimeException e) {
+            log.error("批量调整员工薪资失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.jpa.controller;
+
+import com.example.jpa.dto.JobStatus;
+import com.example.jpa.service.BackgroundJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 后台任务控制器
+ * 查询批量删除等后台任务的状态和进度
+ */
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final BackgroundJobService backgroundJobService;
+
+    /**
+     * 查询任务状态，任务不存在或已过期返回404
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<JobStatus> getJob(@PathVariable String id) {
+        return backgroundJobService.findJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.jpa.controller;
 
 import com.example.jpa.entity.Department;
+import com.example.jpa.dto.UserStatistics;
 import com.example.jpa.entity.User;
 import com.example.jpa.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -33,12 +34,12 @@ public class PageController {
         
         try {
             List<User> users = userService.findAllUsers();
-            Object[] stats = userService.getUserStatistics();
+            UserStatistics stats = userService.getUserStatistics();
             
             model.addAttribute("users", users);
-            model.addAttribute("userCount", stats != null && stats.length > 0 ? stats[0] : 0);
-            model.addAttribute("avgAge", stats != null && stats.length > 1 && stats[1] != null ? stats[1] : 0);
-            model.addAttribute("maxAge", stats != null && stats.length > 2 && stats[2] != null ? stats[2] : 0);
+            model.addAttribute("userCount", stats.totalCount());
+            model.addAttribute("avgAge", stats.averageAge() != null ? stats.averageAge() : 0);
+            model.addAttribute("maxAge", stats.maxAge() != null ? stats.maxAge() : 0);
             
             return "users";
         } catch (Exception e) {
@@ -120,12 +121,12 @@ public class PageController {
         
         // 重新获取用户列表
         List<User> users = userService.findAllUsers();
-        Object[] stats = userService.getUserStatistics();
+        UserStatistics stats = userService.getUserStatistics();
         
         model.addAttribute("users", users);
-        model.addAttribute("userCount", stats != null && stats.length > 0 ? stats[0] : 0);
-        model.addAttribute("avgAge", stats != null && stats.length > 1 && stats[1] != null ? stats[1] : 0);
-        model.addAttribute("maxAge", stats != null && stats.length > 2 && stats[2] != null ? stats[2] : 0);
+        model.addAttribute("userCount", stats.totalCount());
+        model.addAttribute("avgAge", stats.averageAge() != null ? stats.averageAge() : 0);
+        model.addAttribute("maxAge", stats.maxAge() != null ? stats.maxAge() : 0);
         
         return "users";
     }
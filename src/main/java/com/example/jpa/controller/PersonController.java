@@ -0,0 +1,73 @@
+package com.example.jpa.controller;
+
+import com.example.jpa.entity.Customer;
+import com.example.jpa.entity.Employee;
+import com.example.jpa.entity.Money;
+import com.example.jpa.entity.Person;
+import com.example.jpa.repository.PersonRepository;
+import com.example.jpa.service.CustomerSpendAccumulator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 人员控制器 - 演示继承映射的多态分页查询
+ */
+@RestController
+@RequestMapping("/api/persons")
+@RequiredArgsConstructor
+@Slf4j
+public class PersonController {
+
+    private final PersonRepository personRepository;
+    private final CustomerSpendAccumulator customerSpendAccumulator;
+
+    /**
+     * 分页获取人员
+     * 不传type时返回所有类型的人员，type为EMPLOYEE或CUSTOMER时只返回该类型
+     */
+    @GetMapping
+    public ResponseEntity<Page<Person>> getPersons(
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        log.info("分页获取人员: type={}, page={}, size={}", type, page, size);
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        if (type == null) {
+            return ResponseEntity.ok(withPendingSpend(personRepository.findAll(pageable)));
+        }
+        return switch (type.toUpperCase()) {
+            case "EMPLOYEE" -> ResponseEntity.ok(personRepository.findByType(Employee.class, pageable));
+            case "CUSTOMER" -> ResponseEntity.ok(withPendingSpend(personRepository.findByType(Customer.class, pageable)));
+            default -> ResponseEntity.badRequest().build();
+        };
+    }
+
+    /**
+     * 客户的累计消费加上内存中尚未写入数据库的金额
+     * total_spent不随实体更新写入，修改后的值只出现在响应中
+     */
+    private Page<Person> withPendingSpend(Page<Person> persons) {
+        for (Person person : persons) {
+            if (person instanceof Customer customer) {
+                Money pending = customerSpendAccumulator.pending(customer.getId());
+                if (!pending.isZero()) {
+                    customer.setTotalSpent(customer.getTotalSpent() == null
+                            ? pending
+                            : customer.getTotalSpent().plus(pending));
+                }
+            }
+        }
+        return persons;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.jpa.controller;
+
+import com.example.jpa.dto.UserDetail;
+import com.example.jpa.service.SearchIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 搜索控制器
+ * 基于内存三元组索引的部门、商品名称子串搜索，用户搜索见 /api/users/search
+ */
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+@Slf4j
+public class SearchController {
+
+    private final SearchIndexService searchIndexService;
+
+    /**
+     * 按名称或描述搜索部门
+     */
+    @GetMapping("/departments")
+    public ResponseEntity<List<UserDetail.DepartmentItem>> searchDepartments(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("搜索部门: {}", keyword);
+        if (!searchIndexService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(searchIndexService.searchDepartments(keyword, limit));
+    }
+
+    /**
+     * 搜索订单项中出现过的商品名称
+     */
+    @GetMapping("/products")
+    public ResponseEntity<List<String>> searchProductNames(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("搜索商品名称: {}", keyword);
+        if (!searchIndexService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(searchIndexService.searchProductNames(keyword, limit));
+    }
+
+    /**
+     * 在后台重建搜索索引（批量SQL修改数据后使用）
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Void> rebuild() {
+        log.info("重建搜索索引");
+        searchIndexService.rebuildAsync();
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -1,17 +1,33 @@
 package com.example.jpa.controller;
 
+import com.example.jpa.dto.CursorPage;
+import com.example.jpa.dto.JobStatus;
+import com.example.jpa.dto.UserBatchResult;
+import com.example.jpa.dto.UserDetail;
+import com.example.jpa.dto.UserPatch;
+import com.example.jpa.dto.UserStatistics;
+import com.example.jpa.dto.UserSummary;
 import com.example.jpa.entity.Department;
 import com.example.jpa.entity.User;
+import com.example.jpa.service.SearchIndexService;
+import com.example.jpa.service.UserBulkDeleteService;
+import com.example.jpa.service.UserExportService;
 import com.example.jpa.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +45,8 @@ import java.util.Map;
  * 8. @RequestParam - 请求参数
  * 9. @RequestBody - 请求体
  * 10. ResponseEntity - 响应实体
+ * 11. @PatchMapping - PATCH请求映射，部分更新
+ * 12. @RequestHeader - 请求头，If-Match与ETag（用户版本号）实现乐观并发控制
  */
 @RestController
 @RequestMapping("/api/users")
@@ -37,6 +55,9 @@ import java.util.Map;
 public class UserController {
     
     private final UserService userService;
+    private final UserExportService userExportService;
+    private final SearchIndexService searchIndexService;
+    private final UserBulkDeleteService userBulkDeleteService;
     
     // ========== 查询接口 ==========
     
@@ -44,17 +65,41 @@ public class UserController {
      * 获取所有用户
      */
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
+    public ResponseEntity<List<UserSummary>> getAllUsers() {
         log.info("获取所有用户");
-        List<User> users = userService.findAllUsers();
+        List<UserSummary> users = userService.findAllUserSummaries();
         return ResponseEntity.ok(users);
     }
     
+    /**
+     * 流式导出所有用户
+     * 支持ndjson（每行一个JSON对象）和csv两种格式，边查询边写出，不在内存中保存完整结果
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format) {
+        log.info("流式导出用户: format={}", format);
+        
+        UserExportService.Format exportFormat;
+        try {
+            exportFormat = UserExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.error("不支持的导出格式: {}", format);
+            return ResponseEntity.badRequest().build();
+        }
+        
+        StreamingResponseBody body = outputStream -> userExportService.exportUsers(exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"users." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+    
     /**
      * 分页获取用户
      */
     @GetMapping("/page")
-    public ResponseEntity<Page<User>> getUsersWithPagination(
+    public ResponseEntity<Page<UserSummary>> getUsersWithPagination(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
@@ -66,21 +111,56 @@ public class UserController {
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<User> users = userService.findUsersWithPagination(pageable);
+        Page<UserSummary> users = userService.findUserSummaries(pageable);
         
         return ResponseEntity.ok(users);
     }
     
+    /**
+     * 游标分页获取用户
+     * 
+     * 首次请求不传cursor，之后使用响应中的nextCursor获取下一页；
+     * 不执行COUNT查询，深页与第一页代价相同
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<User>> scrollUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir) {
+        
+        log.info("游标分页获取用户: size={}, sortBy={}, sortDir={}", size, sortBy, sortDir);
+        
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        
+        try {
+            CursorPage<User> users = userService.scrollUsers(sortBy, direction, size, cursor);
+            return ResponseEntity.ok(users);
+        } catch (IllegalArgumentException e) {
+            log.error("游标分页获取用户失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * 根据ID获取用户
+     * 
+     * expand指定需要一起返回的关联，例如 expand=departments,orders，
+     * 未指定的关联不加载也不返回
      */
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable Long id) {
-        log.info("根据ID获取用户: {}", id);
+    public ResponseEntity<UserDetail> getUserById(@PathVariable Long id,
+                                                  @RequestParam(required = false) List<String> expand) {
+        log.info("根据ID获取用户: {}, expand={}", id, expand);
         
-        return userService.findUserById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        try {
+            return userService.findUserDetail(id, UserDetail.Expand.parse(expand))
+                    .map(user -> ResponseEntity.ok().eTag(eTag(user.version())).body(user))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            log.error("根据ID获取用户失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
@@ -111,10 +191,10 @@ public class UserController {
      * 根据年龄获取用户
      */
     @GetMapping("/age/{age}")
-    public ResponseEntity<List<User>> getUsersByAge(@PathVariable Integer age) {
+    public ResponseEntity<List<UserSummary>> getUsersByAge(@PathVariable Integer age) {
         log.info("根据年龄获取用户: {}", age);
         
-        List<User> users = userService.findUsersByAge(age);
+        List<UserSummary> users = userService.findUserSummariesByAge(age);
         return ResponseEntity.ok(users);
     }
     
@@ -122,24 +202,33 @@ public class UserController {
      * 根据年龄范围获取用户
      */
     @GetMapping("/age/range")
-    public ResponseEntity<List<User>> getUsersByAgeRange(
+    public ResponseEntity<List<UserSummary>> getUsersByAgeRange(
             @RequestParam Integer minAge,
             @RequestParam Integer maxAge) {
         
         log.info("根据年龄范围获取用户: {} - {}", minAge, maxAge);
         
-        List<User> users = userService.findUsersByAgeRange(minAge, maxAge);
+        List<UserSummary> users = userService.findUserSummariesByAgeRange(minAge, maxAge);
         return ResponseEntity.ok(users);
     }
     
     /**
      * 根据用户名关键词搜索用户
+     * 
+     * 使用内存三元组索引，结果按相关度排序（完全匹配、前缀匹配优先）后分页，不访问数据库；
+     * 启动后索引构建完成前回退到数据库LIKE查询，按ID排序
      */
     @GetMapping("/search")
-    public ResponseEntity<List<User>> searchUsersByKeyword(@RequestParam String keyword) {
-        log.info("根据关键词搜索用户: {}", keyword);
+    public ResponseEntity<Page<UserSummary>> searchUsersByKeyword(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("根据关键词搜索用户: {}, page={}, size={}", keyword, page, size);
         
-        List<User> users = userService.findUsersByUsernameKeyword(keyword);
+        Pageable pageable = PageRequest.of(page, size);
+        Page<UserSummary> users = searchIndexService.isReady()
+                ? searchIndexService.searchUsers(keyword, pageable)
+                : userService.findUserSummariesByUsernameKeyword(keyword, pageable);
         return ResponseEntity.ok(users);
     }
     
@@ -147,18 +236,9 @@ public class UserController {
      * 获取用户统计信息
      */
     @GetMapping("/statistics")
-    public ResponseEntity<Map<String, Object>> getUserStatistics() {
+    public ResponseEntity<UserStatistics> getUserStatistics() {
         log.info("获取用户统计信息");
-        
-        Object[] stats = userService.getUserStatistics();
-        Map<String, Object> result = Map.of(
-                "totalCount", stats[0],
-                "averageAge", stats[1],
-                "maxAge", stats[2],
-                "minAge", stats[3]
-        );
-        
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(userService.getUserStatistics());
     }
     
     /**
@@ -192,14 +272,18 @@ public class UserController {
     
     /**
      * 批量创建用户
+     * 校验失败时返回400，响应体中包含每一行的错误信息
      */
     @PostMapping("/batch")
-    public ResponseEntity<List<User>> createUsers(@RequestBody List<User> users) {
+    public ResponseEntity<UserBatchResult> createUsers(@RequestBody List<User> users) {
         log.info("批量创建用户，数量: {}", users.size());
         
         try {
-            List<User> createdUsers = userService.createUsers(users);
-            return ResponseEntity.ok(createdUsers);
+            UserBatchResult result = userService.createUsers(users);
+            if (result.hasErrors()) {
+                return ResponseEntity.badRequest().body(result);
+            }
+            return ResponseEntity.ok(result);
         } catch (RuntimeException e) {
             log.error("批量创建用户失败: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
@@ -212,18 +296,43 @@ public class UserController {
      * 更新用户信息
      */
     @PutMapping("/{id}")
-    public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody User userDetails) {
+    public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody User userDetails,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("更新用户信息: {}", id);
         
         try {
-            User updatedUser = userService.updateUser(id, userDetails);
-            return ResponseEntity.ok(updatedUser);
+            User updatedUser = userService.updateUser(id, userDetails, parseVersion(ifMatch));
+            return ResponseEntity.ok().eTag(eTag(updatedUser.getVersion())).body(updatedUser);
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("更新用户冲突: {}", e.getMessage());
+            return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             log.error("更新用户失败: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
         }
     }
     
+    /**
+     * 部分更新用户，只修改请求体中提供的字段
+     * 带If-Match请求头时，版本号与ETag不同返回412，客户端不需要先读取用户
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<User> patchUser(@PathVariable Long id, @RequestBody UserPatch patch,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.info("部分更新用户: {}", id);
+        
+        try {
+            User updatedUser = userService.patchUser(id, patch, parseVersion(ifMatch));
+            return ResponseEntity.ok().eTag(eTag(updatedUser.getVersion())).body(updatedUser);
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("部分更新用户冲突: {}", e.getMessage());
+            return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            log.error("部分更新用户失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * 更新用户年龄
      */
@@ -260,29 +369,32 @@ public class UserController {
     
     /**
      * 根据年龄删除用户
+     * 在后台分批删除，返回202和任务状态，进度通过 /api/jobs/{id} 查询
      */
     @DeleteMapping("/age/{age}")
-    public ResponseEntity<Void> deleteUsersByAge(@PathVariable Integer age) {
+    public ResponseEntity<JobStatus> deleteUsersByAge(@PathVariable Integer age) {
         log.info("根据年龄删除用户: {}", age);
         
-        userService.deleteUsersByAge(age);
-        return ResponseEntity.ok().build();
+        JobStatus job = userBulkDeleteService.deleteUsersByAge(age);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.id()))
+                .body(job);
     }
     
     // ========== 部门相关接口 ==========
     
     /**
-     * 为用户添加部门
+     * 为用户添加部门，返回带部门列表的用户详情
      */
     @PostMapping("/{userId}/departments/{departmentId}")
-    public ResponseEntity<User> addDepartmentToUser(
+    public ResponseEntity<UserDetail> addDepartmentToUser(
             @PathVariable Long userId,
             @PathVariable Long departmentId) {
         
         log.info("为用户添加部门: 用户ID={}, 部门ID={}", userId, departmentId);
         
         try {
-            User updatedUser = userService.addDepartmentToUser(userId, departmentId);
+            UserDetail updatedUser = userService.addDepartmentToUser(userId, departmentId);
             return ResponseEntity.ok(updatedUser);
         } catch (RuntimeException e) {
             log.error("为用户添加部门失败: {}", e.getMessage());
@@ -291,17 +403,17 @@ public class UserController {
     }
     
     /**
-     * 从用户移除部门
+     * 从用户移除部门，返回带部门列表的用户详情
      */
     @DeleteMapping("/{userId}/departments/{departmentId}")
-    public ResponseEntity<User> removeDepartmentFromUser(
+    public ResponseEntity<UserDetail> removeDepartmentFromUser(
             @PathVariable Long userId,
             @PathVariable Long departmentId) {
         
         log.info("从用户移除部门: 用户ID={}, 部门ID={}", userId, departmentId);
         
         try {
-            User updatedUser = userService.removeDepartmentFromUser(userId, departmentId);
+            UserDetail updatedUser = userService.removeDepartmentFromUser(userId, departmentId);
             return ResponseEntity.ok(updatedUser);
         } catch (RuntimeException e) {
             log.error("从用户移除部门失败: {}", e.getMessage());
@@ -324,4 +436,28 @@ public class UserController {
             return ResponseEntity.badRequest().build();
         }
     }
-} 
\ No newline at end of file
+    
+    // ========== ETag ==========
+    
+    private static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+    
+    /**
+     * 从If-Match请求头解析版本号，没有请求头或为*时返回null（不检查版本）
+     */
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        try {
+            return Long.valueOf(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的If-Match: " + ifMatch);
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.jpa.demo;
 
+import com.example.jpa.config.Workload;
+import com.example.jpa.config.WorkloadType;
+import com.example.jpa.dto.UserStatistics;
+import com.example.jpa.dto.UsernameEmail;
 import com.example.jpa.entity.*;
 import com.example.jpa.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -27,11 +32,13 @@ import java.util.List;
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
+@Workload(WorkloadType.BATCH)
 public class JpaDemoService {
     
     private final UserRepository userRepository;
     private final DepartmentRepository departmentRepository;
     private final OrderRepository orderRepository;
+    private final PersonRepository personRepository;
     
     /**
      * 演示基本的CRUD操作
@@ -111,7 +118,7 @@ public class JpaDemoService {
         employee.setEmail("zhangsan@company.com");
         employee.setPhone("13800138000");
         employee.setEmployeeId("EMP001");
-        employee.setSalary(new BigDecimal("8000"));
+        employee.setSalary(Money.of("8000"));
         employee.setPosition(Employee.Position.JUNIOR_DEVELOPER);
         employee.setHireDate(java.time.LocalDate.now());
         employee.setDepartment("技术部");
@@ -122,13 +129,29 @@ public class JpaDemoService {
         customer.setEmail("lisi@customer.com");
         customer.setPhone("13900139000");
         customer.setCustomerId("CUST001");
-        customer.setTotalSpent(new BigDecimal("5000"));
+        customer.setTotalSpent(Money.of("5000"));
         customer.setCustomerType(Customer.CustomerType.VIP);
         customer.setRegistrationDate(java.time.LocalDate.now());
         customer.setAddress("北京市朝阳区");
         
-        log.info("员工信息: {}", employee);
-        log.info("客户信息: {}", customer);
+        // 两个子类保存在同一张persons表中，person_type列区分类型；重复运行演示时不再插入
+        if (personRepository.findByEmail(employee.getEmail()).isEmpty()) {
+            personRepository.save(employee);
+        }
+        if (personRepository.findByEmail(customer.getEmail()).isEmpty()) {
+            personRepository.save(customer);
+        }
+        
+        // 多态查询：结果中同时包含员工和客户
+        PageRequest page = PageRequest.of(0, 10, Sort.by("id"));
+        personRepository.findAll(page).forEach(person ->
+                log.info("人员: {} {}", person.getPersonType(), person.getName()));
+        
+        // 按子类型查询
+        log.info("员工数量: {}", personRepository.findByType(Employee.class, page).getTotalElements());
+        log.info("客户数量: {}", personRepository.findCustomers(page).getTotalElements());
+        log.info("按邮箱查询到的人员类型: {}",
+                personRepository.findByEmail(customer.getEmail()).map(Person::getPersonType).orElse(null));
     }
     
     /**
@@ -154,9 +177,9 @@ public class JpaDemoService {
         log.info("JPQL查询20-30岁用户数量: {}", usersByJpql.size());
         
         // 统计查询
-        Object[] stats = userRepository.getUserStatistics();
+        UserStatistics stats = userRepository.getUserStatistics();
         log.info("用户统计: 总数={}, 平均年龄={}, 最大年龄={}, 最小年龄={}", 
-                stats[0], stats[1], stats[2], stats[3]);
+                stats.totalCount(), stats.averageAge(), stats.maxAge(), stats.minAge());
         
         // 原生SQL查询
         long count = userRepository.countUsersNative();
@@ -186,12 +209,12 @@ public class JpaDemoService {
         OrderItem item1 = new OrderItem();
         item1.setProductName("笔记本电脑");
         item1.setQuantity(1);
-        item1.setPrice(new BigDecimal("5999"));
+        item1.setPrice(Money.of("5999"));
         
         OrderItem item2 = new OrderItem();
         item2.setProductName("鼠标");
         item2.setQuantity(2);
-        item2.setPrice(new BigDecimal("99"));
+        item2.setPrice(Money.of("99"));
         
         // 添加订单项到订单
         order.addOrderItem(item1);
@@ -265,10 +288,10 @@ public class JpaDemoService {
         log.info("=== 演示投影查询 ===");
         
         // 只查询用户名和邮箱
-        List<Object[]> usernameAndEmails = userRepository.findUsernameAndEmail();
+        List<UsernameEmail> usernameAndEmails = userRepository.findUsernameAndEmail();
         log.info("用户名和邮箱投影查询结果:");
-        for (Object[] result : usernameAndEmails) {
-            log.info("用户名: {}, 邮箱: {}", result[0], result[1]);
+        for (UsernameEmail result : usernameAndEmails) {
+            log.info("用户名: {}, 邮箱: {}", result.username(), result.email());
         }
         
         // 只查询用户名
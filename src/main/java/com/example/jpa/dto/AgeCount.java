@@ -0,0 +1,7 @@
+package com.example.jpa.dto;
+
+/**
+ * 按年龄分组的用户数量
+ */
+public record AgeCount(Integer age, long count) {
+}
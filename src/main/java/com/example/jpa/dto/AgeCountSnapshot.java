@@ -0,0 +1,9 @@
+package com.example.jpa.dto;
+
+import java.util.List;
+
+/**
+ * 加载用户统计信息时读取的年龄分布，sequence为读取快照确定后UserStatisticsTracker的修改序号
+ */
+public record AgeCountSnapshot(long sequence, List<AgeCount> counts) {
+}
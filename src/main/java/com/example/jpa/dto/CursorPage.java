@@ -0,0 +1,15 @@
+package com.example.jpa.dto;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * 
+ * 与Page不同，游标分页不执行COUNT查询，也不返回总页数：
+ * 1. content - 当前页数据
+ * 2. nextCursor - 下一页的不透明游标，没有下一页时为null
+ * 3. hasNext - 是否还有下一页
+ * 4. size - 请求的页大小
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, boolean hasNext, int size) {
+}
@@ -0,0 +1,19 @@
+package com.example.jpa.dto;
+
+import java.util.List;
+
+/**
+ * 批量调整部门成员的请求
+ * 
+ * 先移除remove中的用户，再加入add中的用户；两者都可以为空
+ */
+public record DepartmentMembershipChange(List<Long> add, List<Long> remove) {
+    
+    public List<Long> add() {
+        return add == null ? List.of() : add;
+    }
+    
+    public List<Long> remove() {
+        return remove == null ? List.of() : remove;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.jpa.dto;
+
+/**
+ * 批量调整部门成员的结果
+ * 
+ * added、removed为实际插入、删除的关联数，不包含已经是成员、不是成员或不存在的用户
+ */
+public record DepartmentMembershipResult(Long departmentId, int added, int removed) {
+}
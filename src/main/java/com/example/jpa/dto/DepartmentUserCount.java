@@ -0,0 +1,7 @@
+package com.example.jpa.dto;
+
+/**
+ * 部门及其用户数量
+ */
+public record DepartmentUserCount(Long id, String name, long userCount) {
+}
@@ -0,0 +1,7 @@
+package com.example.jpa.dto;
+
+/**
+ * 主键范围，表为空时两个值都为null
+ */
+public record IdRange(Long minId, Long maxId) {
+}
@@ -0,0 +1,22 @@
+package com.example.jpa.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+/**
+ * 后台任务状态快照
+ * 
+ * 1. total - 预计处理的数量，未知时为null
+ * 2. processed - 已处理的数量
+ * 3. message - 完成时的结果说明或失败原因
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JobStatus(String id, String type, State state, Long total, long processed,
+                        LocalDateTime createdAt, LocalDateTime startedAt, LocalDateTime finishedAt,
+                        String message) {
+    
+    public enum State {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+}
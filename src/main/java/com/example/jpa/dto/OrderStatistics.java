@@ -0,0 +1,11 @@
+package com.example.jpa.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * 订单统计信息
+ * 
+ * 没有订单时totalAmount和averageAmount为null
+ */
+public record OrderStatistics(long orderCount, BigDecimal totalAmount, Double averageAmount) {
+}
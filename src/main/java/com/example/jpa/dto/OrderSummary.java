@@ -0,0 +1,15 @@
+package com.example.jpa.dto;
+
+import com.example.jpa.entity.Money;
+import com.example.jpa.entity.Order;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单摘要
+ * 
+ * 热表和归档表的订单使用同一个投影返回，archived表示订单来自归档表
+ */
+public record OrderSummary(Long id, String orderNumber, Money totalAmount, Order.OrderStatus status,
+                           LocalDateTime createdAt, Long userId, boolean archived) {
+}
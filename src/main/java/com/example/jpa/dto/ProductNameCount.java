@@ -0,0 +1,7 @@
+package com.example.jpa.dto;
+
+/**
+ * 商品名称及使用该名称的订单项数量
+ */
+public record ProductNameCount(String productName, long count) {
+}
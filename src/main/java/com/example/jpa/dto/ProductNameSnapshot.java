@@ -0,0 +1,9 @@
+package com.example.jpa.dto;
+
+import java.util.List;
+
+/**
+ * 重建搜索索引时加载的商品名称统计，sequence为读取快照确定后SearchIndexService的修改序号
+ */
+public record ProductNameSnapshot(long sequence, List<ProductNameCount> counts) {
+}
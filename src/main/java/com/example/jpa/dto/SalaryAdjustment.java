@@ -0,0 +1,45 @@
+package com.example.jpa.dto;
+
+import com.example.jpa.entity.Employee;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * 员工薪资调整请求
+ *
+ * @param positions  调整的职位，为空时不限职位
+ * @param department 调整的部门，为null时不限部门
+ * @param type       调整方式
+ * @param value      百分比（如5表示5%）或固定金额（元）
+ */
+public record SalaryAdjustment(Set<Employee.Position> positions, String department, Type type, BigDecimal value) {
+
+    public enum Type {
+        /**
+         * 按百分比调整，新薪资四舍五入到分
+         */
+        PERCENTAGE(false),
+        /**
+         * 增加固定金额
+         */
+        FIXED(false),
+        /**
+         * 每满一年工龄增加value个百分点，需要逐行读取入职日期计算
+         */
+        PERCENTAGE_PER_YEAR(true);
+
+        private final boolean perRow;
+
+        Type(boolean perRow) {
+            this.perRow = perRow;
+        }
+
+        /**
+         * 是否需要逐行计算，不能用一条UPDATE完成
+         */
+        public boolean isPerRow() {
+            return perRow;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.jpa.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * 员工薪资调整结果
+ *
+ * @param dryRun        是否只计算未写入
+ * @param affectedRows  薪资被调整（试运行时为将被调整）的员工数
+ * @param skippedRows   读取后薪资被其他事务修改而跳过的员工数，只有逐行调整时可能不为0
+ * @param payrollBefore 匹配条件的员工调整前的薪资总额
+ * @param payrollDelta  薪资总额的变化
+ */
+public record SalaryAdjustmentSummary(boolean dryRun, long affectedRows, long skippedRows,
+                                      BigDecimal payrollBefore, BigDecimal payrollDelta) {
+}
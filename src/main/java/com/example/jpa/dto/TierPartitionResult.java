@@ -0,0 +1,28 @@
+package com.example.jpa.dto;
+
+/**
+ * 客户等级重新计算中一个主键范围分区的结果
+ *
+ * @param partition 分区序号
+ * @param fromId    分区的起始主键（包含）
+ * @param toId      分区的结束主键（包含）
+ * @param scanned   读取的客户数
+ * @param changed   等级发生变化并已写入的客户数
+ * @param elapsedMillis 分区的处理时间
+ */
+public record TierPartitionResult(int partition, long fromId, long toId, long scanned, long changed,
+                                  long elapsedMillis) {
+
+    /**
+     * 每秒读取的客户数
+     */
+    public long rowsPerSecond() {
+        return elapsedMillis == 0 ? scanned * 1000 : scanned * 1000 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d[%d-%d] 扫描%d 修改%d 用时%dms %d行/秒",
+                partition, fromId, toId, scanned, changed, elapsedMillis, rowsPerSecond());
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.jpa.dto;
+
+/**
+ * 批量创建用户时的单行错误
+ * 
+ * index为该行在请求列表中的下标（从0开始）
+ */
+public record UserBatchError(int index, String field, String value, String message) {
+}
@@ -0,0 +1,18 @@
+package com.example.jpa.dto;
+
+import com.example.jpa.entity.User;
+
+import java.util.List;
+
+/**
+ * 批量创建用户结果
+ * 
+ * 批量创建是原子的：只要存在任意一行错误，所有用户都不会保存，
+ * created为空，errors中列出所有出错的行
+ */
+public record UserBatchResult(List<User> created, List<UserBatchError> errors) {
+    
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.jpa.dto;
+
+import com.example.jpa.entity.Department;
+import com.example.jpa.entity.Money;
+import com.example.jpa.entity.Order;
+import com.example.jpa.entity.User;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 用户详情
+ * 
+ * departments和orders只有在expand中请求时才加载并返回，未请求时不出现在JSON中；
+ * version同时作为响应的ETag
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserDetail(Long id, String username, String email, Integer age,
+                         LocalDateTime createdAt, LocalDateTime updatedAt, Long version,
+                         List<DepartmentItem> departments, List<OrderDetail> orders) {
+    
+    /**
+     * 可展开的关联
+     */
+    public enum Expand {
+        DEPARTMENTS, ORDERS;
+        
+        /**
+         * 解析expand参数，未知的值抛出IllegalArgumentException
+         */
+        public static Set<Expand> parse(List<String> values) {
+            Set<Expand> expand = EnumSet.noneOf(Expand.class);
+            if (values == null) {
+                return expand;
+            }
+            for (String value : values) {
+                if (value.isBlank()) {
+                    continue;
+                }
+                try {
+                    expand.add(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("不支持展开的关联: " + value);
+                }
+            }
+            return expand;
+        }
+    }
+    
+    public record DepartmentItem(Long id, String name, String description) {
+    }
+    
+    public record OrderDetail(Long id, String orderNumber, Money totalAmount, Order.OrderStatus status,
+                              LocalDateTime createdAt, List<OrderItemDetail> items) {
+    }
+    
+    public record OrderItemDetail(Long id, String productName, Integer quantity, Money price, Money subtotal) {
+    }
+    
+    /**
+     * 由已加载的实体创建详情，departments为true时读取用户的部门集合，orders为null时不返回订单
+     */
+    public static UserDetail of(User user, boolean departments, List<Order> orders) {
+        return new UserDetail(user.getId(), user.getUsername(), user.getEmail(), user.getAge(),
+                user.getCreatedAt(), user.getUpdatedAt(), user.getVersion(),
+                departments ? departmentItems(user.getDepartments()) : null,
+                orders == null ? null : orders.stream().map(UserDetail::orderDetail).toList());
+    }
+    
+    private static List<DepartmentItem> departmentItems(Set<Department> departments) {
+        return departments.stream()
+                .sorted(Comparator.comparing(Department::getId))
+                .map(d -> new DepartmentItem(d.getId(), d.getName(), d.getDescription()))
+                .toList();
+    }
+    
+    private static OrderDetail orderDetail(Order order) {
+        List<OrderItemDetail> items = order.getOrderItems().stream()
+                .map(item -> new OrderItemDetail(item.getId(), item.getProductName(), item.getQuantity(),
+                        item.getPrice(), item.getSubtotal()))
+                .toList();
+        return new OrderDetail(order.getId(), order.getOrderNumber(), order.getTotalAmount(), order.getStatus(),
+                order.getCreatedAt(), items);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.jpa.dto;
+
+/**
+ * 用户部分更新请求
+ * 
+ * 只更新不为null的字段，未提供的字段保持不变
+ */
+public record UserPatch(String username, String email, Integer age) {
+    
+    public boolean isEmpty() {
+        return username == null && email == null && age == null;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.jpa.dto;
+
+/**
+ * 用户统计信息
+ * 
+ * averageAge、maxAge、minAge与原聚合查询一致，年龄为null的用户按0计算；
+ * 没有用户时这三项为null
+ */
+public record UserStatistics(long totalCount, Double averageAge, Integer maxAge, Integer minAge) {
+}
@@ -0,0 +1,13 @@
+package com.example.jpa.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户列表项
+ * 
+ * 通过构造器表达式直接从查询结果创建，不经过实体：
+ * 不放入持久化上下文、不保存脏检查快照、不创建关联集合代理
+ */
+public record UserSummary(Long id, String username, String email, Integer age,
+                          LocalDateTime createdAt, LocalDateTime updatedAt) {
+}
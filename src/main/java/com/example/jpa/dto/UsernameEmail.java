@@ -0,0 +1,7 @@
+package com.example.jpa.dto;
+
+/**
+ * 用户名和邮箱投影
+ */
+public record UsernameEmail(String username, String email) {
+}
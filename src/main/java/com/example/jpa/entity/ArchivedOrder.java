@@ -0,0 +1,51 @@
+package com.example.jpa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 归档订单实体类
+ * 
+ * 已送达、已取消且超过保留期的订单由OrderArchiveService从orders表移到这里，
+ * 主键和各列的值与原订单相同，热表orders只保留近期和未完成的订单
+ * 
+ * 演示的JPA概念：
+ * 1. @Table(indexes) - 声明索引，按用户和按状态、时间查询归档订单
+ * 2. 不使用@GeneratedValue - 主键由INSERT ... SELECT从原表复制
+ * 3. 外键保存为普通列 - 归档数据只读，不与用户实体建立关联
+ */
+@Entity
+@Table(name = "orders_archive", indexes = {
+    @Index(name = "idx_orders_archive_user_id", columnList = "user_id"),
+    @Index(name = "idx_orders_archive_status_created_at", columnList = "status, created_at")
+})
+@Data
+public class ArchivedOrder {
+    
+    @Id
+    private Long id;
+    
+    @Column(name = "order_number", nullable = false, unique = true)
+    private String orderNumber;
+    
+    @Column(name = "total_amount", precision = 10, scale = 2)
+    private Money totalAmount;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private Order.OrderStatus status;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
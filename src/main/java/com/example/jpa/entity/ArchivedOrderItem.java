@@ -0,0 +1,38 @@
+package com.example.jpa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 归档订单项实体类
+ * 
+ * 与所属订单在同一个事务中从order_items表移到这里，主键和各列的值与原订单项相同
+ */
+@Entity
+@Table(name = "order_items_archive", indexes = @Index(name = "idx_order_items_archive_order_id", columnList = "order_id"))
+@Data
+public class ArchivedOrderItem {
+    
+    @Id
+    private Long id;
+    
+    @Column(name = "product_name", nullable = false)
+    private String productName;
+    
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+    
+    @Column(name = "price", precision = 10, scale = 2, nullable = false)
+    private Money price;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+}
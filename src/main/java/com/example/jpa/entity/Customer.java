@@ -4,7 +4,6 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 /**
@@ -15,6 +14,7 @@ import java.time.LocalDate;
  * 2. @DiscriminatorValue - 区分值配置
  * 3. @Column - 列映射配置
  * 4. @Enumerated - 枚举映射
+ * 5. @Column(updatable = false) - 只由增量UPDATE语句维护的列
  */
 @Entity
 @DiscriminatorValue("CUSTOMER")
@@ -25,8 +25,10 @@ public class Customer extends Person {
     @Column(name = "customer_id", unique = true)
     private String customerId;
     
-    @Column(name = "total_spent", precision = 10, scale = 2)
-    private BigDecimal totalSpent = BigDecimal.ZERO;
+    // 累计消费由CustomerSpendAccumulator用 total_spent = total_spent + ? 增量写入，
+    // 实体更新不写这一列，避免用读取时的旧值覆盖其他请求的累加
+    @Column(name = "total_spent", precision = 10, scale = 2, updatable = false)
+    private Money totalSpent = Money.ZERO;
     
     @Enumerated(EnumType.STRING)
     @Column(name = "customer_type")
@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -23,16 +26,21 @@ import java.util.Set;
  * 6. @ManyToMany - 多对多关系映射
  * 7. @CreationTimestamp - 创建时间自动设置
  * 8. @UpdateTimestamp - 更新时间自动设置
+ * 9. @Cache - 二级缓存（部门数据很少变化，缓存在departments区域）
+ * 10. @Version - 乐观锁
  */
 @Entity
 @Table(name = "departments")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "departments")
 @Data
 @ToString(exclude = {"users"}) // 避免循环引用
 @EqualsAndHashCode(exclude = {"users"})
 public class Department {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "departments_seq")
+    @SequenceGenerator(name = "departments_seq", sequenceName = "departments_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "name", nullable = false, unique = true, length = 100)
@@ -49,6 +57,12 @@ public class Department {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
     
+    // 乐观锁版本号：每次更新加1，UPDATE语句带上版本条件，并发修改时后提交的一方失败
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     // 多对多关系：部门可以有多个用户，用户可以有多个部门
     @ManyToMany(mappedBy = "departments", fetch = FetchType.LAZY)
     private Set<User> users = new HashSet<>();
@@ -0,0 +1,28 @@
+package com.example.jpa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
+
+/**
+ * 部门成员数实体类
+ * 
+ * 演示的JPA概念：
+ * 1. 冗余计数表 - 每个部门一行，成员增减时在同一事务中执行 member_count = member_count + ?
+ * 2. 与Department分开映射 - 计数频繁变化，不放进二级缓存的departments区域，
+ *    增减计数的原生UPDATE只声明本表，不会清空部门缓存
+ * 3. 共享主键 - department_id即部门主键，部门插入、删除时由DepartmentMemberCountListener同步创建、删除这一行
+ */
+@Entity
+@Table(name = "department_member_counts")
+@Data
+public class DepartmentMemberCount {
+    
+    @Id
+    @Column(name = "department_id")
+    private Long departmentId;
+    
+    @ColumnDefault("0")
+    @Column(name = "member_count", nullable = false)
+    private long memberCount;
+}
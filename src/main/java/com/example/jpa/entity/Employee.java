@@ -4,7 +4,6 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 /**
@@ -27,7 +26,7 @@ public class Employee extends Person {
     private String employeeId;
     
     @Column(name = "salary", precision = 10, scale = 2)
-    private BigDecimal salary;
+    private Money salary;
     
     @Enumerated(EnumType.STRING)
     @Column(name = "position")
@@ -0,0 +1,104 @@
+package com.example.jpa.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 金额值类型
+ * 
+ * 以long保存最小货币单位（分），固定两位小数：
+ * 1. 加法、乘法在long上完成，不创建中间BigDecimal对象
+ * 2. 溢出时抛出ArithmeticException，不会静默回绕
+ * 3. 与数据库DECIMAL(?, 2)列之间由MoneyConverter转换
+ * 4. JSON中序列化为普通数字，例如 59.99
+ */
+public final class Money implements Comparable<Money>, Serializable {
+    
+    /**
+     * 小数位数
+     */
+    public static final int SCALE = 2;
+    
+    public static final Money ZERO = new Money(0);
+    
+    private final long minorUnits;
+    
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+    
+    /**
+     * 由最小货币单位（分）创建
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+    
+    /**
+     * 由BigDecimal创建，小数位超过两位时抛出ArithmeticException
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Money of(BigDecimal amount) {
+        return ofMinor(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+    
+    /**
+     * 由字符串创建，例如 "59.99"
+     */
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+    
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+    
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+    
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+    
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+    
+    public Money times(long multiplier) {
+        return ofMinor(Math.multiplyExact(minorUnits, multiplier));
+    }
+    
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+    
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+    
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money other && minorUnits == other.minorUnits);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+    
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.jpa.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * 金额转换器
+ * 
+ * 演示的JPA概念：
+ * 1. @Converter(autoApply = true) - 自动应用到所有Money类型的属性
+ * 2. AttributeConverter - 实体属性与数据库列之间的类型转换
+ * 
+ * 数据库中仍然是DECIMAL(10, 2)列，表结构不变
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+    
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+    
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : Money.of(amount);
+    }
+}
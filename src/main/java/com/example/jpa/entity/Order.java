@@ -4,10 +4,12 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.UpdateTimestamp;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -27,23 +29,33 @@ import java.util.List;
  * 9. @Enumerated - 枚举映射
  * 10. @CreationTimestamp - 创建时间自动设置
  * 11. @UpdateTimestamp - 更新时间自动设置
+ * 12. @NamedEntityGraph - 命名实体图，订单和订单项通过JOIN一次加载
+ * 13. @Fetch(SUBSELECT) - 未使用实体图时，一组订单的订单项用一条子查询加载
+ * 14. @Table(indexes) - 按状态和创建时间查找需要归档的订单
+ * 15. @Version - 乐观锁
+ * 
+ * 已完成的旧订单会移到归档表，见ArchivedOrder
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_status_created_at", columnList = "status, created_at"))
+@NamedEntityGraph(name = Order.GRAPH_ITEMS, attributeNodes = @NamedAttributeNode("orderItems"))
 @Data
 @ToString(exclude = {"user", "orderItems"})
 @EqualsAndHashCode(exclude = {"user", "orderItems"})
 public class Order {
     
+    public static final String GRAPH_ITEMS = "Order.items";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "order_number", nullable = false, unique = true)
     private String orderNumber;
     
     @Column(name = "total_amount", precision = 10, scale = 2)
-    private BigDecimal totalAmount;
+    private Money totalAmount;
     
     @Enumerated(EnumType.STRING)
     @Column(name = "status")
@@ -57,6 +69,12 @@ public class Order {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
     
+    // 乐观锁版本号：每次更新加1，UPDATE语句带上版本条件，并发修改时后提交的一方失败
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     // 多对一关系：多个订单属于一个用户
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
@@ -64,6 +82,7 @@ public class Order {
     
     // 一对多关系：一个订单包含多个订单项
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
+    @Fetch(FetchMode.SUBSELECT)
     private List<OrderItem> orderItems = new ArrayList<>();
     
     // 便利方法：添加订单项
@@ -78,11 +97,13 @@ public class Order {
         orderItem.setOrder(null);
     }
     
-    // 计算总金额
+    // 计算总金额：在long上累加各订单项小计，只在最后创建一个金额对象，溢出时抛出ArithmeticException
     public void calculateTotalAmount() {
-        this.totalAmount = orderItems.stream()
-                .map(item -> item.getPrice().multiply(new BigDecimal(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long total = 0;
+        for (int i = 0; i < orderItems.size(); i++) {
+            total = Math.addExact(total, orderItems.get(i).getSubtotalMinorUnits());
+        }
+        this.totalAmount = Money.ofMinor(total);
     }
     
     // 订单状态枚举
@@ -7,7 +7,6 @@ import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -32,7 +31,8 @@ import java.time.LocalDateTime;
 public class OrderItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "product_name", nullable = false)
@@ -42,7 +42,7 @@ public class OrderItem {
     private Integer quantity;
     
     @Column(name = "price", precision = 10, scale = 2, nullable = false)
-    private BigDecimal price;
+    private Money price;
     
     @Column(name = "created_at", updatable = false)
     @CreationTimestamp
@@ -58,7 +58,12 @@ public class OrderItem {
     private Order order;
     
     // 计算小计
-    public BigDecimal getSubtotal() {
-        return price.multiply(new BigDecimal(quantity));
+    public Money getSubtotal() {
+        return Money.ofMinor(getSubtotalMinorUnits());
+    }
+    
+    // 计算小计（分），不创建金额对象，溢出时抛出ArithmeticException
+    public long getSubtotalMinorUnits() {
+        return Math.multiplyExact(price.getMinorUnits(), (long) quantity);
     }
 } 
\ No newline at end of file
@@ -21,16 +21,18 @@ import java.time.LocalDateTime;
  * 8. @Column - 列映射配置
  * 9. @CreationTimestamp - 创建时间自动设置
  * 10. @UpdateTimestamp - 更新时间自动设置
+ * 11. @Index - 区分列索引，按子类型过滤并按主键分页
  */
 @Entity
-@Table(name = "persons")
+@Table(name = "persons", indexes = @Index(name = "idx_persons_type_id", columnList = "person_type, id"))
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "person_type", discriminatorType = DiscriminatorType.STRING)
 @Data
 public abstract class Person {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "persons_seq")
+    @SequenceGenerator(name = "persons_seq", sequenceName = "persons_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "name", nullable = false, length = 100)
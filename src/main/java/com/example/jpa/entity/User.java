@@ -1,10 +1,19 @@
 package com.example.jpa.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.OptimisticLock;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -18,24 +27,39 @@ import java.util.Set;
  * 1. @Entity - 标记为JPA实体
  * 2. @Table - 指定数据库表名
  * 3. @Id - 主键标识
- * 4. @GeneratedValue - 主键生成策略
+ * 4. @GeneratedValue - 主键生成策略（序列 + pooled-lo优化器，MySQL上用表模拟序列，支持JDBC批量插入）
  * 5. @Column - 列映射配置
  * 6. @ManyToMany - 多对多关系映射
  * 7. @JoinTable - 关联表配置
  * 8. @CreationTimestamp - 创建时间自动设置
  * 9. @UpdateTimestamp - 更新时间自动设置
+ * 10. @NaturalId - 自然主键（用户名），配合@NaturalIdCache按用户名查找时走二级缓存
+ * 11. @Cache - 实体二级缓存
+ * 12. @NamedEntityGraph - 命名实体图，按需一次性加载部门或订单集合
+ * 13. @BatchSize - 未使用实体图时，多个用户的集合按批次加载，避免N+1查询
+ * 14. @Version - 乐观锁，版本号同时作为HTTP接口的ETag
+ * 15. @DynamicUpdate - UPDATE语句只包含修改过的列
  */
 @Entity
 @Table(name = "users")
+@NamedEntityGraph(name = User.GRAPH_DEPARTMENTS, attributeNodes = @NamedAttributeNode("departments"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-natural-id")
+@DynamicUpdate
 @Data
 @ToString(exclude = {"departments"}) // 避免循环引用
 @EqualsAndHashCode(exclude = {"departments"})
 public class User {
     
+    public static final String GRAPH_DEPARTMENTS = "User.departments";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
     
+    @NaturalId(mutable = true)
     @Column(name = "username", nullable = false, unique = true, length = 50)
     private String username;
     
@@ -53,6 +77,13 @@ public class User {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
     
+    // 乐观锁版本号：每次更新加1，UPDATE语句带上版本条件，并发修改时后提交的一方失败
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+    
     // 多对多关系：用户可以有多个部门，部门可以有多个用户
     @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
@@ -60,10 +91,13 @@ public class User {
         joinColumns = @JoinColumn(name = "user_id"),
         inverseJoinColumns = @JoinColumn(name = "department_id")
     )
+    @BatchSize(size = 50)
+    @OptimisticLock(excluded = true) // 部门关联的增减只写关联表，不增加用户版本号，不与资料修改冲突
     private Set<Department> departments = new HashSet<>();
     
     // 一对多关系：用户可以有多个订单
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     private Set<Order> orders = new HashSet<>();
     
     // 便利方法：添加部门
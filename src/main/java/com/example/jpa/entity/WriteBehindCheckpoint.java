@@ -0,0 +1,23 @@
+package com.example.jpa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * 延迟写入检查点
+ * 
+ * 记录已提交到数据库的最后一个日志段，与累加值在同一个事务中更新，
+ * 重启回放日志时跳过已提交的段，保证每笔金额只累加一次
+ */
+@Entity
+@Table(name = "write_behind_checkpoints")
+@Data
+public class WriteBehindCheckpoint {
+    
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+    
+    @Column(name = "segment", nullable = false)
+    private Long segment;
+}
@@ -0,0 +1,114 @@
+package com.example.jpa.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * 按HTTP请求统计SQL语句数
+ * 
+ * 1. 响应头X-Query-Count：响应开始写出时已执行的SQL语句数
+ * 2. 请求结束时记录日志，包含视图渲染和JSON序列化中触发的延迟加载；
+ *    超过app.query-count.warn-threshold时以WARN级别输出，便于发现N+1查询
+ * 
+ * 异步请求（如流式导出）在其他线程中执行查询，不计入统计
+ */
+@Component
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+    
+    public static final String HEADER = "X-Query-Count";
+    
+    private final int warnThreshold;
+    
+    public QueryCountFilter(@Value("${app.query-count.warn-threshold:20}") int warnThreshold) {
+        this.warnThreshold = warnThreshold;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long before = QueryCountInspector.currentCount();
+        QueryCountResponseWrapper wrapper = new QueryCountResponseWrapper(response, before);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            // 没有响应体的请求在这里补写响应头
+            wrapper.writeHeader();
+            long count = QueryCountInspector.currentCount() - before;
+            if (count > warnThreshold) {
+                log.warn("请求执行的SQL语句过多: {} {} -> {}条（阈值{}）",
+                        request.getMethod(), request.getRequestURI(), count, warnThreshold);
+            } else {
+                log.debug("请求执行SQL语句: {} {} -> {}条", request.getMethod(), request.getRequestURI(), count);
+            }
+        }
+    }
+    
+    /**
+     * 在响应提交之前写入X-Query-Count响应头
+     */
+    private static class QueryCountResponseWrapper extends HttpServletResponseWrapper {
+        
+        private final long before;
+        private boolean headerWritten;
+        
+        QueryCountResponseWrapper(HttpServletResponse response, long before) {
+            super(response);
+            this.before = before;
+        }
+        
+        private void writeHeader() {
+            if (!headerWritten && !isCommitted()) {
+                setHeader(HEADER, Long.toString(QueryCountInspector.currentCount() - before));
+            }
+            headerWritten = true;
+        }
+        
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+        
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+        
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+        
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+        
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+        
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeader();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.jpa.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * SQL语句计数器
+ * 
+ * Hibernate在预编译每条SQL之前都会调用StatementInspector，
+ * 这里按线程累计语句数量，调用方取前后两次计数的差值即可得到一段代码执行的SQL条数
+ */
+public class QueryCountInspector implements StatementInspector {
+    
+    private static final ThreadLocal<long[]> COUNTER = ThreadLocal.withInitial(() -> new long[1]);
+    
+    @Override
+    public String inspect(String sql) {
+        COUNTER.get()[0]++;
+        return sql;
+    }
+    
+    /**
+     * 当前线程累计执行的SQL语句数量
+     */
+    public static long currentCount() {
+        return COUNTER.get()[0];
+    }
+}
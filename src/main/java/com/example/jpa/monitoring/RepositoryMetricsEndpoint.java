@@ -0,0 +1,72 @@
+package com.example.jpa.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository方法指标汇总端点：GET /actuator/repositories
+ * 
+ * 把每个Repository方法的调用次数、耗时和SQL语句数汇总到一张表中，按总耗时倒序排列，
+ * 单项指标仍然可以通过 /actuator/metrics/{name} 按标签查询
+ */
+@Component
+@Endpoint(id = "repositories")
+@RequiredArgsConstructor
+public class RepositoryMetricsEndpoint {
+    
+    static final String INVOCATIONS_METRIC = "spring.data.repository.invocations";
+    
+    private final MeterRegistry meterRegistry;
+    
+    public record MethodMetrics(String repository, String method, long count, long errors,
+                                double totalMs, double meanMs, double maxMs,
+                                long statements, double statementsPerCall) {
+    }
+    
+    @ReadOperation
+    public List<MethodMetrics> repositories() {
+        Map<String, MethodMetrics> metrics = new TreeMap<>();
+        
+        // 同一个方法按state/exception标签拆成多个计时器，这里合并
+        for (Timer timer : meterRegistry.find(INVOCATIONS_METRIC).timers()) {
+            String repository = timer.getId().getTag("repository");
+            String method = timer.getId().getTag("method");
+            boolean failed = !"SUCCESS".equals(timer.getId().getTag("state"));
+            metrics.merge(repository + "." + method,
+                    new MethodMetrics(repository, method, timer.count(), failed ? timer.count() : 0,
+                            timer.totalTime(TimeUnit.MILLISECONDS), 0, timer.max(TimeUnit.MILLISECONDS), 0, 0),
+                    (a, b) -> new MethodMetrics(a.repository(), a.method(), a.count() + b.count(),
+                            a.errors() + b.errors(), a.totalMs() + b.totalMs(), 0,
+                            Math.max(a.maxMs(), b.maxMs()), 0, 0));
+        }
+        
+        Map<String, Long> statements = new LinkedHashMap<>();
+        for (DistributionSummary summary : meterRegistry.find(RepositoryQueryMetricsInterceptor.METRIC_NAME).summaries()) {
+            statements.put(summary.getId().getTag("repository") + "." + summary.getId().getTag("method"),
+                    (long) summary.totalAmount());
+        }
+        
+        return metrics.entrySet().stream()
+                .map(entry -> {
+                    MethodMetrics m = entry.getValue();
+                    long total = statements.getOrDefault(entry.getKey(), 0L);
+                    return new MethodMetrics(m.repository(), m.method(), m.count(), m.errors(),
+                            m.totalMs(), m.count() == 0 ? 0 : m.totalMs() / m.count(), m.maxMs(),
+                            total, m.count() == 0 ? 0 : (double) total / m.count());
+                })
+                .sorted(Comparator.comparingDouble(MethodMetrics::totalMs).reversed())
+                .toList();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.jpa.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.function.Supplier;
+
+/**
+ * Repository方法SQL语句数拦截器
+ * 
+ * 记录每次Repository方法调用执行的SQL语句数，指标名为 jpa.repository.statements，
+ * 标签与Spring Data自带的 spring.data.repository.invocations 计时器一致（repository、method）；
+ * 容器中没有MeterRegistry时（如@DataJpaTest）不记录
+ */
+public class RepositoryQueryMetricsInterceptor implements MethodInterceptor {
+    
+    public static final String METRIC_NAME = "jpa.repository.statements";
+    
+    private final Supplier<MeterRegistry> registry;
+    private final String repository;
+    
+    public RepositoryQueryMetricsInterceptor(Supplier<MeterRegistry> registry, Class<?> repositoryInterface) {
+        this.registry = registry;
+        this.repository = repositoryInterface.getSimpleName();
+    }
+    
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long before = QueryCountInspector.currentCount();
+        try {
+            return invocation.proceed();
+        } finally {
+            MeterRegistry meterRegistry = registry.get();
+            if (meterRegistry != null) {
+                record(meterRegistry, invocation, QueryCountInspector.currentCount() - before);
+            }
+        }
+    }
+    
+    private void record(MeterRegistry meterRegistry, MethodInvocation invocation, long statements) {
+        DistributionSummary.builder(METRIC_NAME)
+                .description("Repository方法每次调用执行的SQL语句数")
+                .baseUnit("statements")
+                .tag("repository", repository)
+                .tag("method", invocation.getMethod().getName())
+                .register(meterRegistry)
+                .record(statements);
+    }
+}
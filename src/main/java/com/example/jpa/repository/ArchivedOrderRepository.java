@@ -0,0 +1,64 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.entity.ArchivedOrder;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 归档订单仓库接口
+ * 
+ * 订单和订单项用INSERT ... SELECT在数据库中复制到归档表，数据不经过应用；
+ * 原生语句声明了影响的表，执行时只失效对应的查询缓存
+ */
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+    
+    /**
+     * 根据用户ID查找归档订单
+     */
+    List<ArchivedOrder> findByUserId(Long userId);
+    
+    /**
+     * 把指定订单复制到归档表
+     */
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (id, order_number, total_amount, status, created_at, updated_at, user_id, archived_at) " +
+                   "SELECT id, order_number, total_amount, status, created_at, updated_at, user_id, :archivedAt " +
+                   "FROM orders WHERE id IN (:orderIds)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "orders_archive"))
+    int copyOrders(@Param("orderIds") Collection<Long> orderIds, @Param("archivedAt") LocalDateTime archivedAt);
+    
+    /**
+     * 把指定订单的订单项复制到归档表
+     */
+    @Modifying
+    @Query(value = "INSERT INTO order_items_archive (id, product_name, quantity, price, created_at, updated_at, order_id) " +
+                   "SELECT id, product_name, quantity, price, created_at, updated_at, order_id " +
+                   "FROM order_items WHERE order_id IN (:orderIds)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "order_items_archive"))
+    int copyOrderItems(@Param("orderIds") Collection<Long> orderIds);
+    
+    /**
+     * 批量删除指定用户的归档订单项
+     */
+    @Modifying
+    @Query("DELETE FROM ArchivedOrderItem i WHERE i.orderId IN (SELECT o.id FROM ArchivedOrder o WHERE o.userId IN :userIds)")
+    int deleteOrderItemsByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    /**
+     * 批量删除指定用户的归档订单
+     */
+    @Modifying
+    @Query("DELETE FROM ArchivedOrder o WHERE o.userId IN :userIds")
+    int deleteByUserIds(@Param("userIds") Collection<Long> userIds);
+}
@@ -0,0 +1,85 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.entity.DepartmentMemberCount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 部门成员数仓库接口
+ * 
+ * 修改语句都是原生SQL，只声明department_member_counts表，
+ * Hibernate不会因此清理departments等其他缓存区域
+ */
+@Repository
+public interface DepartmentMemberCountRepository extends JpaRepository<DepartmentMemberCount, Long> {
+    
+    /**
+     * 原子地增减部门成员数，不读取当前值
+     */
+    @Modifying
+    @Query(value = "UPDATE department_member_counts SET member_count = member_count + :delta " +
+                   "WHERE department_id = :departmentId",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "department_member_counts"))
+    int addMemberCount(@Param("departmentId") Long departmentId, @Param("delta") long delta);
+    
+    /**
+     * 用集合语句删除一批用户的部门关联之前调用：每个部门减去其中属于该部门的用户数
+     */
+    @Modifying
+    @Query(value = "UPDATE department_member_counts c SET member_count = member_count - " +
+                   "(SELECT COUNT(*) FROM user_departments ud WHERE ud.department_id = c.department_id AND ud.user_id IN (:userIds)) " +
+                   "WHERE c.department_id IN (SELECT ud.department_id FROM user_departments ud WHERE ud.user_id IN (:userIds))",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "department_member_counts"))
+    int subtractMembersForUsers(@Param("userIds") Collection<Long> userIds);
+    
+    /**
+     * 为还没有计数行的部门（如升级前已有的部门、直接用SQL插入的部门）按实际成员数插入计数行，返回插入的行数
+     */
+    @Modifying
+    @Query(value = "INSERT INTO department_member_counts (department_id, member_count) " +
+                   "SELECT d.id, (SELECT COUNT(*) FROM user_departments ud WHERE ud.department_id = d.id) " +
+                   "FROM departments d WHERE NOT EXISTS " +
+                   "(SELECT 1 FROM department_member_counts c WHERE c.department_id = d.id)",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "department_member_counts"))
+    int insertMissingMemberCounts();
+    
+    /**
+     * 删除部门已不存在的计数行，返回删除的行数
+     */
+    @Modifying
+    @Query(value = "DELETE FROM department_member_counts WHERE department_id NOT IN (SELECT id FROM departments)",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "department_member_counts"))
+    int deleteOrphanMemberCounts();
+    
+    /**
+     * 按部门id顺序锁定所有计数行直到事务结束，返回部门id
+     */
+    @Query(value = "SELECT department_id FROM department_member_counts ORDER BY department_id FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockMemberCounts();
+    
+    /**
+     * 把与user_departments表不一致的成员数改为实际的成员数，返回修正的部门数
+     * 需要先用lockMemberCounts锁定计数行，并在读已提交隔离级别下执行，见DepartmentMemberCountReconciler
+     */
+    @Modifying
+    @Query(value = "UPDATE department_member_counts c SET member_count = " +
+                   "(SELECT COUNT(*) FROM user_departments ud WHERE ud.department_id = c.department_id) " +
+                   "WHERE member_count <> (SELECT COUNT(*) FROM user_departments ud WHERE ud.department_id = c.department_id)",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "department_member_counts"))
+    int reconcileMemberCounts();
+}
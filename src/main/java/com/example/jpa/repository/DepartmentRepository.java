@@ -1,11 +1,17 @@
 package com.example.jpa.repository;
 
+import com.example.jpa.dto.DepartmentUserCount;
 import com.example.jpa.entity.Department;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,10 +37,47 @@ public interface DepartmentRepository extends JpaRepository<Department, Long> {
     List<Department> findByDescriptionContainingIgnoreCase(String description);
     
     /**
-     * 使用JPQL查询部门及其用户数量
+     * 查询部门及其用户数量
+     * 读取department_member_counts表中维护的成员数，不连接和聚合user_departments表
      */
-    @Query("SELECT d, COUNT(u) FROM Department d LEFT JOIN d.users u GROUP BY d")
-    List<Object[]> findDepartmentsWithUserCount();
+    @Query("SELECT new com.example.jpa.dto.DepartmentUserCount(d.id, d.name, COALESCE(c.memberCount, 0L)) " +
+           "FROM Department d LEFT JOIN DepartmentMemberCount c ON c.departmentId = d.id ORDER BY d.name")
+    List<DepartmentUserCount> findDepartmentsWithUserCount();
+    
+    /**
+     * 从user_departments表实时统计部门及其用户数量
+     */
+    @Query("SELECT new com.example.jpa.dto.DepartmentUserCount(d.id, d.name, COUNT(u)) " +
+           "FROM Department d LEFT JOIN d.users u GROUP BY d.id, d.name")
+    List<DepartmentUserCount> countUsersByDepartment();
+    
+    /**
+     * 锁定部门行直到事务结束，同一部门的成员调整依次执行，部门不存在时返回空
+     */
+    @Query(value = "SELECT id FROM departments WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+    
+    /**
+     * 把一批用户加入部门，直接写user_departments表，不加载用户和部门两侧的集合
+     * 只插入存在且尚未属于该部门的用户，返回插入的关联数；
+     * 调用前需要用lockById锁定部门，否则并发加入同一用户时两条语句都会通过NOT EXISTS检查，后提交的违反主键约束
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_departments (user_id, department_id) " +
+                   "SELECT u.id, :departmentId FROM users u WHERE u.id IN (:userIds) AND NOT EXISTS " +
+                   "(SELECT 1 FROM user_departments ud WHERE ud.user_id = u.id AND ud.department_id = :departmentId)",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_departments"))
+    int insertMembers(@Param("departmentId") Long departmentId, @Param("userIds") Collection<Long> userIds);
+    
+    /**
+     * 把一批用户移出部门，返回删除的关联数
+     */
+    @Modifying
+    @Query(value = "DELETE FROM user_departments WHERE department_id = :departmentId AND user_id IN (:userIds)",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_departments"))
+    int deleteMembers(@Param("departmentId") Long departmentId, @Param("userIds") Collection<Long> userIds);
     
     /**
      * 使用JPQL查询指定用户的部门
@@ -0,0 +1,30 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.entity.Employee;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 员工仓库接口
+ */
+@Repository
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeRepositoryCustom {
+    
+    /**
+     * 根据员工编号查找员工
+     */
+    Optional<Employee> findByEmployeeId(String employeeId);
+    
+    /**
+     * 根据职位查找员工
+     */
+    List<Employee> findByPosition(Employee.Position position);
+    
+    /**
+     * 根据部门查找员工
+     */
+    List<Employee> findByDepartment(String department);
+}
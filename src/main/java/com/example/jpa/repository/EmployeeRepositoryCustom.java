@@ -0,0 +1,18 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.dto.SalaryAdjustment;
+import com.example.jpa.dto.SalaryAdjustmentSummary;
+
+/**
+ * 员工仓库自定义片段
+ * 
+ * 按职位/部门批量调整薪资，由EmployeeRepositoryImpl用集合操作实现，不加载员工实体
+ */
+public interface EmployeeRepositoryCustom {
+    
+    /**
+     * 按百分比或固定金额调整匹配条件的员工薪资，dryRun为true时只计算不写入
+     * 只支持不需要逐行计算的调整方式
+     */
+    SalaryAdjustmentSummary adjustSalaries(SalaryAdjustment adjustment, boolean dryRun);
+}
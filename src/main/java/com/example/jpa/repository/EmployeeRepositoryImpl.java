@@ -0,0 +1,89 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.dto.SalaryAdjustment;
+import com.example.jpa.dto.SalaryAdjustmentSummary;
+import com.example.jpa.entity.Employee;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 员工仓库自定义片段实现
+ * 
+ * 同一事务中先用一条聚合查询计算匹配的行数和薪资总额的变化，再用一条UPDATE写入；
+ * 两次的行数不一致时抛出异常回滚，返回的汇总与实际写入的一致。
+ * 使用原生SQL，薪资计算在数据库中按DECIMAL精确进行；两种调整方式使用同一个表达式，只有参数不同
+ */
+@Transactional(readOnly = true)
+class EmployeeRepositoryImpl implements EmployeeRepositoryCustom {
+    
+    /**
+     * 按百分比调整时factor为(100 + 百分比) / 100、increment为0，按固定金额调整时factor为1、increment为金额
+     */
+    private static final String NEW_SALARY = "ROUND(salary * :factor, 2) + :increment";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    @Transactional
+    public SalaryAdjustmentSummary adjustSalaries(SalaryAdjustment adjustment, boolean dryRun) {
+        Map<String, Object> parameters = new HashMap<>();
+        switch (adjustment.type()) {
+            case PERCENTAGE -> {
+                parameters.put("factor", BigDecimal.valueOf(100).add(adjustment.value()).movePointLeft(2));
+                parameters.put("increment", BigDecimal.ZERO);
+            }
+            case FIXED -> {
+                parameters.put("factor", BigDecimal.ONE);
+                parameters.put("increment", adjustment.value());
+            }
+            default -> throw new IllegalArgumentException("需要逐行计算的调整方式: " + adjustment.type());
+        }
+        
+        StringBuilder where = new StringBuilder(" WHERE person_type = 'EMPLOYEE' AND salary IS NOT NULL");
+        if (adjustment.positions() != null && !adjustment.positions().isEmpty()) {
+            where.append(" AND position IN (:positions)");
+            parameters.put("positions", adjustment.positions().stream().map(Employee.Position::name).toList());
+        }
+        if (adjustment.department() != null) {
+            where.append(" AND department = :department");
+            parameters.put("department", adjustment.department());
+        }
+        
+        Object[] preview = (Object[]) query("SELECT COUNT(*), SUM(salary), SUM(" + NEW_SALARY + " - salary) FROM persons"
+                + where, parameters).getSingleResult();
+        long rows = ((Number) preview[0]).longValue();
+        BigDecimal payrollBefore = decimal(preview[1]);
+        BigDecimal payrollDelta = decimal(preview[2]);
+        
+        if (!dryRun && rows > 0) {
+            // updated_at与@UpdateTimestamp一样使用应用服务器的时间
+            parameters.put("now", LocalDateTime.now());
+            int updated = query("UPDATE persons SET salary = " + NEW_SALARY + ", updated_at = :now" + where, parameters)
+                    .setHint(HibernateHints.HINT_NATIVE_SPACES, "persons")
+                    .executeUpdate();
+            if (updated != rows) {
+                throw new IllegalStateException(String.format("调整薪资的行数不一致: 预计%d, 实际%d", rows, updated));
+            }
+        }
+        return new SalaryAdjustmentSummary(dryRun, rows, 0, payrollBefore, payrollDelta);
+    }
+    
+    private Query query(String sql, Map<String, Object> parameters) {
+        Query query = entityManager.createNativeQuery(sql);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+    
+    private static BigDecimal decimal(Object value) {
+        return value == null ? BigDecimal.ZERO.setScale(2) : new BigDecimal(value.toString()).setScale(2);
+    }
+}
@@ -1,22 +1,30 @@
 package com.example.jpa.repository;
 
+import com.example.jpa.dto.OrderStatistics;
+import com.example.jpa.dto.ProductNameCount;
+import com.example.jpa.entity.Money;
 import com.example.jpa.entity.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * 订单仓库接口
+ * 
+ * 派生查询只访问热表orders，需要包含归档订单时使用OrderRepositoryCustom中带includeArchived参数的方法
  */
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
     
     /**
      * 根据订单号查找订单
@@ -28,6 +36,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     List<Order> findByUserId(Long userId);
     
+    /**
+     * 根据用户ID查找订单，订单项通过实体图在同一条查询中加载
+     */
+    @EntityGraph(Order.GRAPH_ITEMS)
+    List<Order> findWithItemsByUserIdOrderByIdAsc(Long userId);
+    
     /**
      * 根据订单状态查找订单
      */
@@ -36,7 +50,7 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     /**
      * 根据总金额范围查找订单
      */
-    List<Order> findByTotalAmountBetween(BigDecimal minAmount, BigDecimal maxAmount);
+    List<Order> findByTotalAmountBetween(Money minAmount, Money maxAmount);
     
     /**
      * 根据创建时间范围查找订单
@@ -56,14 +70,76 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     /**
      * 使用JPQL查询订单统计信息
      */
-    @Query("SELECT COUNT(o), SUM(o.totalAmount), AVG(o.totalAmount) FROM Order o")
-    Object[] getOrderStatistics();
+    @Query("SELECT new com.example.jpa.dto.OrderStatistics(COUNT(o), SUM(o.totalAmount), AVG(o.totalAmount)) FROM Order o")
+    OrderStatistics getOrderStatistics();
     
     /**
      * 使用JPQL查询指定用户的订单统计
      */
-    @Query("SELECT COUNT(o), SUM(o.totalAmount), AVG(o.totalAmount) FROM Order o WHERE o.user.id = :userId")
-    Object[] getOrderStatisticsByUserId(@Param("userId") Long userId);
+    @Query("SELECT new com.example.jpa.dto.OrderStatistics(COUNT(o), SUM(o.totalAmount), AVG(o.totalAmount)) " +
+           "FROM Order o WHERE o.user.id = :userId")
+    OrderStatistics getOrderStatisticsByUserId(@Param("userId") Long userId);
+    
+    /**
+     * 按商品名称统计订单项数量
+     */
+    @Query("SELECT new com.example.jpa.dto.ProductNameCount(i.productName, COUNT(i)) FROM OrderItem i GROUP BY i.productName")
+    List<ProductNameCount> countOrderItemsByProductName();
+    
+    /**
+     * 最大的订单项ID，没有订单项时返回null
+     */
+    @Query("SELECT MAX(i.id) FROM OrderItem i")
+    Long findMaxOrderItemId();
+    
+    /**
+     * 按商品名称统计指定用户的订单项数量
+     */
+    @Query("SELECT new com.example.jpa.dto.ProductNameCount(i.productName, COUNT(i)) FROM OrderItem i " +
+           "WHERE i.order.user.id IN :userIds GROUP BY i.productName")
+    List<ProductNameCount> countOrderItemsByProductNameForUsers(@Param("userIds") Collection<Long> userIds);
+    
+    /**
+     * 批量删除指定用户的订单项
+     */
+    @Modifying
+    @Query("DELETE FROM OrderItem i WHERE i.order.id IN (SELECT o.id FROM Order o WHERE o.user.id IN :userIds)")
+    int deleteOrderItemsByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    /**
+     * 批量删除指定用户的订单，需要先删除订单项
+     */
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.user.id IN :userIds")
+    int deleteByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    /**
+     * 按商品名称统计指定订单的订单项数量
+     */
+    @Query("SELECT new com.example.jpa.dto.ProductNameCount(i.productName, COUNT(i)) FROM OrderItem i " +
+           "WHERE i.order.id IN :orderIds GROUP BY i.productName")
+    List<ProductNameCount> countOrderItemsByProductNameForOrders(@Param("orderIds") Collection<Long> orderIds);
+    
+    /**
+     * 按主键顺序查找指定状态、创建时间早于cutoff的订单ID
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.status IN :statuses AND o.createdAt < :cutoff ORDER BY o.id")
+    List<Long> findIdsByStatusInAndCreatedAtBefore(@Param("statuses") Collection<Order.OrderStatus> statuses,
+                                                   @Param("cutoff") LocalDateTime cutoff, Limit limit);
+    
+    /**
+     * 批量删除指定订单的订单项
+     */
+    @Modifying
+    @Query("DELETE FROM OrderItem i WHERE i.order.id IN :orderIds")
+    int deleteOrderItemsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+    
+    /**
+     * 批量删除指定订单，需要先删除订单项
+     */
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.id IN :orderIds")
+    int deleteAllByIds(@Param("orderIds") Collection<Long> orderIds);
     
     /**
      * 使用JPQL查询指定时间段的订单
@@ -0,0 +1,43 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.dto.OrderStatistics;
+import com.example.jpa.dto.OrderSummary;
+import com.example.jpa.entity.Order;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 订单仓库自定义片段
+ * 
+ * 同时读取热表orders和归档表orders_archive的查询放在这里，由OrderRepositoryImpl实现。
+ * includeArchived为false时只查询热表，与对应的派生查询结果相同
+ */
+public interface OrderRepositoryCustom {
+    
+    /**
+     * 根据订单状态查找订单，按创建时间排序
+     */
+    List<OrderSummary> findSummariesByStatus(Order.OrderStatus status, boolean includeArchived);
+    
+    /**
+     * 根据创建时间范围查找订单，按创建时间排序
+     */
+    List<OrderSummary> findSummariesByCreatedAtBetween(LocalDateTime startTime, LocalDateTime endTime,
+                                                       boolean includeArchived);
+    
+    /**
+     * 根据用户ID查找订单，按创建时间排序
+     */
+    List<OrderSummary> findSummariesByUserId(Long userId, boolean includeArchived);
+    
+    /**
+     * 查询订单统计信息
+     */
+    OrderStatistics getOrderStatistics(boolean includeArchived);
+    
+    /**
+     * 查询指定用户的订单统计
+     */
+    OrderStatistics getOrderStatisticsByUserId(Long userId, boolean includeArchived);
+}
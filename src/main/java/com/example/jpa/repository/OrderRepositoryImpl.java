@@ -0,0 +1,95 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.dto.OrderStatistics;
+import com.example.jpa.dto.OrderSummary;
+import com.example.jpa.entity.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单仓库自定义片段实现
+ * 
+ * 列表查询在热表和归档表各执行一条，再按创建时间合并；
+ * 统计信息在一条查询中对两张表的UNION ALL聚合，平均值与单表查询的计算方式一致
+ */
+@Transactional(readOnly = true)
+class OrderRepositoryImpl implements OrderRepositoryCustom {
+    
+    private static final String HOT_SUMMARY = "SELECT new com.example.jpa.dto.OrderSummary(" +
+            "o.id, o.orderNumber, o.totalAmount, o.status, o.createdAt, o.user.id, false) FROM Order o ";
+    private static final String ARCHIVED_SUMMARY = "SELECT new com.example.jpa.dto.OrderSummary(" +
+            "o.id, o.orderNumber, o.totalAmount, o.status, o.createdAt, o.userId, true) FROM ArchivedOrder o ";
+    
+    private static final Comparator<OrderSummary> BY_CREATED_AT = Comparator
+            .comparing(OrderSummary::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(OrderSummary::id);
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<OrderSummary> findSummariesByStatus(Order.OrderStatus status, boolean includeArchived) {
+        String where = "WHERE o.status = :status";
+        return findSummaries(where, where, Map.of("status", status), includeArchived);
+    }
+    
+    @Override
+    public List<OrderSummary> findSummariesByCreatedAtBetween(LocalDateTime startTime, LocalDateTime endTime,
+                                                              boolean includeArchived) {
+        String where = "WHERE o.createdAt BETWEEN :startTime AND :endTime";
+        return findSummaries(where, where, Map.of("startTime", startTime, "endTime", endTime), includeArchived);
+    }
+    
+    @Override
+    public List<OrderSummary> findSummariesByUserId(Long userId, boolean includeArchived) {
+        return findSummaries("WHERE o.user.id = :userId", "WHERE o.userId = :userId",
+                Map.of("userId", userId), includeArchived);
+    }
+    
+    @Override
+    public OrderStatistics getOrderStatistics(boolean includeArchived) {
+        return statistics("", "", Map.of(), includeArchived);
+    }
+    
+    @Override
+    public OrderStatistics getOrderStatisticsByUserId(Long userId, boolean includeArchived) {
+        return statistics("WHERE o.user.id = :userId", "WHERE o.userId = :userId",
+                Map.of("userId", userId), includeArchived);
+    }
+    
+    private List<OrderSummary> findSummaries(String hotWhere, String archivedWhere,
+                                             Map<String, Object> parameters, boolean includeArchived) {
+        List<OrderSummary> orders = new ArrayList<>(query(HOT_SUMMARY + hotWhere, OrderSummary.class, parameters)
+                .getResultList());
+        if (includeArchived) {
+            orders.addAll(query(ARCHIVED_SUMMARY + archivedWhere, OrderSummary.class, parameters).getResultList());
+        }
+        orders.sort(BY_CREATED_AT);
+        return orders;
+    }
+    
+    private OrderStatistics statistics(String hotWhere, String archivedWhere,
+                                       Map<String, Object> parameters, boolean includeArchived) {
+        String jpql = includeArchived
+                ? "SELECT new com.example.jpa.dto.OrderStatistics(COUNT(*), SUM(t.amount), AVG(t.amount)) FROM (" +
+                  "SELECT o.totalAmount AS amount FROM Order o " + hotWhere + " UNION ALL " +
+                  "SELECT o.totalAmount AS amount FROM ArchivedOrder o " + archivedWhere + ") t"
+                : "SELECT new com.example.jpa.dto.OrderStatistics(COUNT(o), SUM(o.totalAmount), AVG(o.totalAmount)) " +
+                  "FROM Order o " + hotWhere;
+        return query(jpql, OrderStatistics.class, parameters).getSingleResult();
+    }
+    
+    private <T> TypedQuery<T> query(String jpql, Class<T> type, Map<String, Object> parameters) {
+        TypedQuery<T> query = entityManager.createQuery(jpql, type);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+}
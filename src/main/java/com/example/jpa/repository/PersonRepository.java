@@ -0,0 +1,52 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.entity.Customer;
+import com.example.jpa.entity.Employee;
+import com.example.jpa.entity.Person;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * 人员仓库接口 - 演示继承映射的多态查询
+ * 
+ * 1. 对Person的查询是多态的，结果中同时包含Employee和Customer
+ * 2. 按子类型查询时，单表继承在WHERE中加上 person_type = ? 条件，
+ *    persons表的(person_type, id)索引支持按子类型过滤并按主键分页
+ */
+@Repository
+public interface PersonRepository extends JpaRepository<Person, Long> {
+    
+    /**
+     * 根据邮箱查找人员（多态）
+     */
+    Optional<Person> findByEmail(String email);
+    
+    /**
+     * 根据姓名模糊查询人员（多态）
+     */
+    Page<Person> findByNameContaining(String name, Pageable pageable);
+    
+    /**
+     * 使用TYPE()按子类型分页查询，type为Employee.class或Customer.class
+     */
+    @Query("SELECT p FROM Person p WHERE TYPE(p) = :type")
+    Page<Person> findByType(@Param("type") Class<? extends Person> type, Pageable pageable);
+    
+    /**
+     * 分页查询员工
+     */
+    @Query("SELECT e FROM Employee e")
+    Page<Employee> findEmployees(Pageable pageable);
+    
+    /**
+     * 分页查询客户
+     */
+    @Query("SELECT c FROM Customer c")
+    Page<Customer> findCustomers(Pageable pageable);
+}
@@ -1,16 +1,32 @@
 package com.example.jpa.repository;
 
+import com.example.jpa.dto.AgeCount;
+import com.example.jpa.dto.IdRange;
+import com.example.jpa.dto.UserStatistics;
+import com.example.jpa.dto.UserSummary;
+import com.example.jpa.dto.UsernameEmail;
 import com.example.jpa.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 用户仓库接口
@@ -24,21 +40,39 @@ import java.util.Optional;
  * 6. 排序查询 - Sort接口
  * 7. 投影查询 - 只查询特定字段
  * 8. 原生SQL查询 - @Query(nativeQuery = true)
+ * 9. 滚动查询 - Window + ScrollPosition（Keyset分页）
+ * 10. 自定义仓库片段 - UserRepositoryCustom（按自然主键查找）
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     
     // ========== 方法名查询 ==========
     
     /**
-     * 根据用户名查找用户
+     * 根据邮箱查找用户
+     * 查询结果缓存在users-by-email区域，命中时只返回id，实体从users区域读取
      */
-    Optional<User> findByUsername(String username);
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "users-by-email")
+    })
+    Optional<User> findByEmail(String email);
     
     /**
-     * 根据邮箱查找用户
+     * 用户名是否被其他用户使用（不加载实体）
      */
-    Optional<User> findByEmail(String email);
+    boolean existsByUsernameAndIdNot(String username, Long id);
+    
+    /**
+     * 邮箱是否被其他用户使用（不加载实体）
+     */
+    boolean existsByEmailAndIdNot(String email, Long id);
+    
+    /**
+     * 根据ID查找用户，部门集合通过实体图在同一条查询中加载
+     */
+    @EntityGraph(User.GRAPH_DEPARTMENTS)
+    Optional<User> findWithDepartmentsById(Long id);
     
     /**
      * 根据年龄查找用户列表
@@ -76,9 +110,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
     long countByAge(Integer age);
     
     /**
-     * 根据年龄删除用户
+     * 按主键顺序查询下一批指定年龄的用户id（键集分页），用于分块批量删除
      */
-    void deleteByAge(Integer age);
+    @Query("SELECT u.id FROM User u WHERE u.age = :age AND u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsByAgeAfter(@Param("age") Integer age, @Param("afterId") Long afterId, Limit limit);
+    
+    /**
+     * 删除用户的部门关联（user_departments没有对应的实体，使用原生SQL）
+     * 声明查询涉及的表，Hibernate只失效相关的缓存区域，而不是清空整个二级缓存
+     */
+    @Modifying
+    @Query(value = "DELETE FROM user_departments WHERE user_id IN (:userIds)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_departments"))
+    int deleteDepartmentLinksByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    /**
+     * 按主键批量删除用户，不加载实体、不触发级联和实体监听器
+     */
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id IN :ids")
+    int deleteAllByIds(@Param("ids") Collection<Long> ids);
     
     /**
      * 根据用户名和邮箱查找用户
@@ -107,6 +158,30 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Page<User> findByUsernameContainingIgnoreCase(String username, Pageable pageable);
     
+    // ========== 滚动（Keyset）查询 ==========
+    
+    /**
+     * 按排序键滚动查询用户
+     * 使用KeysetScrollPosition时生成 WHERE (排序键) > (上一页最后一行) 的条件，
+     * 不使用OFFSET，也不执行COUNT查询，任意深度的页代价与第一页相同
+     */
+    Window<User> findBy(ScrollPosition position, Sort sort, Limit limit);
+    
+    // ========== 流式查询 ==========
+    
+    /**
+     * 按id顺序流式读取所有用户（用于导出）
+     * 设置JDBC fetch size分批从数据库拉取，只读且不写入二级缓存；
+     * 必须在事务中消费，并在使用完后关闭Stream
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT u FROM User u ORDER BY u.id")
+    Stream<User> streamAllUsers();
+    
     // ========== @Query注解查询 ==========
     
     /**
@@ -154,8 +229,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     /**
      * 使用JPQL查询用户统计信息
      */
-    @Query("SELECT COUNT(u), AVG(COALESCE(u.age, 0)), MAX(COALESCE(u.age, 0)), MIN(COALESCE(u.age, 0)) FROM User u")
-    Object[] getUserStatistics();
+    @Query("SELECT new com.example.jpa.dto.UserStatistics(COUNT(u), AVG(COALESCE(u.age, 0)), " +
+           "MAX(COALESCE(u.age, 0)), MIN(COALESCE(u.age, 0))) FROM User u")
+    UserStatistics getUserStatistics();
+    
+    /**
+     * 按年龄分组统计用户数量（用于统计信息校准）
+     */
+    @Query("SELECT new com.example.jpa.dto.AgeCount(u.age, COUNT(u)) FROM User u GROUP BY u.age")
+    List<AgeCount> countUsersGroupByAge();
     
     // ========== 原生SQL查询 ==========
     
@@ -182,8 +264,65 @@ public interface UserRepository extends JpaRepository<User, Long> {
     /**
      * 只查询用户名和邮箱
      */
-    @Query("SELECT u.username, u.email FROM User u")
-    List<Object[]> findUsernameAndEmail();
+    @Query("SELECT new com.example.jpa.dto.UsernameEmail(u.username, u.email) FROM User u")
+    List<UsernameEmail> findUsernameAndEmail();
+    
+    /**
+     * 查询所有用户的列表项
+     */
+    @Query("SELECT new com.example.jpa.dto.UserSummary(u.id, u.username, u.email, u.age, u.createdAt, u.updatedAt) " +
+           "FROM User u ORDER BY u.id")
+    List<UserSummary> findAllSummaries();
+    
+    /**
+     * 分页查询用户列表项
+     */
+    @Query(value = "SELECT new com.example.jpa.dto.UserSummary(u.id, u.username, u.email, u.age, u.createdAt, u.updatedAt) " +
+                   "FROM User u",
+           countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserSummary> findSummaries(Pageable pageable);
+    
+    /**
+     * 根据年龄查询用户列表项
+     */
+    @Query("SELECT new com.example.jpa.dto.UserSummary(u.id, u.username, u.email, u.age, u.createdAt, u.updatedAt) " +
+           "FROM User u WHERE u.age = :age ORDER BY u.id")
+    List<UserSummary> findSummariesByAge(@Param("age") Integer age);
+    
+    /**
+     * 根据年龄范围查询用户列表项
+     */
+    @Query("SELECT new com.example.jpa.dto.UserSummary(u.id, u.username, u.email, u.age, u.createdAt, u.updatedAt) " +
+           "FROM User u WHERE u.age BETWEEN :minAge AND :maxAge ORDER BY u.id")
+    List<UserSummary> findSummariesByAgeBetween(@Param("minAge") Integer minAge, @Param("maxAge") Integer maxAge);
+    
+    /**
+     * 根据用户名关键词查询用户列表项（忽略大小写）
+     */
+    @Query("SELECT new com.example.jpa.dto.UserSummary(u.id, u.username, u.email, u.age, u.createdAt, u.updatedAt) " +
+           "FROM User u WHERE LOWER(u.username) LIKE LOWER(CONCAT('%', :keyword, '%')) ORDER BY u.id")
+    List<UserSummary> findSummariesByUsernameKeyword(@Param("keyword") String keyword);
+    
+    /**
+     * 根据用户名关键词分页查询用户列表项（忽略大小写），搜索索引未就绪时使用
+     */
+    @Query(value = "SELECT new com.example.jpa.dto.UserSummary(u.id, u.username, u.email, u.age, u.createdAt, u.updatedAt) " +
+                   "FROM User u WHERE LOWER(u.username) LIKE LOWER(CONCAT('%', :keyword, '%')) ORDER BY u.id",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE LOWER(u.username) LIKE LOWER(CONCAT('%', :keyword, '%'))")
+    Page<UserSummary> findSummariesByUsernameKeyword(@Param("keyword") String keyword, Pageable pageable);
+    
+    /**
+     * 查询指定主键范围内的用户列表项，用于按范围并行加载
+     */
+    @Query("SELECT new com.example.jpa.dto.UserSummary(u.id, u.username, u.email, u.age, u.createdAt, u.updatedAt) " +
+           "FROM User u WHERE u.id BETWEEN :fromId AND :toId ORDER BY u.id")
+    List<UserSummary> findSummariesByIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+    
+    /**
+     * 查询用户主键范围
+     */
+    @Query("SELECT new com.example.jpa.dto.IdRange(MIN(u.id), MAX(u.id)) FROM User u")
+    IdRange findIdRange();
     
     /**
      * 只查询用户名
@@ -196,4 +335,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     @Query("SELECT u.email FROM User u")
     List<String> findAllEmails();
+    
+    /**
+     * 查询给定用户名中已存在的用户名（用于批量唯一性校验）
+     */
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+    
+    /**
+     * 查询给定邮箱中已存在的邮箱（用于批量唯一性校验）
+     */
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
 } 
\ No newline at end of file
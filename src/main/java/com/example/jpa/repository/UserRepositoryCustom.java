@@ -0,0 +1,20 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.entity.User;
+
+import java.util.Optional;
+
+/**
+ * 用户仓库自定义片段
+ * 
+ * 需要直接使用Hibernate Session API的查询放在这里，
+ * 由UserRepositoryImpl实现，Spring Data会把它合并到UserRepository中
+ */
+public interface UserRepositoryCustom {
+    
+    /**
+     * 根据用户名查找用户
+     * 用户名是自然主键，查找先走自然主键缓存，再走实体缓存，都命中时不访问数据库
+     */
+    Optional<User> findByUsername(String username);
+}
@@ -0,0 +1,27 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * 用户仓库自定义片段实现
+ * 与SimpleJpaRepository一致，查询方法默认在只读事务中执行
+ */
+@Transactional(readOnly = true)
+class UserRepositoryImpl implements UserRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(username);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.JobStatus;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 后台任务，任务代码通过它报告进度
+ */
+public class BackgroundJob {
+    
+    private final String id;
+    private final String type;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final AtomicLong processed = new AtomicLong();
+    
+    private volatile JobStatus.State state = JobStatus.State.PENDING;
+    private volatile Long total;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String message;
+    
+    BackgroundJob(String id, String type) {
+        this.id = id;
+        this.type = type;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    /**
+     * 设置预计处理的数量
+     */
+    public void setTotal(long total) {
+        this.total = total;
+    }
+    
+    /**
+     * 增加已处理的数量
+     */
+    public void addProcessed(long count) {
+        processed.addAndGet(count);
+    }
+    
+    public long getProcessed() {
+        return processed.get();
+    }
+    
+    public JobStatus status() {
+        return new JobStatus(id, type, state, total, processed.get(), createdAt, startedAt, finishedAt, message);
+    }
+    
+    void started() {
+        startedAt = LocalDateTime.now();
+        state = JobStatus.State.RUNNING;
+    }
+    
+    void completed(String message) {
+        finish(JobStatus.State.COMPLETED, message);
+    }
+    
+    void failed(String message) {
+        finish(JobStatus.State.FAILED, message);
+    }
+    
+    private void finish(JobStatus.State state, String message) {
+        this.message = message;
+        this.finishedAt = LocalDateTime.now();
+        this.state = state;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.JobStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * 后台任务服务
+ * 
+ * 1. 提交后立即返回任务id，任务在applicationTaskExecutor中执行
+ * 2. 任务状态保存在内存中，只保留最近MAX_FINISHED_JOBS个已结束的任务
+ * 3. 任务代码通过BackgroundJob报告进度，返回值作为完成时的结果说明
+ */
+@Service
+@Slf4j
+public class BackgroundJobService {
+    
+    private static final int MAX_FINISHED_JOBS = 100;
+    
+    private final Executor executor;
+    private final Map<String, BackgroundJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> finished = new ConcurrentLinkedQueue<>();
+    
+    public BackgroundJobService(@Qualifier("applicationTaskExecutor") Executor executor) {
+        this.executor = executor;
+    }
+    
+    /**
+     * 提交后台任务
+     *
+     * @param type 任务类型，用于展示和日志
+     * @param work 任务代码，返回完成时的结果说明
+     */
+    public JobStatus submit(String type, Function<BackgroundJob, String> work) {
+        BackgroundJob job = new BackgroundJob(UUID.randomUUID().toString(), type);
+        jobs.put(job.getId(), job);
+        log.info("提交后台任务: {} {}", type, job.getId());
+        
+        try {
+            executor.execute(() -> run(job, work));
+        } catch (RejectedExecutionException e) {
+            job.failed("任务队列已满");
+            finish(job);
+        }
+        return job.status();
+    }
+    
+    public Optional<JobStatus> findJob(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(BackgroundJob::status);
+    }
+    
+    private void run(BackgroundJob job, Function<BackgroundJob, String> work) {
+        job.started();
+        try {
+            String message = work.apply(job);
+            job.completed(message);
+            log.info("后台任务完成: {} {}, {}", job.status().type(), job.getId(), message);
+        } catch (RuntimeException e) {
+            job.failed(e.getMessage());
+            log.error("后台任务失败: {} {}", job.status().type(), job.getId(), e);
+        } finally {
+            finish(job);
+        }
+    }
+    
+    private void finish(BackgroundJob job) {
+        finished.add(job.getId());
+        while (finished.size() > MAX_FINISHED_JOBS) {
+            String oldest = finished.poll();
+            if (oldest != null) {
+                jobs.remove(oldest);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.jpa.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 二级缓存统计服务
+ * 
+ * 从Hibernate Statistics中读取各缓存区域的命中、未命中和写入次数
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheStatisticsService {
+    
+    private final EntityManagerFactory entityManagerFactory;
+    
+    /**
+     * 获取所有缓存区域的统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Statistics statistics = statistics();
+        
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                regions.put(regionName, regionStatistics(
+                        region.getHitCount(), region.getMissCount(), region.getPutCount()));
+            }
+        }
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("regions", regions);
+        result.put("secondLevelCache", regionStatistics(statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount()));
+        result.put("naturalIdCache", regionStatistics(statistics.getNaturalIdCacheHitCount(),
+                statistics.getNaturalIdCacheMissCount(), statistics.getNaturalIdCachePutCount()));
+        result.put("queryCache", regionStatistics(statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()));
+        return result;
+    }
+    
+    /**
+     * 清空所有二级缓存
+     */
+    public void evictAll() {
+        log.info("清空所有二级缓存");
+        entityManagerFactory.getCache().evictAll();
+    }
+    
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+    
+    private static Map<String, Object> regionStatistics(long hits, long misses, long puts) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitCount", hits);
+        result.put("missCount", misses);
+        result.put("putCount", puts);
+        result.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return result;
+    }
+}
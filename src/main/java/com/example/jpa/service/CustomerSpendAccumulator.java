@@ -0,0 +1,270 @@
+package com.example.jpa.service;
+
+import com.example.jpa.entity.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 客户累计消费金额的延迟写入累加器
+ *
+ * 每笔消费都读取-修改-写回同一客户行时，热点客户的行锁使并发购买串行执行。这里改为：
+ * 1. 消费金额先累加到内存中每个客户的LongAdder，多个线程同时累加同一客户时分散到不同的计数单元，不加锁
+ * 2. 定时把每个客户的增量用 total_spent = total_spent + ? 批量写入数据库（见CustomerSpendWriter）
+ * 3. 计数单元只增不减，另外记录已写入的部分，写入失败时增量保留到下次，不会丢失或重复
+ * 4. 应用关闭时写入剩余的增量，关闭开始后的记录被拒绝；开启日志时每笔金额同时写入追加日志，进程崩溃后重启回放
+ *
+ * 计数单元不回收，内存占用与有过消费的客户数成正比（每个客户约一百字节）
+ */
+@Service
+@Slf4j
+public class CustomerSpendAccumulator {
+
+    public static final String PENDING_METRIC = "customer.spend.pending";
+    public static final String PENDING_CUSTOMERS_METRIC = "customer.spend.pending.customers";
+    public static final String FLUSH_METRIC = "customer.spend.flush";
+    public static final String FLUSH_FAILURES_METRIC = "customer.spend.flush.failures";
+
+    /**
+     * 一个客户待写入的增量（分）
+     */
+    public record Delta(long customerId, long amount) {
+    }
+
+    private static final class Cell {
+        final LongAdder added = new LongAdder();
+        /**
+         * 已写入数据库的部分，只在flushLock内修改
+         */
+        volatile long flushed;
+
+        long pending() {
+            return added.sum() - flushed;
+        }
+    }
+
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final CustomerSpendWriter writer;
+    private final boolean journalEnabled;
+    private final Path journalDirectory;
+    private final String checkpointName;
+    private final Timer flushTimer;
+    private final Counter flushFailures;
+
+    /**
+     * 开启日志时，追加记录和累加在同一把锁内完成，切换日志段时的快照与日志内容一致
+     */
+    private final Object journalLock = new Object();
+    private volatile CustomerSpendJournal journal;
+    private volatile boolean closed;
+
+    /**
+     * 正在执行record的线程数：先计数再检查closed，close设置closed后等计数归零再写入，
+     * 已通过检查的记录都包含在最后一次写入中
+     */
+    private final LongAdder recording = new LongAdder();
+
+    public CustomerSpendAccumulator(CustomerSpendWriter writer,
+                                    @Value("${app.customer-spend.journal.enabled:false}") boolean journalEnabled,
+                                    @Value("${app.customer-spend.journal.directory:${java.io.tmpdir}/jpa-learning/customer-spend}") Path journalDirectory,
+                                    @Value("${app.customer-spend.journal.checkpoint:customer-spend}") String checkpointName,
+                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        this.writer = writer;
+        this.journalEnabled = journalEnabled;
+        this.journalDirectory = journalDirectory;
+        this.checkpointName = checkpointName;
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder(PENDING_METRIC, this, accumulator -> Money.ofMinor(accumulator.pendingTotal()).toBigDecimal().doubleValue())
+                    .description("尚未写入数据库的客户消费金额")
+                    .register(registry);
+            Gauge.builder(PENDING_CUSTOMERS_METRIC, this, CustomerSpendAccumulator::pendingCustomers)
+                    .description("有尚未写入数据库的消费金额的客户数")
+                    .register(registry);
+            flushTimer = Timer.builder(FLUSH_METRIC).description("批量写入客户消费金额的时间").register(registry);
+            flushFailures = Counter.builder(FLUSH_FAILURES_METRIC).description("批量写入客户消费金额失败的次数").register(registry);
+        } else {
+            flushTimer = null;
+            flushFailures = null;
+        }
+    }
+
+    /**
+     * 开启日志时回放上次未写入数据库的金额
+     */
+    @PostConstruct
+    public void recover() {
+        if (!journalEnabled) {
+            return;
+        }
+        long checkpoint = writer.findCheckpoint(checkpointName);
+        synchronized (journalLock) {
+            journal = CustomerSpendJournal.open(journalDirectory, checkpoint,
+                    (customerId, amount) -> cell(customerId).added.add(amount));
+        }
+        log.info("客户消费日志: {}，检查点: {}，待写入客户: {}", journalDirectory, checkpoint, pendingCustomers());
+    }
+
+    /**
+     * 记录一笔消费，金额可以为负（退款）
+     */
+    public void record(long customerId, Money amount) {
+        long minorUnits = amount.getMinorUnits();
+        if (minorUnits == 0) {
+            return;
+        }
+        recording.increment();
+        try {
+            if (closed) {
+                throw new IllegalStateException("客户消费累加器已关闭");
+            }
+            Cell cell = cell(customerId);
+            if (journal == null) {
+                cell.added.add(minorUnits);
+                return;
+            }
+            synchronized (journalLock) {
+                journal.append(customerId, minorUnits);
+                cell.added.add(minorUnits);
+            }
+        } finally {
+            recording.decrement();
+        }
+    }
+
+    /**
+     * 指定客户尚未写入数据库的消费金额
+     * 数据库中的total_spent最多落后一个写入间隔，需要最新值的读取把两者相加（见PersonController）；
+     * 客户等级重新计算前先调用flush
+     */
+    public Money pending(long customerId) {
+        Cell cell = cells.get(customerId);
+        return Money.ofMinor(cell == null ? 0 : cell.pending());
+    }
+
+    /**
+     * 把所有客户的增量写入数据库，返回写入的客户数；写入失败时增量保留到下次
+     */
+    @Scheduled(fixedDelayString = "${app.customer-spend.flush-interval:PT1S}")
+    public int flush() {
+        flushLock.lock();
+        try {
+            long start = System.nanoTime();
+            long segment = -1;
+            List<Delta> deltas;
+            List<Cell> flushedCells = new ArrayList<>();
+            List<Long> sums = new ArrayList<>();
+            if (journal != null) {
+                // 快照与切换日志段在同一把锁内，旧段中的记录恰好都包含在快照中
+                synchronized (journalLock) {
+                    deltas = snapshot(flushedCells, sums);
+                    if (!deltas.isEmpty()) {
+                        segment = journal.rotate();
+                    }
+                }
+            } else {
+                deltas = snapshot(flushedCells, sums);
+            }
+            if (deltas.isEmpty()) {
+                return 0;
+            }
+
+            try {
+                int missing = writer.increment(deltas, checkpointName, segment);
+                log.debug("写入客户消费金额: {}个客户, 不存在{}个", deltas.size(), missing);
+            } catch (RuntimeException e) {
+                if (flushFailures != null) {
+                    flushFailures.increment();
+                }
+                log.error("写入客户消费金额失败，{}个客户的增量保留到下次", deltas.size(), e);
+                return 0;
+            }
+
+            for (int i = 0; i < flushedCells.size(); i++) {
+                flushedCells.get(i).flushed = sums.get(i);
+            }
+            if (journal != null) {
+                journal.deleteThrough(segment);
+            }
+            if (flushTimer != null) {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            return deltas.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 应用关闭时写入剩余的增量
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        while (recording.sum() != 0) {
+            Thread.yield();
+        }
+        int flushed = flush();
+        log.info("客户消费累加器关闭，写入{}个客户，剩余{}个客户未写入", flushed, pendingCustomers());
+        synchronized (journalLock) {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    long pendingTotal() {
+        long total = 0;
+        for (Cell cell : cells.values()) {
+            total += cell.pending();
+        }
+        return total;
+    }
+
+    int pendingCustomers() {
+        int count = 0;
+        for (Cell cell : cells.values()) {
+            if (cell.pending() != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Cell cell(long customerId) {
+        return cells.computeIfAbsent(customerId, id -> new Cell());
+    }
+
+    private List<Delta> snapshot(List<Cell> flushedCells, List<Long> sums) {
+        List<Delta> deltas = new ArrayList<>();
+        cells.forEach((customerId, cell) -> {
+            long sum = cell.added.sum();
+            long delta = sum - cell.flushed;
+            if (delta != 0) {
+                deltas.add(new Delta(customerId, delta));
+                flushedCells.add(cell);
+                sums.add(sum);
+            }
+        });
+        return deltas;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.jpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * 客户消费金额的追加日志
+ *
+ * 1. 每笔金额写入一行"客户ID 金额(分)"，直接写到操作系统，进程崩溃不会丢失
+ * 2. 日志按段保存，每次刷新数据库前切换到新的段，刷新成功后删除旧段
+ * 3. 重启时回放检查点之后的段，恢复尚未写入数据库的金额
+ *
+ * 不是线程安全的，由CustomerSpendAccumulator加锁调用
+ */
+@Slf4j
+class CustomerSpendJournal implements Closeable {
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private long segment;
+    private FileChannel channel;
+
+    private CustomerSpendJournal(Path directory, long segment) {
+        this.directory = directory;
+        this.segment = segment;
+        this.channel = openSegment(segment);
+    }
+
+    /**
+     * 打开日志目录：删除不晚于checkpoint的段，把之后各段中的记录交给replay，新记录写入新的段
+     */
+    static CustomerSpendJournal open(Path directory, long checkpoint, BiConsumer<Long, Long> replay) {
+        try {
+            Files.createDirectories(directory);
+            long last = checkpoint;
+            for (long segment : segments(directory)) {
+                Path file = segmentFile(directory, segment);
+                if (segment <= checkpoint) {
+                    Files.delete(file);
+                    continue;
+                }
+                // 崩溃时最后一行可能只写了一部分，只回放以换行结束的行
+                String content = Files.readString(file, StandardCharsets.US_ASCII);
+                String[] lines = content.substring(0, content.lastIndexOf('\n') + 1).split("\n");
+                int count = 0;
+                for (String line : lines) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    int space = line.indexOf(' ');
+                    replay.accept(Long.parseLong(line.substring(0, space)), Long.parseLong(line.substring(space + 1)));
+                    count++;
+                }
+                log.info("回放客户消费日志段: {}, {}条记录", segment, count);
+                last = Math.max(last, segment);
+            }
+            return new CustomerSpendJournal(directory, last + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开客户消费日志失败: " + directory, e);
+        }
+    }
+
+    void append(long customerId, long amount) {
+        ByteBuffer buffer = ByteBuffer.wrap((customerId + " " + amount + "\n").getBytes(StandardCharsets.US_ASCII));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入客户消费日志失败", e);
+        }
+    }
+
+    /**
+     * 切换到新的段，返回刚关闭的段号
+     */
+    long rotate() {
+        long closed = segment;
+        closeChannel();
+        segment++;
+        channel = openSegment(segment);
+        return closed;
+    }
+
+    /**
+     * 删除不晚于指定段号的所有已关闭的段
+     */
+    void deleteThrough(long last) {
+        try {
+            for (long segment : segments(directory)) {
+                if (segment <= last && segment != this.segment) {
+                    Files.deleteIfExists(segmentFile(directory, segment));
+                }
+            }
+        } catch (IOException e) {
+            // 删除失败不影响正确性：重启时按检查点跳过这些段
+            log.warn("删除客户消费日志段失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        closeChannel();
+    }
+
+    private FileChannel openSegment(long segment) {
+        try {
+            return FileChannel.open(segmentFile(directory, segment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建客户消费日志段失败: " + segment, e);
+        }
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("关闭客户消费日志段失败: " + segment, e);
+        }
+    }
+
+    private static List<Long> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path segmentFile(Path directory, long segment) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, segment, SUFFIX));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.jpa.service;
+
+import com.example.jpa.config.Workload;
+import com.example.jpa.config.WorkloadType;
+import com.example.jpa.entity.Money;
+import com.example.jpa.entity.WriteBehindCheckpoint;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 客户消费金额的批量写入
+ *
+ * 每个客户一条 total_spent = total_spent + ? 的UPDATE，按JDBC批次发送，同时用应用服务器的时间更新updated_at；
+ * 不读取当前值，多个实例同时写入同一客户也不会互相覆盖；
+ * 使用日志时，检查点与累加值在同一个事务中提交
+ */
+@Component
+@Slf4j
+@Transactional
+@Workload(WorkloadType.BATCH)
+public class CustomerSpendWriter {
+
+    static final String INCREMENT_SQL =
+            "UPDATE persons SET total_spent = COALESCE(total_spent, 0) + ?, updated_at = ? "
+                    + "WHERE id = ? AND person_type = 'CUSTOMER'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CustomerSpendWriter(JdbcTemplate jdbcTemplate,
+                               @Value("${app.customer-spend.batch-size:100}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 累加各客户的消费金额（分），journalSegment不小于0时同时把检查点更新为该段，返回不存在的客户数
+     */
+    public int increment(List<CustomerSpendAccumulator.Delta> deltas, String checkpoint, long journalSegment) {
+        int missing = 0;
+        LocalDateTime now = LocalDateTime.now();
+        int[][] counts = jdbcTemplate.batchUpdate(INCREMENT_SQL, deltas, batchSize, (ps, delta) -> {
+            ps.setBigDecimal(1, BigDecimal.valueOf(delta.amount(), Money.SCALE));
+            ps.setObject(2, now);
+            ps.setLong(3, delta.customerId());
+        });
+        for (int i = 0, index = 0; i < counts.length; i++) {
+            for (int count : counts[i]) {
+                // 驱动合并批次时返回SUCCESS_NO_INFO(-2)，无法得知是否更新
+                if (count == 0) {
+                    log.warn("客户不存在，丢弃消费金额: {} {}", deltas.get(index).customerId(), deltas.get(index).amount());
+                    missing++;
+                }
+                index++;
+            }
+        }
+
+        if (journalSegment >= 0) {
+            WriteBehindCheckpoint entity = entityManager.find(WriteBehindCheckpoint.class, checkpoint);
+            if (entity == null) {
+                entity = new WriteBehindCheckpoint();
+                entity.setName(checkpoint);
+                entity.setSegment(journalSegment);
+                entityManager.persist(entity);
+            } else {
+                entity.setSegment(journalSegment);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * 已提交的最后一个日志段，没有检查点时返回-1
+     * 使用读写事务从主库读取，副本延迟会导致已提交的段被重复回放
+     */
+    public long findCheckpoint(String checkpoint) {
+        WriteBehindCheckpoint entity = entityManager.find(WriteBehindCheckpoint.class, checkpoint);
+        return entity == null ? -1 : entity.getSegment();
+    }
+}
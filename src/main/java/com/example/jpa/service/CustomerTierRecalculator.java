@@ -0,0 +1,166 @@
+package com.example.jpa.service;
+
+import com.example.jpa.config.Workload;
+import com.example.jpa.config.WorkloadType;
+import com.example.jpa.dto.IdRange;
+import com.example.jpa.dto.TierPartitionResult;
+import com.example.jpa.entity.Customer;
+import com.example.jpa.entity.Money;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * 客户等级的分区重新计算
+ *
+ * 1. 使用StatelessSession，没有持久化上下文和脏检查，读取的行不会在内存中累积
+ * 2. 分区内按主键顺序用游标每次读取chunkSize行（只读取id、累计消费、当前等级），
+ *    只有等级变化的客户才写入
+ * 3. 每块在一个短事务中提交，按目标等级分组，每个等级一条 UPDATE ... WHERE id IN (...)；
+ *    UPDATE中再次检查累计消费的范围，读取之后金额又发生变化的客户不会被改成过期的等级
+ */
+@Component
+@Slf4j
+@Workload(WorkloadType.BATCH)
+public class CustomerTierRecalculator {
+
+    private static final String CHUNK_QUERY = """
+            SELECT c.id, c.totalSpent, c.customerType FROM Customer c
+            WHERE c.id > :afterId AND c.id <= :toId
+            ORDER BY c.id""";
+
+    private static final String UPDATE_PREFIX = """
+            UPDATE Customer c SET c.customerType = :type, c.updatedAt = :now
+            WHERE c.id IN :ids AND (c.customerType IS NULL OR c.customerType <> :type) AND \s""";
+
+    private final SessionFactory sessionFactory;
+    private final Money vipThreshold;
+    private final Money premiumThreshold;
+    private final int chunkSize;
+
+    public CustomerTierRecalculator(EntityManagerFactory entityManagerFactory,
+                                    @Value("${app.customer-tier.vip-threshold:10000.00}") BigDecimal vipThreshold,
+                                    @Value("${app.customer-tier.premium-threshold:50000.00}") BigDecimal premiumThreshold,
+                                    @Value("${app.customer-tier.chunk-size:1000}") int chunkSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.vipThreshold = Money.of(vipThreshold);
+        this.premiumThreshold = Money.of(premiumThreshold);
+        this.chunkSize = chunkSize;
+        if (this.vipThreshold.compareTo(this.premiumThreshold) >= 0) {
+            throw new IllegalArgumentException("VIP客户的消费门槛必须低于高级客户: " + vipThreshold + " " + premiumThreshold);
+        }
+    }
+
+    /**
+     * 根据累计消费计算客户等级，没有消费记录的为普通客户
+     */
+    public Customer.CustomerType tierOf(Money totalSpent) {
+        if (totalSpent == null || totalSpent.compareTo(vipThreshold) < 0) {
+            return Customer.CustomerType.REGULAR;
+        }
+        return totalSpent.compareTo(premiumThreshold) < 0 ? Customer.CustomerType.VIP : Customer.CustomerType.PREMIUM;
+    }
+
+    public IdRange findCustomerIdRange() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return session.createSelectionQuery(
+                    "SELECT new com.example.jpa.dto.IdRange(MIN(c.id), MAX(c.id)) FROM Customer c", IdRange.class)
+                    .getSingleResult();
+        }
+    }
+
+    public long countCustomers() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return session.createSelectionQuery("SELECT COUNT(c) FROM Customer c", Long.class).getSingleResult();
+        }
+    }
+
+    /**
+     * 重新计算主键在[fromId, toId]范围内的客户等级
+     *
+     * @param progress 每块提交后接收该块读取的客户数
+     */
+    public TierPartitionResult recalculate(int partition, long fromId, long toId, LongConsumer progress) {
+        long start = System.nanoTime();
+        long scanned = 0;
+        long changed = 0;
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            long afterId = fromId - 1;
+            while (afterId < toId) {
+                Transaction transaction = session.beginTransaction();
+                try {
+                    Map<Customer.CustomerType, List<Long>> changes = new EnumMap<>(Customer.CustomerType.class);
+                    int rows = 0;
+                    try (ScrollableResults<Object[]> results = session.createSelectionQuery(CHUNK_QUERY, Object[].class)
+                            .setParameter("afterId", afterId)
+                            .setParameter("toId", toId)
+                            .setMaxResults(chunkSize)
+                            .setFetchSize(chunkSize)
+                            .scroll(ScrollMode.FORWARD_ONLY)) {
+                        while (results.next()) {
+                            Object[] row = results.get();
+                            afterId = (Long) row[0];
+                            rows++;
+                            Customer.CustomerType tier = tierOf((Money) row[1]);
+                            if (tier != row[2]) {
+                                changes.computeIfAbsent(tier, type -> new ArrayList<>()).add(afterId);
+                            }
+                        }
+                    }
+                    if (rows == 0) {
+                        transaction.commit();
+                        break;
+                    }
+
+                    for (Map.Entry<Customer.CustomerType, List<Long>> entry : changes.entrySet()) {
+                        changed += update(session, entry.getKey(), entry.getValue());
+                    }
+                    transaction.commit();
+                    scanned += rows;
+                    progress.accept(rows);
+                } catch (RuntimeException e) {
+                    if (transaction.isActive()) {
+                        transaction.rollback();
+                    }
+                    throw e;
+                }
+            }
+        }
+
+        TierPartitionResult result = new TierPartitionResult(partition, fromId, toId, scanned, changed,
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("客户等级分区完成: {}", result);
+        return result;
+    }
+
+    private int update(StatelessSession session, Customer.CustomerType type, List<Long> ids) {
+        var query = switch (type) {
+            case REGULAR -> session.createMutationQuery(UPDATE_PREFIX + "(c.totalSpent IS NULL OR c.totalSpent < :vip)")
+                    .setParameter("vip", vipThreshold);
+            case VIP -> session.createMutationQuery(UPDATE_PREFIX + "c.totalSpent >= :vip AND c.totalSpent < :premium")
+                    .setParameter("vip", vipThreshold)
+                    .setParameter("premium", premiumThreshold);
+            case PREMIUM -> session.createMutationQuery(UPDATE_PREFIX + "c.totalSpent >= :premium")
+                    .setParameter("premium", premiumThreshold);
+        };
+        return query.setParameter("type", type)
+                .setParameter("now", LocalDateTime.now())
+                .setParameterList("ids", ids)
+                .executeUpdate();
+    }
+}
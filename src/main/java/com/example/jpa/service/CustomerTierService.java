@@ -0,0 +1,135 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.IdRange;
+import com.example.jpa.dto.JobStatus;
+import com.example.jpa.dto.TierPartitionResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+
+/**
+ * 客户等级重新计算
+ *
+ * 根据累计消费重新计算所有客户的等级（普通/VIP/高级），作为后台任务执行：
+ * 1. 把客户的主键范围平均分成partitions个分区，每个分区在单独的线程中由CustomerTierRecalculator处理；
+ *    分区使用专用的线程池，任务线程等待分区完成时不会占满applicationTaskExecutor
+ * 2. 分区数默认与batch连接池大小相同，分区之间不会互相等待连接
+ * 3. 每块提交后更新任务进度，完成时的结果说明包含每个分区的扫描数、修改数和吞吐量
+ * 4. 开始前先写入CustomerSpendAccumulator中累加的消费金额，等级不会落后于已记录的消费
+ * 5. 同一时间只执行一个任务，已有任务未结束时再次提交返回该任务的状态
+ */
+@Service
+@Slf4j
+public class CustomerTierService {
+
+    public static final String JOB_TYPE = "recalculate-customer-tiers";
+
+    private final CustomerTierRecalculator recalculator;
+    private final CustomerSpendAccumulator spendAccumulator;
+    private final BackgroundJobService backgroundJobService;
+    private final ThreadPoolTaskExecutor executor;
+    private final int partitions;
+
+    /**
+     * 最近提交的任务id，由this加锁保护
+     */
+    private String currentJobId;
+
+    public CustomerTierService(CustomerTierRecalculator recalculator,
+                               CustomerSpendAccumulator spendAccumulator,
+                               BackgroundJobService backgroundJobService,
+                               @Value("${app.customer-tier.partitions:4}") int partitions) {
+        this.recalculator = recalculator;
+        this.spendAccumulator = spendAccumulator;
+        this.backgroundJobService = backgroundJobService;
+        this.partitions = partitions;
+
+        // 同一时间只有一个任务的分区在排队，队列满时由任务线程自己执行分区
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(partitions);
+        executor.setMaxPoolSize(partitions);
+        executor.setQueueCapacity(partitions);
+        executor.setThreadNamePrefix("customer-tier-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+    }
+
+    /**
+     * 提交重新计算客户等级的后台任务，返回任务状态；已有任务等待或执行中时返回该任务的状态
+     */
+    public synchronized JobStatus recalculateTiers() {
+        if (currentJobId != null) {
+            JobStatus current = backgroundJobService.findJob(currentJobId).orElse(null);
+            if (current != null && (current.state() == JobStatus.State.PENDING
+                    || current.state() == JobStatus.State.RUNNING)) {
+                log.info("重新计算客户等级任务已在执行: {}", currentJobId);
+                return current;
+            }
+        }
+        log.info("提交重新计算客户等级任务");
+        JobStatus job = backgroundJobService.submit(JOB_TYPE, this::recalculateTiers);
+        currentJobId = job.id();
+        return job;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 分区并行重新计算客户等级，返回结果说明
+     */
+    String recalculateTiers(BackgroundJob job) {
+        // 先写入内存中尚未写入的消费金额，任务开始前记录的消费都计入等级
+        spendAccumulator.flush();
+        job.setTotal(recalculator.countCustomers());
+        long start = System.nanoTime();
+
+        List<TierPartitionResult> results = recalculate(recalculator.findCustomerIdRange(), job);
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        long scanned = results.stream().mapToLong(TierPartitionResult::scanned).sum();
+        long changed = results.stream().mapToLong(TierPartitionResult::changed).sum();
+        long rowsPerSecond = elapsedMillis == 0 ? scanned * 1000 : scanned * 1000 / elapsedMillis;
+        return String.format("客户等级重新计算完成: 扫描%d个，修改%d个，用时%dms，%d行/秒；分区: %s",
+                scanned, changed, elapsedMillis, rowsPerSecond,
+                results.stream().map(TierPartitionResult::toString).collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * 按主键范围分区并行处理，返回按分区序号排列的结果
+     */
+    List<TierPartitionResult> recalculate(IdRange range, BackgroundJob job) {
+        if (range == null || range.minId() == null) {
+            return List.of();
+        }
+
+        long size = Math.max(1, (range.maxId() - range.minId() + partitions) / partitions);
+        List<CompletableFuture<TierPartitionResult>> futures = new ArrayList<>();
+        int partition = 0;
+        for (long from = range.minId(); from <= range.maxId(); from += size) {
+            int index = partition++;
+            long fromId = from;
+            long toId = Math.min(from + size - 1, range.maxId());
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> recalculator.recalculate(index, fromId, toId, job::addProcessed), executor));
+        }
+
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            // 其他分区已提交的块保留，再次执行任务时只会修改剩余的客户
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+}
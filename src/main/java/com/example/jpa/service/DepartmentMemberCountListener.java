@@ -0,0 +1,162 @@
+package com.example.jpa.service;
+
+import com.example.jpa.entity.Department;
+import com.example.jpa.entity.User;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.CollectionEntry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PreCollectionRecreateEvent;
+import org.hibernate.event.spi.PreCollectionRecreateEventListener;
+import org.hibernate.event.spi.PreCollectionRemoveEvent;
+import org.hibernate.event.spi.PreCollectionRemoveEventListener;
+import org.hibernate.event.spi.PreCollectionUpdateEvent;
+import org.hibernate.event.spi.PreCollectionUpdateEventListener;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 部门成员数监听器
+ * 
+ * 通过实体修改部门成员时（User.addDepartment/removeDepartment后保存、级联插入带部门的新用户、删除用户实体），
+ * 在写入user_departments的同一次flush中增减department_member_counts；部门插入、删除时创建、删除计数行。
+ * 
+ * 这些事件在flush过程中触发，不能再执行会触发自动flush的查询，直接在当前连接上执行JDBC语句；
+ * UserService中绕过实体的原生语句自行维护计数
+ */
+@Component
+public class DepartmentMemberCountListener implements PostInsertEventListener, PostDeleteEventListener,
+        PreCollectionRecreateEventListener, PreCollectionUpdateEventListener, PreCollectionRemoveEventListener {
+    
+    private static final String DEPARTMENTS_ROLE = User.class.getName() + ".departments";
+    
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Department) {
+            execute(event.getSession(),
+                    "INSERT INTO department_member_counts (department_id, member_count) VALUES (?, 0)",
+                    event.getId());
+        }
+    }
+    
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Department) {
+            execute(event.getSession(), "DELETE FROM department_member_counts WHERE department_id = ?", event.getId());
+        }
+    }
+    
+    @Override
+    public void onPreRecreateCollection(PreCollectionRecreateEvent event) {
+        if (isDepartments(event)) {
+            for (Long departmentId : departmentIds((Collection<?>) event.getCollection())) {
+                addMemberCount(event.getSession(), departmentId, 1);
+            }
+        }
+    }
+    
+    @Override
+    public void onPreUpdateCollection(PreCollectionUpdateEvent event) {
+        if (!isDepartments(event) || !event.getCollection().wasInitialized()) {
+            return;
+        }
+        Set<Long> before = storedDepartmentIds(event.getCollection());
+        Set<Long> after = departmentIds((Collection<?>) event.getCollection());
+        for (Long departmentId : after) {
+            if (!before.contains(departmentId)) {
+                addMemberCount(event.getSession(), departmentId, 1);
+            }
+        }
+        for (Long departmentId : before) {
+            if (!after.contains(departmentId)) {
+                addMemberCount(event.getSession(), departmentId, -1);
+            }
+        }
+    }
+    
+    @Override
+    public void onPreRemoveCollection(PreCollectionRemoveEvent event) {
+        if (!isDepartments(event)) {
+            return;
+        }
+        if (event.getCollection().wasInitialized()) {
+            for (Long departmentId : storedDepartmentIds(event.getCollection())) {
+                addMemberCount(event.getSession(), departmentId, -1);
+            }
+        } else {
+            // 删除未加载部门集合的用户：按关联表中该用户的部门减去，语句在关联行删除之前执行
+            execute(event.getSession(),
+                    "UPDATE department_member_counts SET member_count = member_count - 1 WHERE department_id IN " +
+                    "(SELECT department_id FROM user_departments WHERE user_id = ?)",
+                    event.getAffectedOwnerIdOrNull());
+        }
+    }
+    
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+    
+    /**
+     * 新集合在重建完成前还没有设置role，从集合条目的持久化器判断；删除时只有加载时的持久化器
+     */
+    private static boolean isDepartments(AbstractCollectionEvent event) {
+        if (event.getCollection() == null) {
+            return false;
+        }
+        CollectionEntry entry = event.getSession().getPersistenceContextInternal().getCollectionEntry(event.getCollection());
+        if (entry == null) {
+            return false;
+        }
+        CollectionPersister persister = entry.getCurrentPersister() != null
+                ? entry.getCurrentPersister()
+                : entry.getLoadedPersister();
+        return persister != null && DEPARTMENTS_ROLE.equals(persister.getRole());
+    }
+    
+    /**
+     * 集合在数据库中的状态（加载或上次flush时的快照）
+     */
+    private static Set<Long> storedDepartmentIds(PersistentCollection<?> collection) {
+        return collection.getStoredSnapshot() instanceof Map<?, ?> snapshot
+                ? departmentIds(snapshot.keySet())
+                : Set.of();
+    }
+    
+    private static Set<Long> departmentIds(Collection<?> departments) {
+        Set<Long> ids = new HashSet<>();
+        for (Object department : departments) {
+            ids.add(((Department) department).getId());
+        }
+        return ids;
+    }
+    
+    private static void addMemberCount(EventSource session, Long departmentId, long delta) {
+        execute(session, "UPDATE department_member_counts SET member_count = member_count + ? WHERE department_id = ?",
+                delta, departmentId);
+    }
+    
+    private static void execute(EventSource session, String sql, Object... parameters) {
+        // 先执行JDBC批次中尚未发送的语句，保证读取关联表时看到本次flush之前的修改
+        session.getJdbcCoordinator().executeBatch();
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                statement.executeUpdate();
+            }
+        });
+    }
+}
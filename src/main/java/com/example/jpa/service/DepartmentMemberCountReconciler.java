@@ -0,0 +1,47 @@
+package com.example.jpa.service;
+
+import com.example.jpa.config.Workload;
+import com.example.jpa.config.WorkloadType;
+import com.example.jpa.repository.DepartmentMemberCountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 部门成员数校准
+ *
+ * department_member_counts由UserService和DepartmentMemberCountListener维护，绕过它们的修改
+ * （手工SQL、data.sql等）会产生偏差。启动后立即执行一次，之后定时补齐缺少的计数行、
+ * 删除部门已不存在的计数行，再用一条UPDATE把与user_departments表不一致的部门改为实际的成员数
+ *
+ * 成员调整先写user_departments、再增减计数行。校准先锁定所有计数行，在读已提交隔离级别下统计：
+ * 锁定前已提交的调整在统计中可见；尚未提交的调整等待计数行的锁，校准提交后再增减，不会被覆盖。
+ * 可重复读隔离级别下统计来自事务开始时的快照，会用旧的成员数覆盖期间提交的增减
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DepartmentMemberCountReconciler {
+
+    private final DepartmentMemberCountRepository departmentMemberCountRepository;
+
+    /**
+     * 校准部门成员数，返回补齐和修正的部门数
+     */
+    @Scheduled(fixedDelayString = "${app.department-member-count.reconcile-interval:PT1H}")
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Workload(WorkloadType.BATCH)
+    public int reconcile() {
+        int inserted = departmentMemberCountRepository.insertMissingMemberCounts();
+        int deleted = departmentMemberCountRepository.deleteOrphanMemberCounts();
+        departmentMemberCountRepository.lockMemberCounts();
+        int corrected = departmentMemberCountRepository.reconcileMemberCounts();
+        if (inserted + deleted + corrected > 0) {
+            log.warn("部门成员数校准: 补齐{}个部门, 删除{}个多余的计数, 修正{}个部门", inserted, deleted, corrected);
+        }
+        return inserted + corrected;
+    }
+}
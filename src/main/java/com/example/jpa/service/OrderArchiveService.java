@@ -0,0 +1,52 @@
+package com.example.jpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 订单归档服务
+ *
+ * 定时把已送达、已取消且创建时间超过保留期的订单及其订单项移到归档表，
+ * 使orders、order_items只保留近期数据，按状态、时间的查询和统计不再扫描全部历史。
+ * 每批在独立的短事务中处理（见OrderArchiver），不会长时间锁表或占用连接
+ */
+@Service
+@Slf4j
+public class OrderArchiveService {
+
+    private final OrderArchiver archiver;
+    private final Duration retention;
+    private final int batchSize;
+
+    public OrderArchiveService(OrderArchiver archiver,
+                               @Value("${app.order-archive.retention:P90D}") Duration retention,
+                               @Value("${app.order-archive.batch-size:500}") int batchSize) {
+        this.archiver = archiver;
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 归档所有超过保留期的已完成订单，返回归档的订单数
+     */
+    @Scheduled(cron = "${app.order-archive.cron:0 0 3 * * *}")
+    public int archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        log.info("开始归档订单，创建时间早于: {}", cutoff);
+
+        int total = 0;
+        int archived;
+        do {
+            archived = archiver.archiveBatch(cutoff, batchSize);
+            total += archived;
+        } while (archived == batchSize);
+
+        log.info("订单归档完成: {}个", total);
+        return total;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.jpa.service;
+
+import com.example.jpa.config.Workload;
+import com.example.jpa.config.WorkloadType;
+import com.example.jpa.dto.ProductNameCount;
+import com.example.jpa.entity.Order;
+import com.example.jpa.repository.ArchivedOrderRepository;
+import com.example.jpa.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 订单归档的单批处理
+ *
+ * 每批在一个事务中完成：复制订单和订单项到归档表，再从热表删除，
+ * 复制和删除的行数不一致时抛出异常回滚，数据不会丢失也不会重复
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+@Workload(WorkloadType.BATCH)
+public class OrderArchiver {
+
+    /**
+     * 可以归档的订单状态，其他状态的订单还可能被修改
+     */
+    public static final Set<Order.OrderStatus> ARCHIVABLE_STATUSES =
+            EnumSet.of(Order.OrderStatus.DELIVERED, Order.OrderStatus.CANCELLED);
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final SearchIndexService searchIndexService;
+
+    /**
+     * 归档最多limit个创建时间早于cutoff的已完成订单，返回归档的订单数
+     */
+    public int archiveBatch(LocalDateTime cutoff, int limit) {
+        List<Long> ids = orderRepository.findIdsByStatusInAndCreatedAtBefore(ARCHIVABLE_STATUSES, cutoff, Limit.of(limit));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<ProductNameCount> products = orderRepository.countOrderItemsByProductNameForOrders(ids);
+        int copiedOrders = archivedOrderRepository.copyOrders(ids, LocalDateTime.now());
+        int copiedItems = archivedOrderRepository.copyOrderItems(ids);
+        int deletedItems = orderRepository.deleteOrderItemsByOrderIds(ids);
+        int deletedOrders = orderRepository.deleteAllByIds(ids);
+        if (copiedOrders != deletedOrders || copiedItems != deletedItems) {
+            throw new IllegalStateException(String.format("归档行数不一致: 订单复制%d/删除%d, 订单项复制%d/删除%d",
+                    copiedOrders, deletedOrders, copiedItems, deletedItems));
+        }
+        log.debug("归档订单: 订单={}, 订单项={}", deletedOrders, deletedItems);
+
+        // 归档的订单项不再出现在商品名称搜索中，与重建索引的结果一致
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                searchIndexService.onProductNamesRemoved(products);
+            }
+        });
+        return deletedOrders;
+    }
+}
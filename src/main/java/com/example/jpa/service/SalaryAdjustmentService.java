@@ -0,0 +1,195 @@
+package com.example.jpa.service;
+
+import com.example.jpa.config.Workload;
+import com.example.jpa.config.WorkloadType;
+import com.example.jpa.dto.SalaryAdjustment;
+import com.example.jpa.dto.SalaryAdjustmentSummary;
+import com.example.jpa.entity.Money;
+import com.example.jpa.repository.EmployeeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.query.SelectionQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 员工薪资批量调整
+ *
+ * 1. 按百分比或固定金额调整时，由EmployeeRepository在一个事务中用一条UPDATE完成，不加载员工实体
+ * 2. 需要逐行计算的规则（如按工龄调整）使用StatelessSession，按主键顺序每次读取chunkSize行，
+ *    计算后用JDBC批量UPDATE写入，每块一个事务；UPDATE条件中带上读取时的薪资，
+ *    读取之后被其他事务修改的员工跳过，不会覆盖
+ * 3. dryRun为true时只计算受影响的员工数和薪资总额的变化，不写入
+ */
+@Service
+@Slf4j
+@Workload(WorkloadType.BATCH)
+public class SalaryAdjustmentService {
+
+    private static final String UPDATE_SQL =
+            "UPDATE persons SET salary = ?, updated_at = ? WHERE id = ? AND person_type = 'EMPLOYEE' AND salary = ?";
+
+    private final EmployeeRepository employeeRepository;
+    private final SessionFactory sessionFactory;
+    private final int chunkSize;
+
+    public SalaryAdjustmentService(EmployeeRepository employeeRepository,
+                                   EntityManagerFactory entityManagerFactory,
+                                   @Value("${app.salary-adjustment.chunk-size:1000}") int chunkSize) {
+        this.employeeRepository = employeeRepository;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 调整匹配条件的员工薪资，返回受影响的员工数和薪资总额的变化
+     */
+    public SalaryAdjustmentSummary adjustSalaries(SalaryAdjustment adjustment, boolean dryRun) {
+        log.info("调整员工薪资: {}, dryRun={}", adjustment, dryRun);
+
+        if (adjustment.type() == null) {
+            throw new RuntimeException("调整方式不能为空");
+        }
+        if (adjustment.value() == null || adjustment.value().signum() <= 0) {
+            throw new RuntimeException("调整幅度必须大于0");
+        }
+        if (adjustment.type() == SalaryAdjustment.Type.FIXED && adjustment.value().scale() > Money.SCALE) {
+            throw new RuntimeException("调整金额最多两位小数");
+        }
+
+        SalaryAdjustmentSummary summary = adjustment.type().isPerRow()
+                ? adjustPerRow(adjustment, dryRun)
+                : employeeRepository.adjustSalaries(adjustment, dryRun);
+        log.info("员工薪资调整完成: {}", summary);
+        return summary;
+    }
+
+    private SalaryAdjustmentSummary adjustPerRow(SalaryAdjustment adjustment, boolean dryRun) {
+        StringBuilder hql = new StringBuilder(
+                "SELECT e.id, e.salary, e.hireDate FROM Employee e WHERE e.id > :afterId AND e.salary IS NOT NULL");
+        boolean byPosition = adjustment.positions() != null && !adjustment.positions().isEmpty();
+        if (byPosition) {
+            hql.append(" AND e.position IN :positions");
+        }
+        if (adjustment.department() != null) {
+            hql.append(" AND e.department = :department");
+        }
+        hql.append(" ORDER BY e.id");
+
+        LocalDate today = LocalDate.now();
+        long affected = 0;
+        long skipped = 0;
+        BigDecimal payrollBefore = BigDecimal.ZERO.setScale(Money.SCALE);
+        BigDecimal payrollDelta = BigDecimal.ZERO.setScale(Money.SCALE);
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            long afterId = Long.MIN_VALUE;
+            while (true) {
+                Transaction transaction = session.beginTransaction();
+                try {
+                    SelectionQuery<Object[]> query = session.createSelectionQuery(hql.toString(), Object[].class)
+                            .setParameter("afterId", afterId);
+                    if (byPosition) {
+                        query.setParameterList("positions", adjustment.positions());
+                    }
+                    if (adjustment.department() != null) {
+                        query.setParameter("department", adjustment.department());
+                    }
+
+                    List<SalaryChange> changes = new ArrayList<>();
+                    int rows = 0;
+                    try (ScrollableResults<Object[]> results = query.setMaxResults(chunkSize)
+                            .setFetchSize(chunkSize)
+                            .scroll(ScrollMode.FORWARD_ONLY)) {
+                        while (results.next()) {
+                            Object[] row = results.get();
+                            afterId = (Long) row[0];
+                            rows++;
+                            BigDecimal salary = ((Money) row[1]).toBigDecimal();
+                            payrollBefore = payrollBefore.add(salary);
+                            BigDecimal adjusted = perYear(salary, (LocalDate) row[2], today, adjustment.value());
+                            if (adjusted.compareTo(salary) != 0) {
+                                changes.add(new SalaryChange(afterId, salary, adjusted));
+                            }
+                        }
+                    }
+                    if (rows == 0) {
+                        transaction.commit();
+                        break;
+                    }
+
+                    int[] counts = dryRun ? null : update(session, changes);
+                    for (int i = 0; i < changes.size(); i++) {
+                        // 驱动合并批次时返回SUCCESS_NO_INFO(-2)，视为已更新
+                        if (counts != null && counts[i] == 0) {
+                            skipped++;
+                            continue;
+                        }
+                        SalaryChange change = changes.get(i);
+                        affected++;
+                        payrollDelta = payrollDelta.add(change.adjusted().subtract(change.salary()));
+                    }
+                    transaction.commit();
+                } catch (RuntimeException e) {
+                    if (transaction.isActive()) {
+                        transaction.rollback();
+                    }
+                    throw e;
+                }
+            }
+        }
+        if (skipped > 0) {
+            log.warn("员工薪资在读取后被修改，跳过: {}个", skipped);
+        }
+        return new SalaryAdjustmentSummary(dryRun, affected, skipped, payrollBefore, payrollDelta);
+    }
+
+    /**
+     * 每满一年工龄增加percentPerYear个百分点，没有入职日期的员工不调整
+     */
+    private static BigDecimal perYear(BigDecimal salary, LocalDate hireDate, LocalDate today, BigDecimal percentPerYear) {
+        if (hireDate == null) {
+            return salary;
+        }
+        long years = Math.max(0, ChronoUnit.YEARS.between(hireDate, today));
+        BigDecimal percent = percentPerYear.multiply(BigDecimal.valueOf(years));
+        return salary.multiply(BigDecimal.valueOf(100).add(percent))
+                .divide(BigDecimal.valueOf(100), Money.SCALE, RoundingMode.HALF_UP);
+    }
+
+    private int[] update(StatelessSession session, List<SalaryChange> changes) {
+        if (changes.isEmpty()) {
+            return new int[0];
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+                for (SalaryChange change : changes) {
+                    statement.setBigDecimal(1, change.adjusted());
+                    statement.setObject(2, now);
+                    statement.setLong(3, change.id());
+                    statement.setBigDecimal(4, change.salary());
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+    }
+
+    private record SalaryChange(long id, BigDecimal salary, BigDecimal adjusted) {
+    }
+}
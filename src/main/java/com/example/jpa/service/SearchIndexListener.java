@@ -0,0 +1,97 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.UserDetail;
+import com.example.jpa.dto.UserSummary;
+import com.example.jpa.entity.Department;
+import com.example.jpa.entity.OrderItem;
+import com.example.jpa.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * 搜索索引监听器
+ *
+ * 在事务提交成功后把用户、部门和订单项的修改同步到SearchIndexService，
+ * 回滚的事务不会影响索引
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchIndexListener implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final Set<Class<?>> INDEXED = Set.of(User.class, Department.class, OrderItem.class);
+
+    private final SearchIndexService searchIndex;
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof User user) {
+            searchIndex.onUserSaved(summary(user));
+        } else if (entity instanceof Department department) {
+            searchIndex.onDepartmentSaved(item(department));
+        } else if (entity instanceof OrderItem item) {
+            searchIndex.onProductNameChanged(null, item.getProductName());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof User user) {
+            searchIndex.onUserSaved(summary(user));
+        } else if (entity instanceof Department department) {
+            searchIndex.onDepartmentSaved(item(department));
+        } else if (entity instanceof OrderItem item && event.getOldState() != null) {
+            int index = event.getPersister().getEntityMetamodel().getPropertyIndex("productName");
+            searchIndex.onProductNameChanged((String) event.getOldState()[index], item.getProductName());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof User user) {
+            searchIndex.onUserDeleted(user.getId());
+        } else if (entity instanceof Department department) {
+            searchIndex.onDepartmentDeleted(department.getId());
+        } else if (entity instanceof OrderItem item) {
+            searchIndex.onProductNameChanged(item.getProductName(), null);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return INDEXED.contains(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private static UserSummary summary(User user) {
+        return new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.getAge(),
+                user.getCreatedAt(), user.getUpdatedAt());
+    }
+
+    private static UserDetail.DepartmentItem item(Department department) {
+        return new UserDetail.DepartmentItem(department.getId(), department.getName(), department.getDescription());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.jpa.service;
+
+import com.example.jpa.config.Workload;
+import com.example.jpa.config.WorkloadType;
+import com.example.jpa.dto.IdRange;
+import com.example.jpa.dto.ProductNameSnapshot;
+import com.example.jpa.dto.UserDetail;
+import com.example.jpa.dto.UserSummary;
+import com.example.jpa.repository.DepartmentRepository;
+import com.example.jpa.repository.OrderRepository;
+import com.example.jpa.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * 搜索索引的数据加载
+ *
+ * 重建索引时由多个线程并行调用，只读事务使用reporting连接池，不占用交互式请求的连接
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@Workload(WorkloadType.REPORTING)
+public class SearchIndexLoader {
+
+    private final UserRepository userRepository;
+    private final DepartmentRepository departmentRepository;
+    private final OrderRepository orderRepository;
+
+    public IdRange findUserIdRange() {
+        return userRepository.findIdRange();
+    }
+
+    public List<UserSummary> loadUsers(long fromId, long toId) {
+        return userRepository.findSummariesByIdBetween(fromId, toId);
+    }
+
+    public List<UserDetail.DepartmentItem> loadDepartments() {
+        return departmentRepository.findAll().stream()
+                .map(department -> new UserDetail.DepartmentItem(
+                        department.getId(), department.getName(), department.getDescription()))
+                .toList();
+    }
+
+    /**
+     * 统计商品名称，同时取得统计数据对应的修改序号
+     *
+     * 可重复读隔离级别下事务的快照在第一次读取时确定：先读取一次订单项确定快照，再取修改序号，
+     * 之后的统计看到的仍是这个快照。序号之前回调的修改已经包含在统计结果中，之后提交的修改不包含
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public ProductNameSnapshot loadProductNames(LongSupplier sequence) {
+        orderRepository.findMaxOrderItemId();
+        long watermark = sequence.getAsLong();
+        return new ProductNameSnapshot(watermark, orderRepository.countOrderItemsByProductName());
+    }
+}
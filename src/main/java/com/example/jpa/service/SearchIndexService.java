@@ -0,0 +1,360 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.IdRange;
+import com.example.jpa.dto.ProductNameCount;
+import com.example.jpa.dto.ProductNameSnapshot;
+import com.example.jpa.dto.UserDetail;
+import com.example.jpa.dto.UserSummary;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 用户名、部门名称/描述、商品名称的内存子串搜索索引
+ *
+ * 1. 启动后在后台重建索引：用户按主键范围分块并行加载、并行建索引后合并，部门和商品名称同时加载；
+ *    分块和加载任务在专用的线程池中执行，重建线程等待它们完成时不会占满applicationTaskExecutor
+ * 2. 索引就绪前isReady()返回false，调用方回退到数据库LIKE查询
+ * 3. 之后由SearchIndexListener在事务提交后增量更新，重建期间的修改会记录下来并在新索引上重放；
+ *    用户和部门按主键覆盖，重放多次结果相同，商品名称按数量增减，只重放统计快照之后的修改
+ * 4. 定时全量重建，修正批量SQL等绕过实体监听器的修改
+ */
+@Component
+@Slf4j
+public class SearchIndexService {
+
+    private final SearchIndexLoader loader;
+    private final Executor executor;
+    private final Executor loadExecutor;
+    private final int chunkSize;
+
+    private volatile Indexes indexes = new Indexes();
+    private volatile boolean ready;
+
+    /**
+     * 重建期间发生的修改，由this加锁保护，为null表示没有正在进行的重建
+     */
+    private List<Change> pending;
+
+    /**
+     * 已应用的修改数量，由this加锁保护，作为加载商品名称时的水位线
+     */
+    private long sequence;
+
+    @Autowired
+    public SearchIndexService(SearchIndexLoader loader,
+                              @Qualifier("applicationTaskExecutor") Executor executor,
+                              @Value("${app.search-index.chunk-size:10000}") int chunkSize,
+                              @Value("${app.search-index.threads:4}") int threads) {
+        this(loader, executor, loadExecutor(threads), chunkSize);
+    }
+
+    /**
+     * @param executor     执行rebuildAsync
+     * @param loadExecutor 执行重建时的分块和加载任务，这些任务不会再等待其他任务
+     */
+    SearchIndexService(SearchIndexLoader loader, Executor executor, Executor loadExecutor, int chunkSize) {
+        this.loader = loader;
+        this.executor = executor;
+        this.loadExecutor = loadExecutor;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 队列满时由重建线程自己执行加载任务
+     */
+    private static Executor loadExecutor(int threads) {
+        ThreadPoolTaskExecutor loadExecutor = new ThreadPoolTaskExecutor();
+        loadExecutor.setCorePoolSize(threads);
+        loadExecutor.setMaxPoolSize(threads);
+        loadExecutor.setQueueCapacity(threads * 4);
+        loadExecutor.setThreadNamePrefix("search-index-");
+        loadExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        loadExecutor.initialize();
+        return loadExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (loadExecutor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 索引是否已完成首次构建
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 按用户名搜索用户，结果按相关度排序（完全匹配、前缀匹配优先）
+     */
+    public Page<UserSummary> searchUsers(String keyword, Pageable pageable) {
+        return indexes.users.search(keyword, pageable);
+    }
+
+    /**
+     * 按名称或描述搜索部门，名称匹配的排在前面
+     */
+    public List<UserDetail.DepartmentItem> searchDepartments(String keyword, int limit) {
+        Indexes current = indexes;
+        Map<Long, UserDetail.DepartmentItem> result = new LinkedHashMap<>();
+        current.departmentNames.search(keyword, PageRequest.of(0, limit))
+                .forEach(department -> result.put(department.id(), department));
+        if (result.size() < limit) {
+            // 多取已有的数量，去掉名称已匹配的部门后仍能凑满limit个
+            current.departmentDescriptions.search(keyword, PageRequest.of(0, limit + result.size()))
+                    .forEach(department -> result.putIfAbsent(department.id(), department));
+        }
+        return result.values().stream().limit(limit).toList();
+    }
+
+    /**
+     * 搜索订单项中出现过的商品名称
+     */
+    public List<String> searchProductNames(String keyword, int limit) {
+        return indexes.products.search(keyword, PageRequest.of(0, limit)).getContent();
+    }
+
+    public void onUserSaved(UserSummary user) {
+        apply(target -> target.users.put(user.id(), user.username(), user));
+    }
+
+    public void onUserDeleted(Long id) {
+        apply(target -> target.users.remove(id));
+    }
+
+    public void onDepartmentSaved(UserDetail.DepartmentItem department) {
+        apply(target -> {
+            target.departmentNames.put(department.id(), department.name(), department);
+            target.departmentDescriptions.put(department.id(), department.description(), department);
+        });
+    }
+
+    public void onDepartmentDeleted(Long id) {
+        apply(target -> {
+            target.departmentNames.remove(id);
+            target.departmentDescriptions.remove(id);
+        });
+    }
+
+    /**
+     * 订单项的商品名称变化：新增时oldName为null，删除时newName为null
+     */
+    public void onProductNameChanged(String oldName, String newName) {
+        if (oldName != null && oldName.equals(newName)) {
+            return;
+        }
+        applyProductChange(target -> {
+            if (oldName != null) {
+                target.removeProduct(oldName, 1);
+            }
+            if (newName != null) {
+                target.addProduct(newName, 1);
+            }
+        });
+    }
+
+    /**
+     * 批量删除订单项后调用，count为每个商品名称被删除的订单项数量
+     */
+    public void onProductNamesRemoved(List<ProductNameCount> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+        applyProductChange(target -> removed.forEach(
+                product -> target.removeProduct(product.productName(), product.count())));
+    }
+
+    /**
+     * 在后台重建索引，应用启动完成后自动执行一次
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAsync() {
+        CompletableFuture.runAsync(this::rebuild, executor);
+    }
+
+    /**
+     * 全量重建索引，重建期间继续使用旧索引提供搜索
+     */
+    @Scheduled(fixedDelayString = "${app.search-index.rebuild-interval:PT30M}",
+               initialDelayString = "${app.search-index.rebuild-interval:PT30M}")
+    public void rebuild() {
+        synchronized (this) {
+            if (pending != null) {
+                log.debug("搜索索引正在重建，跳过");
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+
+        try {
+            long start = System.nanoTime();
+            Indexes rebuilt = build();
+            synchronized (this) {
+                // 统计快照之前的修改已经包含在加载的数量中，重放会重复计数
+                pending.stream()
+                        .filter(change -> !change.product() || change.sequence() > rebuilt.productsWatermark)
+                        .forEach(change -> change.apply().accept(rebuilt));
+                indexes = rebuilt;
+                ready = true;
+            }
+            log.info("搜索索引重建完成: 用户={}, 部门={}, 商品名称={}, 耗时={}ms",
+                    rebuilt.users.size(), rebuilt.departmentNames.size(), rebuilt.products.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            log.error("搜索索引重建失败", e);
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+        }
+    }
+
+    private void apply(Consumer<Indexes> change) {
+        apply(change, false);
+    }
+
+    private void applyProductChange(Consumer<Indexes> change) {
+        apply(change, true);
+    }
+
+    private synchronized void apply(Consumer<Indexes> change, boolean product) {
+        change.accept(indexes);
+        sequence++;
+        if (pending != null) {
+            pending.add(new Change(sequence, product, change));
+        }
+    }
+
+    private synchronized long currentSequence() {
+        return sequence;
+    }
+
+    /**
+     * 在当前线程中等待所有加载任务，加载任务本身不等待其他任务
+     */
+    private Indexes build() {
+        CompletableFuture<List<UserDetail.DepartmentItem>> departments =
+                CompletableFuture.supplyAsync(loader::loadDepartments, loadExecutor);
+        CompletableFuture<ProductNameSnapshot> products =
+                CompletableFuture.supplyAsync(() -> loader.loadProductNames(this::currentSequence), loadExecutor);
+
+        Indexes rebuilt = new Indexes(buildUsers());
+        for (UserDetail.DepartmentItem department : departments.join()) {
+            rebuilt.departmentNames.put(department.id(), department.name(), department);
+            rebuilt.departmentDescriptions.put(department.id(), department.description(), department);
+        }
+        ProductNameSnapshot snapshot = products.join();
+        for (ProductNameCount product : snapshot.counts()) {
+            rebuilt.addProduct(product.productName(), product.count());
+        }
+        rebuilt.productsWatermark = snapshot.sequence();
+        return rebuilt;
+    }
+
+    /**
+     * 按主键范围分块，每块在单独的线程中加载并建立局部索引，最后按主键顺序合并
+     */
+    private TrigramIndex<Long, UserSummary> buildUsers() {
+        TrigramIndex<Long, UserSummary> index = new TrigramIndex<>();
+        IdRange range = loader.findUserIdRange();
+        if (range == null || range.minId() == null) {
+            return index;
+        }
+
+        List<CompletableFuture<TrigramIndex<Long, UserSummary>>> chunks = new ArrayList<>();
+        for (long from = range.minId(); from <= range.maxId(); from += chunkSize) {
+            long fromId = from;
+            long toId = Math.min(from + chunkSize - 1, range.maxId());
+            chunks.add(CompletableFuture.supplyAsync(() -> {
+                TrigramIndex<Long, UserSummary> chunk = new TrigramIndex<>();
+                for (UserSummary user : loader.loadUsers(fromId, toId)) {
+                    chunk.put(user.id(), user.username(), user);
+                }
+                return chunk;
+            }, loadExecutor));
+        }
+        for (CompletableFuture<TrigramIndex<Long, UserSummary>> chunk : chunks) {
+            index.merge(chunk.join());
+        }
+        return index;
+    }
+
+    /**
+     * 重建期间记录的修改，sequence为应用顺序
+     */
+    private record Change(long sequence, boolean product, Consumer<Indexes> apply) {
+    }
+
+    private static final class Indexes {
+
+        private final TrigramIndex<Long, UserSummary> users;
+        private final TrigramIndex<Long, UserDetail.DepartmentItem> departmentNames = new TrigramIndex<>();
+        private final TrigramIndex<Long, UserDetail.DepartmentItem> departmentDescriptions = new TrigramIndex<>();
+        private final TrigramIndex<String, String> products = new TrigramIndex<>();
+
+        /**
+         * 商品名称 -> 使用该名称的订单项数量，数量为0时从索引中删除；由SearchIndexService加锁保护
+         */
+        private final Map<String, Long> productCounts = new HashMap<>();
+
+        /**
+         * 商品名称统计快照对应的修改序号，重建完成时只重放之后的商品名称修改
+         */
+        private long productsWatermark;
+
+        Indexes() {
+            this(new TrigramIndex<>());
+        }
+
+        Indexes(TrigramIndex<Long, UserSummary> users) {
+            this.users = users;
+        }
+
+        void addProduct(String name, long count) {
+            if (productCounts.merge(name, count, Long::sum) == count) {
+                products.put(name, name, name);
+            }
+        }
+
+        /**
+         * 重放重建期间的删除时，新索引中可能已经没有该名称，数量不会小于0
+         */
+        void removeProduct(String name, long count) {
+            Long current = productCounts.get(name);
+            if (current == null) {
+                return;
+            }
+            if (current <= count) {
+                productCounts.remove(name);
+                products.remove(name);
+            } else {
+                productCounts.put(name, current - count);
+            }
+        }
+    }
+}
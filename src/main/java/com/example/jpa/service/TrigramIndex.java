@@ -0,0 +1,227 @@
+package com.example.jpa.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存三元组倒排索引，支持不区分大小写的子串搜索
+ *
+ * 1. 每个文档的文本转为小写后拆成连续的三个字符（三元组），每个三元组记录包含它的文档
+ * 2. 搜索时取关键词所有三元组的倒排表求交集得到候选文档，再用indexOf确认，不会误报
+ * 3. 少于三个字符的关键词无法使用三元组，直接扫描全部文档（仍在内存中完成）
+ * 4. 结果排序：完全匹配 > 前缀匹配 > 其他；同一级别按匹配位置、文本长度、插入顺序排序
+ * 5. 读写锁保护，搜索之间可以并发
+ *
+ * @param <K> 文档键，如实体id
+ * @param <V> 搜索结果中返回的值
+ */
+public class TrigramIndex<K, V> {
+
+    private final Map<K, Document<V>> documents = new HashMap<>();
+    private final Map<Long, Set<K>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long sequence;
+
+    /**
+     * 添加或替换文档，text为null时删除文档
+     */
+    public void put(K key, String text, V value) {
+        if (text == null) {
+            remove(key);
+            return;
+        }
+        String normalized = normalize(text);
+        lock.writeLock().lock();
+        try {
+            Document<V> previous = documents.get(key);
+            if (previous != null && previous.text.equals(normalized)) {
+                documents.put(key, new Document<>(normalized, value, previous.order));
+                return;
+            }
+            if (previous != null) {
+                unindex(key, previous.text);
+            }
+            documents.put(key, new Document<>(normalized, value, sequence++));
+            for (long trigram : trigrams(normalized)) {
+                postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(K key) {
+        lock.writeLock().lock();
+        try {
+            Document<V> previous = documents.remove(key);
+            if (previous != null) {
+                unindex(key, previous.text);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 合并另一个索引的全部文档，用于并行构建后汇总；两个索引的键不能重复
+     */
+    public void merge(TrigramIndex<K, V> other) {
+        other.lock.readLock().lock();
+        lock.writeLock().lock();
+        try {
+            other.documents.forEach((key, document) ->
+                    documents.put(key, new Document<>(document.text, document.value, sequence + document.order)));
+            sequence += other.sequence;
+            other.postings.forEach((trigram, keys) ->
+                    postings.computeIfAbsent(trigram, t -> new HashSet<>(keys.size())).addAll(keys));
+        } finally {
+            lock.writeLock().unlock();
+            other.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索包含关键词的文档，按相关度排序后分页
+     */
+    public Page<V> search(String keyword, Pageable pageable) {
+        String query = normalize(keyword);
+        int limit = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE);
+
+        // 只保留前offset+size个结果，复杂度O(n log k)
+        PriorityQueue<Match<V>> top = new PriorityQueue<>(Comparator.<Match<V>>naturalOrder().reversed());
+        long total = 0;
+        lock.readLock().lock();
+        try {
+            for (Document<V> document : candidates(query)) {
+                int position = document.text.indexOf(query);
+                if (position < 0) {
+                    continue;
+                }
+                total++;
+                Match<V> match = new Match<>(document, rank(document.text, query, position), position);
+                if (top.size() < limit) {
+                    top.add(match);
+                } else if (limit > 0 && match.compareTo(top.peek()) < 0) {
+                    top.poll();
+                    top.add(match);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match<V>> sorted = new ArrayList<>(top);
+        sorted.sort(null);
+        List<V> content = new ArrayList<>(pageable.getPageSize());
+        for (int i = (int) Math.min(pageable.getOffset(), sorted.size()); i < sorted.size(); i++) {
+            content.add(sorted.get(i).document.value);
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 候选文档：取关键词各三元组倒排表中最短的一个，再过滤掉不在其他倒排表中的文档
+     */
+    private Iterable<Document<V>> candidates(String query) {
+        if (query.length() < 3) {
+            return documents.values();
+        }
+
+        List<Set<K>> lists = new ArrayList<>();
+        for (long trigram : trigrams(query)) {
+            Set<K> keys = postings.get(trigram);
+            if (keys == null) {
+                return List.of();
+            }
+            lists.add(keys);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        List<Document<V>> result = new ArrayList<>();
+        Set<K> smallest = lists.get(0);
+        for (K key : smallest) {
+            boolean all = true;
+            for (int i = 1; i < lists.size() && all; i++) {
+                all = lists.get(i).contains(key);
+            }
+            if (all) {
+                result.add(documents.get(key));
+            }
+        }
+        return result;
+    }
+
+    private void unindex(K key, String text) {
+        for (long trigram : trigrams(text)) {
+            Set<K> keys = postings.get(trigram);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    private static int rank(String text, String query, int position) {
+        if (position > 0) {
+            return 2;
+        }
+        return text.length() == query.length() ? 0 : 1;
+    }
+
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 文本的所有不重复三元组，每个三元组的三个字符编码为一个long
+     */
+    static Set<Long> trigrams(String text) {
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    private record Document<V>(String text, V value, long order) {
+    }
+
+    private record Match<V>(Document<V> document, int rank, int position) implements Comparable<Match<V>> {
+
+        @Override
+        public int compareTo(Match<V> other) {
+            int result = Integer.compare(rank, other.rank);
+            if (result == 0) {
+                result = Integer.compare(position, other.position);
+            }
+            if (result == 0) {
+                result = Integer.compare(document.text.length(), other.document.text.length());
+            }
+            if (result == 0) {
+                result = Long.compare(document.order, other.document.order);
+            }
+            return result;
+        }
+    }
+}
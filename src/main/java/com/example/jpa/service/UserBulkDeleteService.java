@@ -0,0 +1,68 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.JobStatus;
+import com.example.jpa.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 用户批量删除
+ *
+ * 派生删除方法deleteByAge会加载每个匹配的用户及其订单，再逐行删除，全部在一个长事务中完成。
+ * 这里改为后台任务：
+ * 1. 按主键顺序每次取chunkSize个匹配的用户id（键集分页，不使用OFFSET）
+ * 2. 每批在独立的短事务中用集合操作删除订单项、订单、部门关联和用户
+ * 3. 每批提交后更新任务进度，失败时已提交的批次保留，任务状态为FAILED
+ */
+@Service
+@Slf4j
+public class UserBulkDeleteService {
+
+    public static final String JOB_TYPE = "delete-users-by-age";
+
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final BackgroundJobService backgroundJobService;
+    private final int chunkSize;
+
+    public UserBulkDeleteService(UserService userService,
+                                 UserRepository userRepository,
+                                 BackgroundJobService backgroundJobService,
+                                 @Value("${app.bulk-delete.chunk-size:500}") int chunkSize) {
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.backgroundJobService = backgroundJobService;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 提交按年龄删除用户的后台任务，返回任务状态
+     */
+    public JobStatus deleteUsersByAge(Integer age) {
+        log.info("提交按年龄删除用户任务: {}", age);
+        return backgroundJobService.submit(JOB_TYPE, job -> deleteUsersByAge(age, job));
+    }
+
+    /**
+     * 分块删除指定年龄的用户，返回结果说明
+     */
+    String deleteUsersByAge(Integer age, BackgroundJob job) {
+        job.setTotal(userRepository.countByAge(age));
+
+        long afterId = Long.MIN_VALUE;
+        int chunks = 0;
+        while (true) {
+            List<Long> ids = userService.findUserIdsByAge(age, afterId, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            job.addProcessed(userService.deleteUsersByIds(ids));
+            afterId = ids.get(ids.size() - 1);
+            chunks++;
+        }
+        return String.format("年龄为%d的用户已删除: %d个，共%d批", age, job.getProcessed(), chunks);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.jpa.service;
+
+import com.example.jpa.config.Workload;
+import com.example.jpa.config.WorkloadType;
+import com.example.jpa.entity.User;
+import com.example.jpa.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 用户导出服务
+ * 
+ * 通过Stream<User>逐行读取并直接写入输出流，
+ * 每处理一批数据就清空持久化上下文，内存占用与表大小无关
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserExportService {
+    
+    /**
+     * 每写出多少行清空一次持久化上下文
+     */
+    private static final int CLEAR_INTERVAL = 1000;
+    
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+        
+        private final String contentType;
+        private final String extension;
+        
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+        
+        public String getContentType() {
+            return contentType;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+    }
+    
+    /**
+     * 导出所有用户到输出流，返回导出的行数
+     */
+    @Transactional(readOnly = true)
+    @Workload(WorkloadType.REPORTING)
+    public long exportUsers(Format format, OutputStream outputStream) throws IOException {
+        log.info("开始导出用户: format={}", format);
+        
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        JsonGenerator generator = null;
+        if (format == Format.NDJSON) {
+            generator = JSON_FACTORY.createGenerator(writer);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // 每行之间用换行分隔，不使用默认的空格
+            generator.setRootValueSeparator(null);
+        } else {
+            writer.write("id,username,email,age,createdAt,updatedAt\n");
+        }
+        
+        long count = 0;
+        try (Stream<User> users = userRepository.streamAllUsers()) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+                if (generator != null) {
+                    writeJson(generator, user);
+                } else {
+                    writeCsv(writer, user);
+                }
+                
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                    if (generator != null) {
+                        generator.flush();
+                    }
+                    writer.flush();
+                }
+            }
+        }
+        
+        if (generator != null) {
+            generator.close();
+        }
+        writer.flush();
+        log.info("用户导出完成: format={}, 行数={}", format, count);
+        return count;
+    }
+    
+    private void writeJson(JsonGenerator generator, User user) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", user.getId());
+        generator.writeStringField("username", user.getUsername());
+        generator.writeStringField("email", user.getEmail());
+        if (user.getAge() == null) {
+            generator.writeNullField("age");
+        } else {
+            generator.writeNumberField("age", user.getAge());
+        }
+        generator.writeStringField("createdAt", format(user.getCreatedAt()));
+        generator.writeStringField("updatedAt", format(user.getUpdatedAt()));
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+    
+    private void writeCsv(Writer writer, User user) throws IOException {
+        writer.write(String.valueOf(user.getId()));
+        writer.write(',');
+        writer.write(escapeCsv(user.getUsername()));
+        writer.write(',');
+        writer.write(escapeCsv(user.getEmail()));
+        writer.write(',');
+        writer.write(user.getAge() == null ? "" : String.valueOf(user.getAge()));
+        writer.write(',');
+        writer.write(nullToEmpty(format(user.getCreatedAt())));
+        writer.write(',');
+        writer.write(nullToEmpty(format(user.getUpdatedAt())));
+        writer.write('\n');
+    }
+    
+    /**
+     * 包含逗号、引号或换行的值用双引号包裹，内部引号加倍
+     */
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+    
+    private static String format(LocalDateTime time) {
+        return time == null ? null : time.toString();
+    }
+    
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
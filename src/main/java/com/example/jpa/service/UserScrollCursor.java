@@ -0,0 +1,94 @@
+package com.example.jpa.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户游标（Keyset分页）编解码
+ * 
+ * 游标中保存排序字段、排序方向以及上一页最后一行的排序键（排序字段 + id），
+ * 编码为URL安全的Base64字符串，对客户端是不透明的。
+ * 
+ * 只允许按非空列排序：age可以为null，无法作为keyset比较条件。
+ */
+record UserScrollCursor(String sortBy, Sort.Direction direction, Map<String, Object> keys) {
+    
+    /**
+     * 允许作为游标排序键的字段
+     */
+    static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "username", "email", "createdAt");
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    /**
+     * 编码为不透明游标
+     */
+    String encode() {
+        Map<String, String> payload = new LinkedHashMap<>();
+        payload.put("sortBy", sortBy);
+        payload.put("direction", direction.name());
+        keys.forEach((property, value) -> payload.put("key." + property, String.valueOf(value)));
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(payload);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("游标编码失败", e);
+        }
+    }
+    
+    /**
+     * 解码游标，游标无效时抛出IllegalArgumentException
+     */
+    static UserScrollCursor decode(String token) {
+        Map<String, String> payload;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(token);
+            payload = MAPPER.readValue(new String(json, StandardCharsets.UTF_8), new TypeReference<>() {});
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new IllegalArgumentException("无效的游标: " + token, e);
+        }
+        
+        String sortBy = payload.get("sortBy");
+        String direction = payload.get("direction");
+        if (sortBy == null || direction == null || !SORTABLE_PROPERTIES.contains(sortBy)) {
+            throw new IllegalArgumentException("无效的游标: " + token);
+        }
+        
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            payload.forEach((name, value) -> {
+                if (name.startsWith("key.")) {
+                    String property = name.substring("key.".length());
+                    keys.put(property, parseKey(property, value));
+                }
+            });
+            if (!keys.containsKey(sortBy) || !keys.containsKey("id")) {
+                throw new IllegalArgumentException("游标缺少排序键");
+            }
+            return new UserScrollCursor(sortBy, Sort.Direction.fromString(direction), keys);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的游标: " + token, e);
+        }
+    }
+    
+    /**
+     * 按字段类型还原排序键
+     */
+    private static Object parseKey(String property, String value) {
+        return switch (property) {
+            case "id" -> Long.valueOf(value);
+            case "username", "email" -> value;
+            case "createdAt" -> LocalDateTime.parse(value);
+            default -> throw new IllegalArgumentException("不支持的游标字段: " + property);
+        };
+    }
+}
@@ -1,18 +1,52 @@
 package com.example.jpa.service;
 
+import com.example.jpa.config.Workload;
+import com.example.jpa.config.WorkloadType;
+import com.example.jpa.dto.CursorPage;
+import com.example.jpa.dto.DepartmentMembershipChange;
+import com.example.jpa.dto.DepartmentMembershipResult;
+import com.example.jpa.dto.DepartmentUserCount;
+import com.example.jpa.dto.ProductNameCount;
+import com.example.jpa.dto.UserBatchError;
+import com.example.jpa.dto.UserBatchResult;
+import com.example.jpa.dto.UserDetail;
+import com.example.jpa.dto.UserPatch;
+import com.example.jpa.dto.UserStatistics;
+import com.example.jpa.dto.UserSummary;
 import com.example.jpa.entity.Department;
+import com.example.jpa.entity.Order;
 import com.example.jpa.entity.User;
+import com.example.jpa.repository.ArchivedOrderRepository;
+import com.example.jpa.repository.DepartmentMemberCountRepository;
 import com.example.jpa.repository.DepartmentRepository;
+import com.example.jpa.repository.OrderRepository;
 import com.example.jpa.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * 用户服务类
@@ -31,8 +65,23 @@ import java.util.Optional;
 @Transactional(readOnly = true)
 public class UserService {
     
+    /**
+     * 批量校验时每个IN查询包含的最大参数个数
+     */
+    private static final int VALIDATION_CHUNK_SIZE = 500;
+    
+    /**
+     * 批量调整部门成员时每条INSERT、DELETE语句包含的最大用户数
+     */
+    private static final int MEMBERSHIP_CHUNK_SIZE = 1000;
+    
     private final UserRepository userRepository;
     private final DepartmentRepository departmentRepository;
+    private final DepartmentMemberCountRepository departmentMemberCountRepository;
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final UserStatisticsTracker userStatisticsTracker;
+    private final SearchIndexService searchIndexService;
     
     // ========== 查询方法 ==========
     
@@ -44,6 +93,56 @@ public class UserService {
         return userRepository.findAll();
     }
     
+    // ========== 列表项查询（DTO投影，只读） ==========
+    
+    /**
+     * 查找所有用户的列表项
+     */
+    public List<UserSummary> findAllUserSummaries() {
+        log.info("查询所有用户列表项");
+        return userRepository.findAllSummaries();
+    }
+    
+    /**
+     * 分页查找用户列表项
+     */
+    public Page<UserSummary> findUserSummaries(Pageable pageable) {
+        log.info("分页查询用户列表项: {}", pageable);
+        return userRepository.findSummaries(pageable);
+    }
+    
+    /**
+     * 根据年龄查找用户列表项
+     */
+    public List<UserSummary> findUserSummariesByAge(Integer age) {
+        log.info("根据年龄查询用户列表项: {}", age);
+        return userRepository.findSummariesByAge(age);
+    }
+    
+    /**
+     * 根据年龄范围查找用户列表项
+     */
+    public List<UserSummary> findUserSummariesByAgeRange(Integer minAge, Integer maxAge) {
+        log.info("根据年龄范围查询用户列表项: {} - {}", minAge, maxAge);
+        return userRepository.findSummariesByAgeBetween(minAge, maxAge);
+    }
+    
+    /**
+     * 根据用户名关键词查找用户列表项
+     */
+    public List<UserSummary> findUserSummariesByUsernameKeyword(String keyword) {
+        log.info("根据用户名关键词查询用户列表项: {}", keyword);
+        return userRepository.findSummariesByUsernameKeyword(keyword);
+    }
+    
+    /**
+     * 根据用户名关键词分页查找用户列表项（数据库LIKE查询，按ID排序）
+     */
+    public Page<UserSummary> findUserSummariesByUsernameKeyword(String keyword, Pageable pageable) {
+        log.info("根据用户名关键词分页查询用户列表项: {}, page={}", keyword, pageable.getPageNumber());
+        return userRepository.findSummariesByUsernameKeyword(keyword, pageable);
+    }
+    
     /**
      * 根据ID查找用户
      */
@@ -52,6 +151,30 @@ public class UserService {
         return userRepository.findById(id);
     }
     
+    /**
+     * 根据ID查找用户详情，只加载expand中请求的关联
+     * 
+     * 1. 部门：通过User.departments实体图与用户在同一条查询中加载
+     * 2. 订单：通过Order.items实体图用一条查询加载全部订单及订单项
+     * 
+     * 查询条数与部门和订单的数量无关，最多2条
+     */
+    public Optional<UserDetail> findUserDetail(Long id, Set<UserDetail.Expand> expand) {
+        log.info("根据ID查找用户详情: {}, expand={}", id, expand);
+        
+        boolean withDepartments = expand.contains(UserDetail.Expand.DEPARTMENTS);
+        Optional<User> user = withDepartments
+                ? userRepository.findWithDepartmentsById(id)
+                : userRepository.findById(id);
+        
+        return user.map(u -> {
+            List<Order> orders = expand.contains(UserDetail.Expand.ORDERS)
+                    ? orderRepository.findWithItemsByUserIdOrderByIdAsc(u.getId())
+                    : null;
+            return UserDetail.of(u, withDepartments, orders);
+        });
+    }
+    
     /**
      * 根据用户名查找用户
      */
@@ -100,12 +223,55 @@ public class UserService {
         return userRepository.findAll(pageable);
     }
     
+    /**
+     * 游标分页查询用户
+     * 
+     * cursor为空时从第一页开始，此时按sortBy和direction排序；
+     * cursor不为空时排序方式以游标中记录的为准。
+     */
+    public CursorPage<User> scrollUsers(String sortBy, Sort.Direction direction, int size, String cursor) {
+        log.info("游标分页查询用户: sortBy={}, direction={}, size={}", sortBy, direction, size);
+        
+        if (size < 1 || size > 100) {
+            throw new IllegalArgumentException("分页大小必须在1到100之间: " + size);
+        }
+        
+        ScrollPosition position;
+        if (cursor == null || cursor.isBlank()) {
+            if (!UserScrollCursor.SORTABLE_PROPERTIES.contains(sortBy)) {
+                throw new IllegalArgumentException("不支持的排序字段: " + sortBy);
+            }
+            position = ScrollPosition.keyset();
+        } else {
+            UserScrollCursor decoded = UserScrollCursor.decode(cursor);
+            sortBy = decoded.sortBy();
+            direction = decoded.direction();
+            position = ScrollPosition.forward(decoded.keys());
+        }
+        
+        // id作为第二排序键，保证排序键唯一
+        Sort sort = Sort.by(direction, sortBy);
+        if (!"id".equals(sortBy)) {
+            sort = sort.and(Sort.by(direction, "id"));
+        }
+        
+        Window<User> window = userRepository.findBy(position, sort, Limit.of(size));
+        
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+            nextCursor = new UserScrollCursor(sortBy, direction, last.getKeys()).encode();
+        }
+        return new CursorPage<>(window.getContent(), nextCursor, window.hasNext(), size);
+    }
+    
     /**
      * 获取用户统计信息
+     * 由UserStatisticsTracker增量维护，不再每次执行全表聚合
      */
-    public Object[] getUserStatistics() {
+    public UserStatistics getUserStatistics() {
         log.info("获取用户统计信息");
-        return userRepository.getUserStatistics();
+        return userStatisticsTracker.getStatistics();
     }
     
     /**
@@ -113,7 +279,7 @@ public class UserService {
      */
     public Double getAverageAge() {
         log.info("获取用户平均年龄");
-        return userRepository.getAverageAge();
+        return userStatisticsTracker.getAverageAge();
     }
     
     // ========== 创建方法 ==========
@@ -145,37 +311,104 @@ public class UserService {
     
     /**
      * 批量创建用户
+     * 
+     * 先对整批数据做集合式校验，再一次性saveAll：
+     * 1. 用户名、邮箱为空以及年龄无效的行在内存中检查
+     * 2. 批次内部重复的用户名、邮箱在内存中检查
+     * 3. 与数据库已有数据冲突的用户名、邮箱通过分块IN查询检查
+     * 只要存在错误就不保存任何用户，并返回所有出错的行
      */
     @Transactional
-    public List<User> createUsers(List<User> users) {
+    @Workload(WorkloadType.BATCH)
+    public UserBatchResult createUsers(List<User> users) {
         log.info("批量创建用户，数量: {}", users.size());
         
-        for (User user : users) {
-            // 验证用户名是否已存在
-            if (userRepository.findByUsername(user.getUsername()).isPresent()) {
-                throw new RuntimeException("用户名已存在: " + user.getUsername());
-            }
+        List<UserBatchError> errors = new ArrayList<>();
+        Map<String, Integer> usernames = new LinkedHashMap<>();
+        Map<String, Integer> emails = new LinkedHashMap<>();
+        
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
             
-            // 验证邮箱是否已存在
-            if (userRepository.findByEmail(user.getEmail()).isPresent()) {
-                throw new RuntimeException("邮箱已存在: " + user.getEmail());
+            if (user.getAge() != null && (user.getAge() < 0 || user.getAge() > 150)) {
+                errors.add(new UserBatchError(i, "age", String.valueOf(user.getAge()), "年龄无效"));
             }
+            collectDuplicate(i, "username", user.getUsername(), usernames, errors);
+            collectDuplicate(i, "email", user.getEmail(), emails, errors);
+        }
+        
+        collectExisting("username", users, User::getUsername, usernames, userRepository::findExistingUsernames, errors);
+        collectExisting("email", users, User::getEmail, emails, userRepository::findExistingEmails, errors);
+        
+        if (!errors.isEmpty()) {
+            log.warn("批量创建用户校验失败，错误行数: {}", errors.size());
+            errors.sort((a, b) -> Integer.compare(a.index(), b.index()));
+            return new UserBatchResult(List.of(), errors);
         }
         
-        return userRepository.saveAll(users);
+        return new UserBatchResult(userRepository.saveAll(users), List.of());
+    }
+    
+    /**
+     * 检查必填字段以及批次内部的重复值
+     * 比较时忽略大小写，与MySQL默认排序规则下唯一索引的行为一致
+     */
+    private void collectDuplicate(int index, String field, String value,
+                                  Map<String, Integer> seen, List<UserBatchError> errors) {
+        if (value == null || value.isBlank()) {
+            errors.add(new UserBatchError(index, field, value, "不能为空"));
+            return;
+        }
+        Integer first = seen.putIfAbsent(value.toLowerCase(Locale.ROOT), index);
+        if (first != null) {
+            errors.add(new UserBatchError(index, field, value, "与第" + first + "行重复"));
+        }
+    }
+    
+    /**
+     * 分块查询数据库中已存在的值
+     */
+    private void collectExisting(String field, List<User> users, Function<User, String> getter,
+                                 Map<String, Integer> values, Function<List<String>, List<String>> finder,
+                                 List<UserBatchError> errors) {
+        // 每个值取首次出现时的原始写法作为查询参数
+        List<String> distinct = new ArrayList<>(values.size());
+        for (Integer index : values.values()) {
+            distinct.add(getter.apply(users.get(index)));
+        }
+        
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < distinct.size(); from += VALIDATION_CHUNK_SIZE) {
+            List<String> chunk = distinct.subList(from, Math.min(from + VALIDATION_CHUNK_SIZE, distinct.size()));
+            for (String value : finder.apply(chunk)) {
+                existing.add(value.toLowerCase(Locale.ROOT));
+            }
+        }
+        
+        for (String value : existing) {
+            Integer index = values.get(value);
+            if (index != null) {
+                errors.add(new UserBatchError(index, field, getter.apply(users.get(index)), "已存在"));
+            }
+        }
     }
     
     // ========== 更新方法 ==========
     
     /**
      * 更新用户信息
+     * expectedVersion不为null时，用户的当前版本号必须与之相同；
+     * 读取之后其他事务提交的修改在提交时由@Version检测，抛出OptimisticLockingFailureException
      */
     @Transactional
-    public User updateUser(Long id, User userDetails) {
+    public User updateUser(Long id, User userDetails, Long expectedVersion) {
         log.info("更新用户信息: {}", id);
         
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("用户不存在: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new OptimisticLockingFailureException("用户已被修改: " + id);
+        }
         
         // 检查用户名是否被其他用户使用
         if (!user.getUsername().equals(userDetails.getUsername())) {
@@ -217,6 +450,51 @@ public class UserService {
         return userRepository.save(user);
     }
     
+    /**
+     * 部分更新用户，返回更新后的用户
+     * 
+     * 按主键读取用户（通常命中二级缓存），只修改提供的字段；User使用@DynamicUpdate，
+     * UPDATE语句只包含修改过的列并带有版本条件，期望的版本号不同或并发修改时抛出OptimisticLockingFailureException。
+     * 走实体更新而不是批量UPDATE：只替换这一个用户的缓存条目，统计信息和搜索索引由实体监听器增量更新
+     */
+    @Transactional
+    public User patchUser(Long id, UserPatch patch, Long expectedVersion) {
+        log.info("部分更新用户: {}", id);
+        
+        if (patch.isEmpty()) {
+            throw new RuntimeException("没有需要更新的字段");
+        }
+        if (patch.age() != null && (patch.age() < 0 || patch.age() > 150)) {
+            throw new RuntimeException("年龄无效: " + patch.age());
+        }
+        
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("用户不存在: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new OptimisticLockingFailureException("用户已被修改: " + id);
+        }
+        if (patch.username() != null && !patch.username().equals(user.getUsername())
+                && userRepository.existsByUsernameAndIdNot(patch.username(), id)) {
+            throw new RuntimeException("用户名已存在: " + patch.username());
+        }
+        if (patch.email() != null && !patch.email().equals(user.getEmail())
+                && userRepository.existsByEmailAndIdNot(patch.email(), id)) {
+            throw new RuntimeException("邮箱已存在: " + patch.email());
+        }
+        
+        if (patch.username() != null) {
+            user.setUsername(patch.username());
+        }
+        if (patch.email() != null) {
+            user.setEmail(patch.email());
+        }
+        if (patch.age() != null) {
+            user.setAge(patch.age());
+        }
+        // 立即flush，使版本冲突在方法内抛出，返回的用户带有新的版本号
+        return userRepository.saveAndFlush(user);
+    }
+    
     // ========== 删除方法 ==========
     
     /**
@@ -230,52 +508,146 @@ public class UserService {
             throw new RuntimeException("用户不存在: " + id);
         }
         
+        // 归档订单与用户没有实体关联，不会级联删除
+        archivedOrderRepository.deleteOrderItemsByUserIds(List.of(id));
+        archivedOrderRepository.deleteByUserIds(List.of(id));
+        // 部门关联随用户实体删除，DepartmentMemberCountListener在删除关联前减去部门成员数
         userRepository.deleteById(id);
     }
     
     /**
-     * 根据年龄删除用户
+     * 按主键顺序查询下一批指定年龄的用户id
+     */
+    public List<Long> findUserIdsByAge(Integer age, Long afterId, int limit) {
+        return userRepository.findIdsByAgeAfter(age, afterId, Limit.of(limit));
+    }
+    
+    /**
+     * 用集合操作删除一批用户，返回删除的用户数量
+     * 
+     * 依次删除订单项、订单、归档订单、部门关联和用户，每种数据一条DELETE语句，不加载实体；
+     * 删除部门关联之前先减去各部门的成员数；
+     * 批量语句不经过实体监听器，提交后直接更新用户统计信息和搜索索引
      */
     @Transactional
-    public void deleteUsersByAge(Integer age) {
-        log.info("根据年龄删除用户: {}", age);
-        userRepository.deleteByAge(age);
+    @Workload(WorkloadType.BATCH)
+    public int deleteUsersByIds(List<Long> ids) {
+        List<ProductNameCount> products = orderRepository.countOrderItemsByProductNameForUsers(ids);
+        int items = orderRepository.deleteOrderItemsByUserIds(ids);
+        int orders = orderRepository.deleteByUserIds(ids);
+        archivedOrderRepository.deleteOrderItemsByUserIds(ids);
+        int archivedOrders = archivedOrderRepository.deleteByUserIds(ids);
+        departmentMemberCountRepository.subtractMembersForUsers(ids);
+        int links = userRepository.deleteDepartmentLinksByUserIds(ids);
+        int users = userRepository.deleteAllByIds(ids);
+        log.debug("批量删除用户: 用户={}, 订单={}, 订单项={}, 归档订单={}, 部门关联={}",
+                users, orders, items, archivedOrders, links);
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userStatisticsTracker.invalidate();
+                ids.forEach(searchIndexService::onUserDeleted);
+                searchIndexService.onProductNamesRemoved(products);
+            }
+        });
+        return users;
     }
     
     // ========== 部门相关方法 ==========
     
     /**
-     * 为用户添加部门
+     * 为用户添加部门，返回带部门列表的用户详情
+     * 
+     * 直接插入user_departments表，不加载用户的部门集合和部门的用户集合；
+     * 已经属于该部门时不插入，也不重复计数
      */
     @Transactional
-    public User addDepartmentToUser(Long userId, Long departmentId) {
+    public UserDetail addDepartmentToUser(Long userId, Long departmentId) {
         log.info("为用户添加部门: 用户ID={}, 部门ID={}", userId, departmentId);
         
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在: " + userId));
-        
-        Department department = departmentRepository.findById(departmentId)
-                .orElseThrow(() -> new RuntimeException("部门不存在: " + departmentId));
-        
-        user.addDepartment(department);
-        return userRepository.save(user);
+        lockDepartment(departmentId);
+        addMembers(departmentId, List.of(userId));
+        return requireUserWithDepartments(userId);
     }
     
     /**
-     * 从用户移除部门
+     * 从用户移除部门，返回带部门列表的用户详情
      */
     @Transactional
-    public User removeDepartmentFromUser(Long userId, Long departmentId) {
+    public UserDetail removeDepartmentFromUser(Long userId, Long departmentId) {
         log.info("从用户移除部门: 用户ID={}, 部门ID={}", userId, departmentId);
         
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在: " + userId));
+        lockDepartment(departmentId);
+        removeMembers(departmentId, List.of(userId));
+        return requireUserWithDepartments(userId);
+    }
+    
+    /**
+     * 批量调整部门成员：先移除、再加入，整体在一个事务中完成
+     * 
+     * 用户id按MEMBERSHIP_CHUNK_SIZE分批，每批一条INSERT ... SELECT或DELETE语句，
+     * 不存在的用户被忽略，部门成员数按实际插入、删除的行数增减；
+     * 开始前锁定部门，同一部门的并发调整依次执行
+     */
+    @Transactional
+    @Workload(WorkloadType.BATCH)
+    public DepartmentMembershipResult changeDepartmentMembers(Long departmentId, DepartmentMembershipChange change) {
+        log.info("批量调整部门成员: 部门ID={}, 加入={}, 移除={}", departmentId, change.add().size(), change.remove().size());
         
-        Department department = departmentRepository.findById(departmentId)
-                .orElseThrow(() -> new RuntimeException("部门不存在: " + departmentId));
+        lockDepartment(departmentId);
+        int removed = removeMembers(departmentId, change.remove());
+        int added = addMembers(departmentId, change.add());
+        return new DepartmentMembershipResult(departmentId, added, removed);
+    }
+    
+    /**
+     * 锁定部门，同一部门的成员调整依次执行，后执行的INSERT能看到先提交的关联，不会重复插入
+     */
+    private void lockDepartment(Long departmentId) {
+        if (departmentRepository.lockById(departmentId).isEmpty()) {
+            throw new RuntimeException("部门不存在: " + departmentId);
+        }
+    }
+    
+    private UserDetail requireUserWithDepartments(Long userId) {
+        return findUserDetail(userId, EnumSet.of(UserDetail.Expand.DEPARTMENTS))
+                .orElseThrow(() -> new RuntimeException("用户不存在: " + userId));
+    }
+    
+    private int addMembers(Long departmentId, List<Long> userIds) {
+        List<Long> distinct = userIds.stream().filter(Objects::nonNull).distinct().toList();
+        int added = 0;
+        for (int from = 0; from < distinct.size(); from += MEMBERSHIP_CHUNK_SIZE) {
+            added += departmentRepository.insertMembers(departmentId,
+                    distinct.subList(from, Math.min(from + MEMBERSHIP_CHUNK_SIZE, distinct.size())));
+        }
+        if (added > 0) {
+            departmentMemberCountRepository.addMemberCount(departmentId, added);
+        }
+        return added;
+    }
+    
+    private int removeMembers(Long departmentId, List<Long> userIds) {
+        List<Long> distinct = userIds.stream().filter(Objects::nonNull).distinct().toList();
+        int removed = 0;
+        for (int from = 0; from < distinct.size(); from += MEMBERSHIP_CHUNK_SIZE) {
+            removed += departmentRepository.deleteMembers(departmentId,
+                    distinct.subList(from, Math.min(from + MEMBERSHIP_CHUNK_SIZE, distinct.size())));
+        }
+        if (removed > 0) {
+            departmentMemberCountRepository.addMemberCount(departmentId, -removed);
+        }
+        return removed;
+    }
+    
+    /**
+     * 获取所有部门及其成员数，按部门名称排序
+     */
+    public List<DepartmentUserCount> getDepartmentsWithUserCount() {
+        log.info("获取部门及其成员数");
         
-        user.removeDepartment(department);
-        return userRepository.save(user);
+        return departmentRepository.findDepartmentsWithUserCount();
     }
     
     /**
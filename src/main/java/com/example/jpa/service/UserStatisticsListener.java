@@ -0,0 +1,75 @@
+package com.example.jpa.service;
+
+import com.example.jpa.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户实体监听器
+ * 
+ * 在事务提交成功后把用户的新增、年龄修改和删除同步到UserStatisticsTracker，
+ * 回滚的事务不会影响统计信息
+ */
+@Component
+@RequiredArgsConstructor
+public class UserStatisticsListener implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+    
+    private final UserStatisticsTracker tracker;
+    
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof User user) {
+            tracker.onInsert(user.getAge());
+        }
+    }
+    
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof User)) {
+            return;
+        }
+        int ageIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("age");
+        if (event.getOldState() == null) {
+            // 修改前的数据未知（如更新游离对象），只能重新加载
+            tracker.invalidate();
+            return;
+        }
+        Integer oldAge = (Integer) event.getOldState()[ageIndex];
+        Integer newAge = (Integer) event.getState()[ageIndex];
+        if (oldAge == null ? newAge != null : !oldAge.equals(newAge)) {
+            tracker.onUpdate(oldAge, newAge);
+        }
+    }
+    
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof User user) {
+            tracker.onDelete(user.getAge());
+        }
+    }
+    
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return User.class.equals(persister.getMappedClass());
+    }
+    
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+    
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+    
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+}
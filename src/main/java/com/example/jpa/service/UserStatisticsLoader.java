@@ -0,0 +1,33 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.AgeCountSnapshot;
+import com.example.jpa.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 用户统计信息的数据加载
+ */
+@Component
+@RequiredArgsConstructor
+public class UserStatisticsLoader {
+
+    private final UserRepository userRepository;
+
+    /**
+     * 按年龄分组统计用户数量，同时取得统计数据对应的修改序号
+     *
+     * 可重复读隔离级别下事务的快照在第一次读取时确定：先读取一次用户表确定快照，再取修改序号，
+     * 之后的聚合看到的仍是这个快照。序号之前回调的修改已经包含在统计结果中，之后提交的修改不包含
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public AgeCountSnapshot loadAgeCounts(LongSupplier sequence) {
+        userRepository.findIdRange();
+        long watermark = sequence.getAsLong();
+        return new AgeCountSnapshot(watermark, userRepository.countUsersGroupByAge());
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.jpa.service;
+
+import com.example.jpa.config.Workload;
+import com.example.jpa.config.WorkloadType;
+import com.example.jpa.dto.AgeCount;
+import com.example.jpa.dto.AgeCountSnapshot;
+import com.example.jpa.dto.UserStatistics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 用户统计信息增量维护
+ * 
+ * 1. 首次读取时执行一次按年龄分组的聚合查询，建立年龄直方图
+ * 2. 之后由UserStatisticsListener在事务提交后增量更新直方图
+ * 3. 读取时直接返回已计算好的快照，复杂度O(1)
+ * 4. 多个线程同时触发加载时只执行一次查询，其他线程等待同一结果
+ * 5. 定时与数据库校准，修正批量SQL等绕过实体监听器的修改
+ * 6. 加载和校准期间到达的修改按序号记录，查询结果就绪后重放读取快照之后的修改，不会丢失或被覆盖
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserStatisticsTracker {
+    
+    private final UserStatisticsLoader loader;
+    
+    /**
+     * 年龄 -> 用户数量，不包含年龄为null的用户，由this加锁保护
+     */
+    private TreeMap<Integer, Long> ageCounts;
+    private long nonNullCount;
+    private long nullAgeCount;
+    private long ageSum;
+    
+    /**
+     * 修改序号，每次增量修改加一，由this加锁保护
+     */
+    private long sequence;
+    
+    /**
+     * 加载或校准期间记录的修改，没有进行中的查询时为null，由this加锁保护
+     */
+    private List<Change> pending;
+    
+    /**
+     * 进行中的加载和校准数量，降为0时清空pending
+     */
+    private int running;
+    
+    /**
+     * 最新快照，为null表示尚未加载或已失效
+     */
+    private volatile Snapshot snapshot;
+    
+    /**
+     * 正在进行的加载，用于合并并发读取
+     */
+    private CompletableFuture<Snapshot> loading;
+    
+    /**
+     * 获取用户统计信息
+     */
+    public UserStatistics getStatistics() {
+        return current().statistics();
+    }
+    
+    /**
+     * 获取平均年龄（忽略年龄为null的用户），没有数据时返回null
+     */
+    public Double getAverageAge() {
+        return current().averageAge();
+    }
+    
+    /**
+     * 用户新增后调用
+     */
+    public synchronized void onInsert(Integer age) {
+        apply(List.of(new Delta(age, 1)));
+    }
+    
+    /**
+     * 用户年龄修改后调用
+     */
+    public synchronized void onUpdate(Integer oldAge, Integer newAge) {
+        apply(List.of(new Delta(oldAge, -1), new Delta(newAge, 1)));
+    }
+    
+    /**
+     * 用户删除后调用
+     */
+    public synchronized void onDelete(Integer age) {
+        apply(List.of(new Delta(age, -1)));
+    }
+    
+    /**
+     * 标记统计信息失效，下次读取时重新加载
+     * 用于无法得知修改前数据的场景（如批量UPDATE/DELETE）
+     */
+    public synchronized void invalidate() {
+        log.debug("用户统计信息已失效");
+        snapshot = null;
+    }
+    
+    /**
+     * 定时与数据库校准
+     */
+    @Scheduled(fixedDelayString = "${app.user-statistics.reconcile-interval:PT10M}",
+               initialDelayString = "${app.user-statistics.reconcile-interval:PT10M}")
+    @Workload(WorkloadType.REPORTING)
+    public void reconcile() {
+        Snapshot before;
+        synchronized (this) {
+            before = snapshot;
+            if (before == null) {
+                return;
+            }
+            startLoad();
+        }
+        
+        try {
+            AgeCountSnapshot loaded = loader.loadAgeCounts(this::currentSequence);
+            synchronized (this) {
+                if (snapshot == null) {
+                    // 校准期间已失效，查询结果可能早于批量修改，交给下次读取重新加载
+                    return;
+                }
+                rebuild(loaded);
+                Snapshot after = publish();
+                if (!before.statistics().equals(after.statistics())) {
+                    log.warn("用户统计信息校准: {} -> {}", before.statistics(), after.statistics());
+                }
+            }
+        } finally {
+            synchronized (this) {
+                finishLoad();
+            }
+        }
+    }
+    
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        
+        CompletableFuture<Snapshot> future;
+        boolean owner = false;
+        synchronized (this) {
+            if (snapshot != null) {
+                return snapshot;
+            }
+            if (loading == null) {
+                loading = new CompletableFuture<>();
+                owner = true;
+                startLoad();
+            }
+            future = loading;
+        }
+        
+        if (owner) {
+            try {
+                log.info("加载用户统计信息");
+                AgeCountSnapshot counts = loader.loadAgeCounts(this::currentSequence);
+                Snapshot loaded;
+                synchronized (this) {
+                    rebuild(counts);
+                    loaded = publish();
+                    loading = null;
+                    finishLoad();
+                }
+                future.complete(loaded);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    loading = null;
+                    finishLoad();
+                }
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return future.join();
+    }
+    
+    private void apply(List<Delta> deltas) {
+        sequence++;
+        if (pending != null) {
+            pending.add(new Change(sequence, deltas));
+        }
+        if (snapshot == null) {
+            // 尚未加载或已失效，加载完成后由pending重放
+            return;
+        }
+        deltas.forEach(delta -> add(delta.age(), delta.count()));
+        publish();
+    }
+    
+    private synchronized long currentSequence() {
+        return sequence;
+    }
+    
+    private void startLoad() {
+        if (running++ == 0) {
+            pending = new ArrayList<>();
+        }
+    }
+    
+    private void finishLoad() {
+        if (--running == 0) {
+            pending = null;
+        }
+    }
+    
+    /**
+     * 用查询结果重建直方图，再重放读取快照之后的修改
+     * 快照之前的修改已经包含在查询结果中，重放会重复计数
+     */
+    private void rebuild(AgeCountSnapshot loaded) {
+        rebuild(loaded.counts());
+        pending.stream()
+                .filter(change -> change.sequence() > loaded.sequence())
+                .flatMap(change -> change.deltas().stream())
+                .forEach(delta -> add(delta.age(), delta.count()));
+    }
+    
+    private void rebuild(List<AgeCount> counts) {
+        ageCounts = new TreeMap<>();
+        nonNullCount = 0;
+        nullAgeCount = 0;
+        ageSum = 0;
+        for (AgeCount count : counts) {
+            add(count.age(), count.count());
+        }
+    }
+    
+    private void add(Integer age, long delta) {
+        if (age == null) {
+            nullAgeCount += delta;
+            return;
+        }
+        nonNullCount += delta;
+        ageSum += (long) age * delta;
+        ageCounts.merge(age, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+    
+    private Snapshot publish() {
+        long total = nonNullCount + nullAgeCount;
+        
+        UserStatistics statistics;
+        if (total == 0) {
+            statistics = new UserStatistics(0, null, null, null);
+        } else {
+            // 与 AVG/MAX/MIN(COALESCE(age, 0)) 保持一致：null按0计算
+            Integer max = ageCounts.isEmpty() ? null : ageCounts.lastKey();
+            Integer min = ageCounts.isEmpty() ? null : ageCounts.firstKey();
+            if (nullAgeCount > 0) {
+                max = max == null ? 0 : Math.max(max, 0);
+                min = min == null ? 0 : Math.min(min, 0);
+            }
+            statistics = new UserStatistics(total, (double) ageSum / total, max, min);
+        }
+        
+        Double averageAge = nonNullCount == 0 ? null : (double) ageSum / nonNullCount;
+        Snapshot published = new Snapshot(statistics, averageAge);
+        snapshot = published;
+        return published;
+    }
+    
+    private record Snapshot(UserStatistics statistics, Double averageAge) {
+    }
+    
+    private record Delta(Integer age, long count) {
+    }
+    
+    /**
+     * 加载或校准期间记录的修改，sequence为应用顺序
+     */
+    private record Change(long sequence, List<Delta> deltas) {
+    }
+}
@@ -19,4 +19,10 @@ INSERT INTO user_departments (user_id, department_id) VALUES
 (1, 1), -- 张三在技术部
 (2, 2), -- 李四在市场部
 (3, 1), -- 王五在技术部
-(3, 2); -- 王五也在市场部（多对多关系） 
\ No newline at end of file
+(3, 2); -- 王五也在市场部（多对多关系） 
+-- 部门成员数
+INSERT INTO department_member_counts (department_id, member_count)
+SELECT d.id, (SELECT COUNT(*) FROM user_departments ud WHERE ud.department_id = d.id) FROM departments d;
+-- 主键改为序列生成（allocationSize = 50），跳过上面手工指定的id
+ALTER SEQUENCE users_seq RESTART WITH 1000;
+ALTER SEQUENCE departments_seq RESTART WITH 1000;
@@ -0,0 +1,129 @@
+package com.example.jpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数据库并发限制测试
+ */
+@DisplayName("数据库并发限制测试")
+class DatabaseConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("测试并发事务数不超过连接池大小，其余虚拟线程排队等待")
+    void testLimitsConcurrentTransactions() throws Exception {
+        Jobs jobs = proxy(limiter(2, Duration.ofSeconds(5)));
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit(() -> jobs.interactive(() -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                TimeUnit.MILLISECONDS.sleep(20);
+                active.decrementAndGet();
+                return null;
+            })));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(2, maxActive.get());
+        assertEquals(20, meterRegistry.get(DatabaseConcurrencyLimiter.WAIT_METRIC)
+                .tag("pool", "interactive").timer().count());
+    }
+
+    @Test
+    @DisplayName("测试等待超时后失败，不影响其他工作负载")
+    void testTimeout() throws Exception {
+        Jobs jobs = proxy(limiter(1, Duration.ofMillis(100)));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> holder = executor.submit(() -> jobs.interactive(() -> {
+            holding.countDown();
+            release.await();
+            return null;
+        }));
+        holding.await();
+
+        assertThrows(CannotCreateTransactionException.class, () -> jobs.interactive(() -> null));
+        assertEquals("batch", jobs.batch(() -> "batch"));
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertEquals("interactive", jobs.interactive(() -> "interactive"));
+    }
+
+    @Test
+    @DisplayName("测试嵌套的@Transactional调用不重复获取许可")
+    void testNestedCallDoesNotAcquireTwice() throws Exception {
+        Jobs jobs = proxy(limiter(1, Duration.ofMillis(100)));
+
+        assertEquals("nested", jobs.interactive(() -> jobs.interactive(() -> "nested")));
+    }
+
+    private DatabaseConcurrencyLimiter limiter(int poolSize, Duration timeout) {
+        DataSourcePoolsProperties properties = new DataSourcePoolsProperties();
+        for (WorkloadType workload : WorkloadType.values()) {
+            DataSourcePoolsProperties.Pool pool = new DataSourcePoolsProperties.Pool();
+            pool.setMaximumPoolSize(poolSize);
+            pool.setConnectionTimeout(timeout);
+            properties.getWorkloads().put(workload, pool);
+        }
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry));
+        return new DatabaseConcurrencyLimiter(properties, beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    private static Jobs proxy(DatabaseConcurrencyLimiter limiter) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Jobs());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new WorkloadAspect());
+        factory.addAspect(limiter);
+        return factory.getProxy();
+    }
+
+    static class Jobs {
+
+        @Transactional
+        public <T> T interactive(Callable<T> call) throws Exception {
+            return call.call();
+        }
+
+        @Transactional
+        @Workload(WorkloadType.BATCH)
+        public <T> T batch(Callable<T> call) throws Exception {
+            return call.call();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.jpa.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 读写分离路由数据源测试
+ * 
+ * 主库和两个副本是三个独立的H2内存数据库，每个库的server_name表中保存自己的名称
+ */
+@DisplayName("读写分离路由数据源测试")
+class ReadWriteRoutingDataSourceTest {
+    
+    private static final Duration TIMEOUT = Duration.ofSeconds(1);
+    
+    private DelegatingDataSource replica1;
+    private ReadWriteRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+    
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        replica1 = new DelegatingDataSource(database("replica-1"));
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", database("replica-2"));
+        
+        routing = new ReadWriteRoutingDataSource(primary, replicas);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        for (String name : List.of("primary", "replica-1", "replica-2")) {
+            new JdbcTemplate(database(name)).execute("DROP ALL OBJECTS");
+        }
+    }
+    
+    @Test
+    @DisplayName("测试只读事务在副本之间轮询")
+    void testReadOnlyRoundRobin() {
+        assertEquals("replica-1", readOnly.execute(status -> serverName()));
+        assertEquals("replica-2", readOnly.execute(status -> serverName()));
+        assertEquals("replica-1", readOnly.execute(status -> serverName()));
+    }
+    
+    @Test
+    @DisplayName("测试读写事务和非事务访问使用主库")
+    void testWritesUsePrimary() {
+        assertEquals("primary", readWrite.execute(status -> serverName()));
+        assertEquals("primary", serverName());
+    }
+    
+    @Test
+    @DisplayName("测试同一个只读事务内使用同一个副本")
+    void testSameReplicaWithinTransaction() {
+        readOnly.executeWithoutResult(status -> assertEquals(serverName(), serverName()));
+    }
+    
+    @Test
+    @DisplayName("测试不可用的副本被排除并在恢复后重新加入")
+    void testUnhealthyReplicaExcluded() {
+        DataSource original = replica1.getTargetDataSource();
+        replica1.setTargetDataSource(unavailable());
+        
+        // 获取连接失败时本次改用主库，并立即排除该副本
+        assertEquals("primary", readOnly.execute(status -> serverName()));
+        assertEquals(List.of("replica-2"), routing.getHealthyReplicas());
+        assertEquals("replica-2", readOnly.execute(status -> serverName()));
+        assertEquals("replica-2", readOnly.execute(status -> serverName()));
+        
+        routing.checkReplicas(TIMEOUT);
+        assertEquals(List.of("replica-2"), routing.getHealthyReplicas());
+        
+        replica1.setTargetDataSource(original);
+        routing.checkReplicas(TIMEOUT);
+        assertEquals(List.of("replica-1", "replica-2"), routing.getHealthyReplicas());
+    }
+    
+    @Test
+    @DisplayName("测试没有健康副本时只读事务使用主库")
+    void testFallbackToPrimary() {
+        replica1.setTargetDataSource(unavailable());
+        routing = new ReadWriteRoutingDataSource(database("primary"), Map.of("replica-1", replica1));
+        routing.checkReplicas(TIMEOUT);
+        assertTrue(routing.getHealthyReplicas().isEmpty());
+        
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+        
+        assertEquals("primary", readOnly.execute(status -> serverName()));
+    }
+    
+    private String serverName() {
+        return jdbcTemplate.queryForObject("SELECT name FROM server_name", String.class);
+    }
+    
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS server_name (name VARCHAR(20))");
+        if (jdbc.queryForObject("SELECT COUNT(*) FROM server_name", Integer.class) == 0) {
+            jdbc.update("INSERT INTO server_name VALUES (?)", name);
+        }
+        return dataSource;
+    }
+    
+    private static DataSource unavailable() {
+        return new DriverManagerDataSource("jdbc:h2:mem:routing-missing;IFEXISTS=TRUE", "sa", "");
+    }
+}
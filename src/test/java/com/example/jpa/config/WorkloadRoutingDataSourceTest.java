@@ -0,0 +1,181 @@
+package com.example.jpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLTransientConnectionException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按工作负载路由的连接池测试
+ */
+@DisplayName("工作负载连接池测试")
+class WorkloadRoutingDataSourceTest {
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private WorkloadRoutingDataSource dataSource;
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        if (dataSource != null) {
+            dataSource.destroy();
+        }
+    }
+    
+    @Test
+    @DisplayName("测试按@Workload选择连接池")
+    void testRoutesByWorkload() throws Exception {
+        dataSource = dataSource(2, 10);
+        Jobs jobs = proxy(new Jobs());
+        
+        assertEquals("interactive", poolName());
+        assertEquals("batch", jobs.batch(this::poolName));
+        assertEquals("reporting", jobs.reporting(this::poolName));
+        // 嵌套调用结束后恢复外层的工作负载
+        assertEquals("interactive", poolName());
+    }
+    
+    @Test
+    @DisplayName("测试等待线程数超过上限时立即失败，不影响其他连接池")
+    void testBoundedWaitQueue() throws Exception {
+        dataSource = dataSource(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch holding = new CountDownLatch(1);
+        
+        // 占用batch连接池唯一的连接
+        Future<?> holder = executor.submit(() -> inBatch(() -> {
+            try (Connection ignored = dataSource.getConnection()) {
+                holding.countDown();
+                release.await();
+            }
+            return null;
+        }));
+        holding.await();
+        
+        // 第二个batch线程进入等待，占用唯一的等待名额
+        Future<?> waiter = executor.submit(() -> inBatch(() -> {
+            try (Connection ignored = dataSource.getConnection()) {
+                return null;
+            }
+        }));
+        TimeUnit.MILLISECONDS.sleep(200);
+        
+        // 第三个batch线程立即被拒绝
+        assertThrows(SQLTransientConnectionException.class, () -> inBatch(() -> dataSource.getConnection()));
+        assertEquals(1.0, meterRegistry.get(WorkloadRoutingDataSource.REJECTED_METRIC)
+                .tag("pool", "batch").counter().count());
+        
+        // 交互式请求使用自己的连接池，不受影响
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(connection.isValid(1));
+        }
+        
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        waiter.get(5, TimeUnit.SECONDS);
+    }
+    
+    @Test
+    @DisplayName("测试各连接池继承spring.datasource.hikari的公共配置")
+    void testBindsSharedHikariProperties() throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.datasource.hikari.minimum-idle", "1")
+                .withProperty("spring.datasource.hikari.max-lifetime", "600000")
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "50");
+        DataSourcePoolsProperties poolsProperties = new DataSourcePoolsProperties();
+        DataSourcePoolsProperties.Pool batch = new DataSourcePoolsProperties.Pool();
+        batch.setMaximumPoolSize(3);
+        poolsProperties.getWorkloads().put(WorkloadType.BATCH, batch);
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl("jdbc:h2:mem:workload-config;DB_CLOSE_DELAY=-1");
+        properties.setUsername("sa");
+        
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        DataSourceConfig config = new DataSourceConfig(poolsProperties, new DataSourceRoutingProperties(),
+                beanFactory.getBeanProvider(MeterRegistry.class),
+                beanFactory.getBeanProvider(ReadWriteRoutingDataSource.class), environment);
+        dataSource = (WorkloadRoutingDataSource) config.primaryDataSource(properties);
+        
+        for (Map.Entry<Object, DataSource> entry : dataSource.getResolvedDataSources().entrySet()) {
+            HikariDataSource pool = (HikariDataSource) entry.getValue();
+            assertEquals(1, pool.getMinimumIdle());
+            assertEquals(600000, pool.getMaxLifetime());
+            // 连接池名称和最大连接数以各工作负载的配置为准
+            assertEquals(WorkloadRoutingDataSource.poolName((WorkloadType) entry.getKey()), pool.getPoolName());
+            assertEquals(entry.getKey() == WorkloadType.BATCH ? 3 : 10, pool.getMaximumPoolSize());
+        }
+    }
+    
+    /**
+     * 每个连接池连接不同的H2数据库，用数据库名称识别连接来自哪个连接池
+     */
+    private String poolName() throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             ResultSet resultSet = connection.createStatement().executeQuery("SELECT DATABASE()")) {
+            resultSet.next();
+            return resultSet.getString(1).toLowerCase().replace("workload-", "");
+        }
+    }
+    
+    private <T> T inBatch(Callable<T> call) throws Exception {
+        return proxy(new Jobs()).batch(call);
+    }
+    
+    private WorkloadRoutingDataSource dataSource(int poolSize, int maxWaiting) {
+        Map<WorkloadType, DataSource> pools = new EnumMap<>(WorkloadType.class);
+        Map<WorkloadType, Integer> waiting = new EnumMap<>(WorkloadType.class);
+        for (WorkloadType workload : WorkloadType.values()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(WorkloadRoutingDataSource.poolName(workload));
+            pool.setJdbcUrl("jdbc:h2:mem:workload-" + WorkloadRoutingDataSource.poolName(workload) + ";DB_CLOSE_DELAY=-1");
+            pool.setUsername("sa");
+            pool.setMaximumPoolSize(poolSize);
+            pool.setConnectionTimeout(5000);
+            pools.put(workload, pool);
+            waiting.put(workload, maxWaiting);
+        }
+        return new WorkloadRoutingDataSource(pools, waiting, meterRegistry);
+    }
+    
+    private static <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new WorkloadAspect());
+        return factory.getProxy();
+    }
+    
+    static class Jobs {
+        
+        @Workload(WorkloadType.BATCH)
+        public <T> T batch(Callable<T> call) throws Exception {
+            return call.call();
+        }
+        
+        @Workload(WorkloadType.REPORTING)
+        public <T> T reporting(Callable<T> call) throws Exception {
+            return call.call();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.jpa.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 金额值类型和订单总金额测试
+ */
+@DisplayName("金额值类型测试")
+class MoneyTest {
+
+    @Test
+    @DisplayName("测试金额与BigDecimal互相转换")
+    void testBigDecimalConversion() {
+        Money money = Money.of("59.9");
+
+        assertEquals(5990, money.getMinorUnits());
+        assertEquals(new BigDecimal("59.90"), money.toBigDecimal());
+        assertEquals("59.90", money.toString());
+        assertEquals(money, new MoneyConverter().convertToEntityAttribute(new BigDecimal("59.90")));
+        assertThrows(ArithmeticException.class, () -> Money.of("0.001"));
+    }
+
+    @Test
+    @DisplayName("测试金额运算")
+    void testArithmetic() {
+        Money price = Money.of("19.99");
+
+        assertEquals(Money.of("59.97"), price.times(3));
+        assertEquals(Money.of("39.98"), price.plus(price));
+        assertEquals(Money.ZERO, price.minus(price));
+        assertTrue(Money.of("-1").isNegative());
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)));
+    }
+
+    @Test
+    @DisplayName("测试订单总金额计算")
+    void testOrderTotal() {
+        Order order = new Order();
+        order.addOrderItem(item("5999", 1));
+        order.addOrderItem(item("99.50", 2));
+
+        order.calculateTotalAmount();
+
+        assertEquals(Money.of("6198.00"), order.getTotalAmount());
+        assertEquals(Money.of("199.00"), order.getOrderItems().get(1).getSubtotal());
+    }
+
+    @Test
+    @DisplayName("测试订单总金额溢出")
+    void testOrderTotalOverflow() {
+        Order order = new Order();
+        OrderItem item = new OrderItem();
+        item.setPrice(Money.ofMinor(Long.MAX_VALUE / 2));
+        item.setQuantity(3);
+        order.addOrderItem(item);
+
+        assertThrows(ArithmeticException.class, order::calculateTotalAmount);
+    }
+
+    private static OrderItem item(String price, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setPrice(Money.of(price));
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.jpa.monitoring;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求SQL语句数过滤器测试
+ */
+@DisplayName("请求SQL语句数过滤器测试")
+class QueryCountFilterTest {
+    
+    private final QueryCountInspector inspector = new QueryCountInspector();
+    private final QueryCountFilter filter = new QueryCountFilter(20);
+    
+    @Test
+    @DisplayName("测试写出响应体前设置响应头")
+    void testHeaderBeforeBody() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users"), response, (req, res) -> {
+            inspector.inspect("select 1");
+            inspector.inspect("select 2");
+            res.getWriter().write("[]");
+            // 开始写出后的语句只记录到日志
+            inspector.inspect("select 3");
+        });
+        
+        assertEquals("2", response.getHeader(QueryCountFilter.HEADER));
+    }
+    
+    @Test
+    @DisplayName("测试没有响应体的请求")
+    void testHeaderWithoutBody() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        filter.doFilter(new MockHttpServletRequest("DELETE", "/api/users/1"), response,
+                (req, res) -> inspector.inspect("delete from users where id=?"));
+        
+        assertEquals("1", response.getHeader(QueryCountFilter.HEADER));
+    }
+}
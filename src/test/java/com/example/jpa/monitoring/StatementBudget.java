@@ -0,0 +1,28 @@
+package com.example.jpa.monitoring;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * SQL语句预算
+ * 
+ * 标注在测试方法上，测试方法体执行的SQL语句数超过value时测试失败（不包含@BeforeEach中的语句）。
+ * 需要注册QueryCountInspector，例如在测试属性中设置
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.jpa.monitoring.QueryCountInspector
+ * 
+ * 只需要检查测试中的某一段代码时，使用StatementBudgetExtension.assertMaxStatements
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(StatementBudgetExtension.class)
+public @interface StatementBudget {
+    
+    /**
+     * 允许执行的最大SQL语句数
+     */
+    int value();
+}
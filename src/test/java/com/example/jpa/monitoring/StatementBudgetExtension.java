@@ -0,0 +1,52 @@
+package com.example.jpa.monitoring;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.function.ThrowingSupplier;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.opentest4j.AssertionFailedError;
+
+/**
+ * StatementBudget的JUnit扩展，统计测试方法体执行的SQL语句数
+ */
+public class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+    
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(StatementBudgetExtension.class);
+    
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), QueryCountInspector.currentCount());
+    }
+    
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        long before = context.getStore(NAMESPACE).remove(context.getUniqueId(), Long.class);
+        AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), StatementBudget.class)
+                .ifPresent(budget -> check(budget.value(), QueryCountInspector.currentCount() - before,
+                        context.getDisplayName()));
+    }
+    
+    /**
+     * 执行call并断言其中执行的SQL语句数不超过maxStatements，返回call的结果
+     */
+    public static <T> T assertMaxStatements(int maxStatements, ThrowingSupplier<T> call) {
+        long before = QueryCountInspector.currentCount();
+        T result;
+        try {
+            result = call.get();
+        } catch (Throwable e) {
+            throw new AssertionFailedError("执行失败: " + e.getMessage(), e);
+        }
+        check(maxStatements, QueryCountInspector.currentCount() - before, "代码块");
+        return result;
+    }
+    
+    private static void check(int budget, long actual, String name) {
+        if (actual > budget) {
+            throw new AssertionFailedError(name + " 执行了" + actual + "条SQL语句，超过预算" + budget + "条",
+                    budget, actual);
+        }
+    }
+}
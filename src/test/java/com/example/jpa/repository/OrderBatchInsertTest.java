@@ -0,0 +1,75 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.entity.Money;
+import com.example.jpa.entity.Order;
+import com.example.jpa.entity.OrderItem;
+import com.example.jpa.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单级联保存的JDBC批量插入测试
+ * 
+ * 使用IDENTITY主键时Hibernate无法批量插入，保存1个订单和100个订单项需要101条INSERT；
+ * 使用pooled-lo序列后，订单项按batch_size合并为少量JDBC批次
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:batchinserttest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.sql.init.mode=never"
+})
+@DisplayName("订单批量插入测试")
+class OrderBatchInsertTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("测试保存包含100个订单项的订单")
+    void testSaveOrderWithHundredItems() {
+        User user = new User();
+        user.setUsername("batch_order_user");
+        user.setEmail("batch_order@example.com");
+        userRepository.saveAndFlush(user);
+
+        Order order = new Order();
+        order.setOrderNumber("ORD-BATCH-001");
+        order.setUser(user);
+        for (int i = 0; i < 100; i++) {
+            OrderItem item = new OrderItem();
+            item.setProductName("商品" + i);
+            item.setQuantity(1);
+            item.setPrice(Money.of("9.99"));
+            order.addOrderItem(item);
+        }
+        order.calculateTotalAmount();
+
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        orderRepository.saveAndFlush(order);
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(101, statistics.getEntityInsertCount());
+        assertTrue(statements <= 10, "期望批量插入，实际PreparedStatement数量: " + statements);
+    }
+}
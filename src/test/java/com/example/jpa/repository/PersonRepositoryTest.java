@@ -0,0 +1,88 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.entity.Customer;
+import com.example.jpa.entity.Employee;
+import com.example.jpa.entity.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PersonRepository多态查询测试
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:persontest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never"
+})
+@DisplayName("PersonRepository多态查询测试")
+class PersonRepositoryTest {
+
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 2, Sort.by("id"));
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        for (int i = 0; i < 3; i++) {
+            Employee employee = new Employee();
+            employee.setName("员工" + i);
+            employee.setEmail("employee" + i + "@example.com");
+            employee.setEmployeeId("EMP" + i);
+            personRepository.save(employee);
+
+            Customer customer = new Customer();
+            customer.setName("客户" + i);
+            customer.setEmail("customer" + i + "@example.com");
+            customer.setCustomerId("CUST" + i);
+            personRepository.save(customer);
+        }
+    }
+
+    @Test
+    @DisplayName("测试多态分页查询同时返回员工和客户")
+    void testPolymorphicPaging() {
+        Page<Person> page = personRepository.findAll(FIRST_PAGE);
+
+        assertEquals(6, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+        assertInstanceOf(Employee.class, page.getContent().get(0));
+        assertInstanceOf(Customer.class, page.getContent().get(1));
+    }
+
+    @Test
+    @DisplayName("测试按子类型分页查询")
+    void testPagingBySubtype() {
+        Page<Person> employees = personRepository.findByType(Employee.class, FIRST_PAGE);
+        assertEquals(3, employees.getTotalElements());
+        assertEquals(List.of("员工0", "员工1"), employees.map(Person::getName).getContent());
+
+        Page<Customer> customers = personRepository.findCustomers(FIRST_PAGE.next());
+        assertEquals(3, customers.getTotalElements());
+        assertEquals(List.of("CUST2"), customers.map(Customer::getCustomerId).getContent());
+
+        assertEquals(3, personRepository.findEmployees(FIRST_PAGE).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("测试按邮箱查询返回具体的子类型")
+    void testFindByEmail() {
+        assertInstanceOf(Customer.class, personRepository.findByEmail("customer1@example.com").orElseThrow());
+        assertEquals(2, personRepository.findByNameContaining("1", FIRST_PAGE).getTotalElements());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.config.HibernateListenerConfig;
+import com.example.jpa.dto.DepartmentUserCount;
+import com.example.jpa.dto.OrderStatistics;
+import com.example.jpa.dto.UserStatistics;
+import com.example.jpa.dto.UserSummary;
+import com.example.jpa.dto.UsernameEmail;
+import com.example.jpa.entity.Department;
+import com.example.jpa.entity.Money;
+import com.example.jpa.entity.Order;
+import com.example.jpa.entity.User;
+import com.example.jpa.service.DepartmentMemberCountListener;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 构造器表达式投影查询测试
+ */
+@DataJpaTest
+@Import({HibernateListenerConfig.class, DepartmentMemberCountListener.class})
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:projectiontest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never"
+})
+@DisplayName("投影查询测试")
+class ProjectionQueryTest {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    private User alice;
+    
+    @BeforeEach
+    void setUp() {
+        Department department = new Department();
+        department.setName("研发部");
+        departmentRepository.save(department);
+        
+        alice = user("alice", "alice@example.com", 25);
+        alice.addDepartment(department);
+        userRepository.save(alice);
+        userRepository.save(user("bob", "bob@example.com", 30));
+        
+        orderRepository.save(order("ORD-1", alice, "10.00"));
+        orderRepository.save(order("ORD-2", alice, "20.50"));
+        
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    @Test
+    @DisplayName("测试用户统计投影")
+    void testUserStatistics() {
+        UserStatistics stats = userRepository.getUserStatistics();
+        
+        assertEquals(2L, stats.totalCount());
+        assertEquals(27.5, stats.averageAge(), 0.01);
+        assertEquals(30, stats.maxAge());
+        assertEquals(25, stats.minAge());
+    }
+    
+    @Test
+    @DisplayName("测试用户列表项投影不放入持久化上下文")
+    void testUserSummariesAreNotManaged() {
+        List<UserSummary> summaries = userRepository.findAllSummaries();
+        
+        assertEquals(List.of("alice", "bob"), summaries.stream().map(UserSummary::username).toList());
+        assertNotNull(summaries.get(0).createdAt());
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+    
+    @Test
+    @DisplayName("测试用户列表项分页和排序")
+    void testUserSummaryPage() {
+        Page<UserSummary> page = userRepository.findSummaries(PageRequest.of(0, 1, Sort.by("age").descending()));
+        
+        assertEquals(2, page.getTotalElements());
+        assertEquals("bob", page.getContent().get(0).username());
+        assertEquals(1, userRepository.findSummariesByUsernameKeyword("ALI").size());
+        assertEquals(1, userRepository.findSummariesByAgeBetween(20, 26).size());
+    }
+    
+    @Test
+    @DisplayName("测试用户名和邮箱投影")
+    void testUsernameEmail() {
+        assertTrue(userRepository.findUsernameAndEmail().contains(new UsernameEmail("bob", "bob@example.com")));
+    }
+    
+    @Test
+    @DisplayName("测试订单统计投影")
+    void testOrderStatistics() {
+        OrderStatistics stats = orderRepository.getOrderStatisticsByUserId(alice.getId());
+        
+        assertEquals(2L, stats.orderCount());
+        assertEquals(0, new BigDecimal("30.50").compareTo(stats.totalAmount()));
+        assertEquals(15.25, stats.averageAmount(), 0.001);
+        assertEquals(2L, orderRepository.getOrderStatistics().orderCount());
+    }
+    
+    @Test
+    @DisplayName("测试部门用户数量投影")
+    void testDepartmentUserCount() {
+        List<DepartmentUserCount> counts = departmentRepository.countUsersByDepartment();
+        
+        assertEquals(1, counts.size());
+        assertEquals("研发部", counts.get(0).name());
+        assertEquals(1L, counts.get(0).userCount());
+        
+        // 通过实体关联加入的成员由监听器计入部门成员数
+        assertEquals(counts, departmentRepository.findDepartmentsWithUserCount());
+    }
+    
+    private static User user(String username, String email, Integer age) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setAge(age);
+        return user;
+    }
+    
+    private static Order order(String orderNumber, User user, String amount) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setUser(user);
+        order.setTotalAmount(Money.of(amount));
+        return order;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.config.MetricsConfig;
+import com.example.jpa.entity.User;
+import com.example.jpa.monitoring.RepositoryMetricsEndpoint;
+import com.example.jpa.monitoring.RepositoryQueryMetricsInterceptor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Repository方法指标测试
+ */
+@DataJpaTest
+@Import({MetricsConfig.class, RepositoryMetricsEndpoint.class, RepositoryMetricsTest.MeterRegistryConfig.class})
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:repositorymetricstest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never"
+})
+@DisplayName("Repository方法指标测试")
+class RepositoryMetricsTest {
+    
+    @TestConfiguration
+    static class MeterRegistryConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private RepositoryMetricsEndpoint endpoint;
+    
+    @Test
+    @DisplayName("测试按Repository和方法记录SQL语句数")
+    void testStatementsRecordedPerMethod() {
+        User user = new User();
+        user.setUsername("metrics_user");
+        user.setEmail("metrics@example.com");
+        user.setAge(30);
+        userRepository.saveAndFlush(user);
+        
+        userRepository.findByAgeBetween(20, 40);
+        userRepository.findByAgeBetween(20, 40);
+        
+        DistributionSummary summary = meterRegistry.get(RepositoryQueryMetricsInterceptor.METRIC_NAME)
+                .tag("repository", "UserRepository")
+                .tag("method", "findByAgeBetween")
+                .summary();
+        assertEquals(2, summary.count());
+        assertEquals(2, summary.totalAmount());
+    }
+    
+    @Test
+    @DisplayName("测试端点合并同一方法的成功和失败调用")
+    void testEndpointMergesInvocationStates() {
+        Timer.builder("spring.data.repository.invocations")
+                .tags("repository", "OrderRepository", "method", "findByStatus", "state", "SUCCESS", "exception", "None")
+                .register(meterRegistry)
+                .record(Duration.ofMillis(30));
+        Timer.builder("spring.data.repository.invocations")
+                .tags("repository", "OrderRepository", "method", "findByStatus", "state", "ERROR", "exception", "RuntimeException")
+                .register(meterRegistry)
+                .record(Duration.ofMillis(10));
+        DistributionSummary.builder(RepositoryQueryMetricsInterceptor.METRIC_NAME)
+                .tags("repository", "OrderRepository", "method", "findByStatus")
+                .register(meterRegistry)
+                .record(4);
+        
+        List<RepositoryMetricsEndpoint.MethodMetrics> metrics = endpoint.repositories();
+        RepositoryMetricsEndpoint.MethodMetrics findByStatus = metrics.stream()
+                .filter(m -> m.method().equals("findByStatus"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, findByStatus.count());
+        assertEquals(1, findByStatus.errors());
+        assertEquals(40, findByStatus.totalMs(), 0.001);
+        assertEquals(20, findByStatus.meanMs(), 0.001);
+        assertEquals(4, findByStatus.statements());
+    }
+}
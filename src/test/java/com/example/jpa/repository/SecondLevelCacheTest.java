@@ -0,0 +1,85 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.entity.Department;
+import com.example.jpa.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 二级缓存测试
+ * READ_WRITE缓存只在事务提交后写入，所以测试方法不开启事务，
+ * 每次仓库调用都在独立的事务和持久化上下文中执行
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:cachetest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("二级缓存测试")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        userRepository.deleteAll();
+        departmentRepository.deleteAll();
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("测试部门按id查找命中二级缓存")
+    void testDepartmentCached() {
+        Department department = new Department();
+        department.setName("缓存部");
+        Long id = departmentRepository.save(department).getId();
+
+        departmentRepository.findById(id);
+        statistics.clear();
+
+        assertTrue(departmentRepository.findById(id).isPresent());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("departments").getHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("测试按用户名查找命中自然主键缓存")
+    void testFindByUsernameCached() {
+        User user = new User();
+        user.setUsername("cached_user");
+        user.setEmail("cached@example.com");
+        userRepository.save(user);
+
+        userRepository.findByUsername("cached_user");
+        statistics.clear();
+
+        assertEquals("cached@example.com", userRepository.findByUsername("cached_user").orElseThrow().getEmail());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(userRepository.findByUsername("missing_user").isEmpty());
+    }
+}
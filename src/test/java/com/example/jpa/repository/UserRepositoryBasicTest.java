@@ -1,5 +1,6 @@
 package com.example.jpa.repository;
 
+import com.example.jpa.dto.UserStatistics;
 import com.example.jpa.entity.User;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -67,11 +68,11 @@ class UserRepositoryBasicTest {
         userRepository.save(user2);
 
         // 获取统计信息
-        Object[] stats = userRepository.getUserStatistics();
+        UserStatistics stats = userRepository.getUserStatistics();
 
         // 验证统计结果
         assertNotNull(stats);
-        assertEquals(2L, stats[0]); // 用户总数
-        assertEquals(27.5, (Double) stats[1], 0.01); // 平均年龄
+        assertEquals(2L, stats.totalCount()); // 用户总数
+        assertEquals(27.5, stats.averageAge(), 0.01); // 平均年龄
     }
 } 
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.jpa.repository;
 
+import com.example.jpa.dto.UserStatistics;
 import com.example.jpa.entity.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -92,13 +93,13 @@ class UserRepositoryMySqlTest {
         userRepository.save(testUser2);
 
         // 获取统计信息
-        Object[] stats = userRepository.getUserStatistics();
+        UserStatistics stats = userRepository.getUserStatistics();
 
         // 验证统计结果
         assertNotNull(stats);
-        assertEquals(2L, stats[0]); // 用户总数
-        assertEquals(27.5, (Double) stats[1], 0.01); // 平均年龄
-        assertEquals(30, stats[2]); // 最大年龄
-        assertEquals(25, stats[3]); // 最小年龄
+        assertEquals(2L, stats.totalCount()); // 用户总数
+        assertEquals(27.5, stats.averageAge(), 0.01); // 平均年龄
+        assertEquals(30, stats.maxAge()); // 最大年龄
+        assertEquals(25, stats.minAge()); // 最小年龄
     }
 } 
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.example.jpa.repository;
+
+import com.example.jpa.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserRepository滚动（Keyset）查询测试
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:scrolltest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never"
+})
+@DisplayName("UserRepository滚动查询测试")
+class UserRepositoryScrollTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        for (int i = 0; i < 7; i++) {
+            User user = new User();
+            // 用户名倒序插入，保证按用户名排序与按id排序结果不同
+            user.setUsername("user" + (9 - i));
+            user.setEmail("user" + i + "@example.com");
+            user.setAge(20 + i);
+            userRepository.save(user);
+        }
+    }
+
+    @Test
+    @DisplayName("测试按id滚动遍历所有用户")
+    void testScrollById() {
+        List<Long> ids = new ArrayList<>();
+        ScrollPosition position = ScrollPosition.keyset();
+        Window<User> window;
+        do {
+            window = userRepository.findBy(position, Sort.by("id"), Limit.of(3));
+            window.forEach(user -> ids.add(user.getId()));
+            if (!window.isEmpty()) {
+                position = window.positionAt(window.size() - 1);
+            }
+        } while (window.hasNext());
+
+        assertEquals(7, ids.size());
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1) < ids.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("测试按用户名倒序滚动")
+    void testScrollByUsernameDescending() {
+        Sort sort = Sort.by(Sort.Direction.DESC, "username").and(Sort.by(Sort.Direction.DESC, "id"));
+        Window<User> first = userRepository.findBy(ScrollPosition.keyset(), sort, Limit.of(4));
+
+        assertEquals(4, first.size());
+        assertTrue(first.hasNext());
+        assertEquals("user9", first.getContent().get(0).getUsername());
+
+        KeysetScrollPosition last = (KeysetScrollPosition) first.positionAt(first.size() - 1);
+        assertEquals("user6", last.getKeys().get("username"));
+
+        Window<User> second = userRepository.findBy(ScrollPosition.forward(last.getKeys()), sort, Limit.of(4));
+        assertEquals(3, second.size());
+        assertFalse(second.hasNext());
+        assertEquals("user5", second.getContent().get(0).getUsername());
+        assertEquals("user3", second.getContent().get(2).getUsername());
+    }
+}
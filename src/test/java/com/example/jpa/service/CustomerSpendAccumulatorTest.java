@@ -0,0 +1,206 @@
+package com.example.jpa.service;
+
+import com.example.jpa.entity.Customer;
+import com.example.jpa.entity.Money;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 客户消费累加器测试
+ *
+ * 不使用测试事务，每次写入真实提交
+ */
+@DataJpaTest
+@Import(CustomerSpendWriter.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:customerspendtest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never",
+    "app.customer-spend.batch-size=2"
+})
+@DisplayName("客户消费累加器测试")
+class CustomerSpendAccumulatorTest {
+
+    @Autowired
+    private CustomerSpendWriter writer;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path journalDirectory;
+
+    private final List<CustomerSpendAccumulator> accumulators = new ArrayList<>();
+    private Long firstId;
+    private Long secondId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM write_behind_checkpoints");
+        jdbcTemplate.update("DELETE FROM persons");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            firstId = customer("张三", "zhangsan@example.com");
+            secondId = customer("李四", "lisi@example.com");
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        accumulators.forEach(CustomerSpendAccumulator::close);
+    }
+
+    @Test
+    @DisplayName("测试并发累加后批量写入，写入的增量不会重复累加")
+    void testConcurrentRecordAndFlush() throws Exception {
+        CustomerSpendAccumulator accumulator = accumulator(false);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    accumulator.record(firstId, Money.of("0.01"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        accumulator.record(secondId, Money.of("59.99"));
+        accumulator.record(secondId, Money.of("-9.99"));
+
+        assertEquals(Money.of("80.00"), accumulator.pending(firstId));
+        assertEquals(2, accumulator.flush());
+        assertEquals(0, accumulator.flush());
+        assertEquals(Money.ZERO, accumulator.pending(firstId));
+
+        assertEquals(0, new BigDecimal("80.00").compareTo(totalSpent(firstId)));
+        assertEquals(0, new BigDecimal("50.00").compareTo(totalSpent(secondId)));
+    }
+
+    @Test
+    @DisplayName("测试关闭时正在记录的金额不会丢失，关闭后的记录被拒绝")
+    void testRecordDuringClose() throws Exception {
+        CustomerSpendAccumulator accumulator = accumulator(false);
+        LocalDateTime start = LocalDateTime.now();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch started = new CountDownLatch(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                started.countDown();
+                int accepted = 0;
+                try {
+                    while (true) {
+                        accumulator.record(firstId, Money.of("0.01"));
+                        accepted++;
+                    }
+                } catch (IllegalStateException e) {
+                    return accepted;
+                }
+            }));
+        }
+        started.await();
+        accumulator.close();
+        accumulators.remove(accumulator);
+
+        int accepted = 0;
+        for (Future<Integer> future : futures) {
+            accepted += future.get();
+        }
+        executor.shutdown();
+        assertThrows(IllegalStateException.class, () -> accumulator.record(firstId, Money.of("1.00")));
+        assertEquals(0, BigDecimal.valueOf(accepted, Money.SCALE).compareTo(totalSpent(firstId)));
+        assertFalse(jdbcTemplate.queryForObject("SELECT updated_at FROM persons WHERE id = ?",
+                LocalDateTime.class, firstId).isBefore(start));
+    }
+
+    @Test
+    @DisplayName("测试客户不存在时丢弃增量")
+    void testUnknownCustomer() {
+        CustomerSpendAccumulator accumulator = accumulator(false);
+        accumulator.record(-1L, Money.of("1.00"));
+        accumulator.record(firstId, Money.of("1.00"));
+
+        assertEquals(2, accumulator.flush());
+        assertEquals(0, new BigDecimal("1.00").compareTo(totalSpent(firstId)));
+    }
+
+    @Test
+    @DisplayName("测试进程崩溃后回放日志，已写入的金额不会重复回放")
+    void testJournalRecovery() {
+        CustomerSpendAccumulator first = accumulator(true);
+        first.record(firstId, Money.of("10.00"));
+        first.flush();
+        first.record(firstId, Money.of("5.00"));
+        first.record(secondId, Money.of("2.50"));
+        // 模拟崩溃：不调用close，直接在同一目录上创建新的累加器
+        accumulators.remove(first);
+
+        CustomerSpendAccumulator second = accumulator(true);
+        assertEquals(Money.of("5.00"), second.pending(firstId));
+        assertEquals(Money.of("2.50"), second.pending(secondId));
+        second.flush();
+
+        assertEquals(0, new BigDecimal("15.00").compareTo(totalSpent(firstId)));
+        assertEquals(0, new BigDecimal("2.50").compareTo(totalSpent(secondId)));
+        assertEquals(Money.ZERO, accumulator(true).pending(firstId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private CustomerSpendAccumulator accumulator(boolean journal) {
+        CustomerSpendAccumulator accumulator = new CustomerSpendAccumulator(writer, journal, journalDirectory,
+                "test", mock(ObjectProvider.class));
+        accumulator.recover();
+        accumulators.add(accumulator);
+        return accumulator;
+    }
+
+    private Long customer(String name, String email) {
+        Customer customer = new Customer();
+        customer.setName(name);
+        customer.setEmail(email);
+        entityManager.persist(customer);
+        return customer.getId();
+    }
+
+    private BigDecimal totalSpent(Long id) {
+        return jdbcTemplate.queryForObject("SELECT total_spent FROM persons WHERE id = ?", BigDecimal.class, id);
+    }
+}
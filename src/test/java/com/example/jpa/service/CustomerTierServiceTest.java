@@ -0,0 +1,209 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.IdRange;
+import com.example.jpa.dto.JobStatus;
+import com.example.jpa.dto.TierPartitionResult;
+import com.example.jpa.entity.Customer;
+import com.example.jpa.entity.Money;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 客户等级重新计算测试
+ *
+ * 不使用测试事务，各分区在专用线程池中并行执行并真实提交
+ */
+@DataJpaTest
+@Import({CustomerTierService.class, CustomerTierRecalculator.class, BackgroundJobService.class,
+        CustomerSpendAccumulator.class, CustomerSpendWriter.class, CustomerTierServiceTest.ExecutorConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:customertiertest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never",
+    "app.customer-tier.vip-threshold=100.00",
+    "app.customer-tier.premium-threshold=500.00",
+    "app.customer-tier.partitions=3",
+    "app.customer-tier.chunk-size=2"
+})
+@DisplayName("客户等级重新计算测试")
+class CustomerTierServiceTest {
+
+    @TestConfiguration
+    static class ExecutorConfig {
+        @Bean(destroyMethod = "shutdown")
+        ExecutorService applicationTaskExecutor() {
+            return Executors.newFixedThreadPool(3);
+        }
+    }
+
+    @Autowired
+    private CustomerTierService customerTierService;
+
+    @Autowired
+    private CustomerTierRecalculator recalculator;
+
+    @Autowired
+    private CustomerSpendAccumulator spendAccumulator;
+
+    @Autowired
+    private BackgroundJobService backgroundJobService;
+
+    @Autowired
+    private ExecutorService applicationTaskExecutor;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM persons");
+        ids.clear();
+        String[] totals = {null, "0.00", "99.99", "100.00", "120.00", "499.99", "500.00", "9000.00", "50.00", "300.00"};
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < totals.length; i++) {
+                Customer customer = new Customer();
+                customer.setName("客户" + i);
+                customer.setEmail("customer" + i + "@example.com");
+                // 最后一个客户的等级已经正确，不应被修改
+                customer.setCustomerType(i == 9 ? Customer.CustomerType.VIP : Customer.CustomerType.REGULAR);
+                entityManager.persist(customer);
+                ids.add(customer.getId());
+            }
+        });
+        // total_spent不随实体写入，直接用SQL设置
+        for (int i = 0; i < totals.length; i++) {
+            jdbcTemplate.update("UPDATE persons SET total_spent = ? WHERE id = ?",
+                    totals[i] == null ? null : Money.of(totals[i]).toBigDecimal(), ids.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("测试按累计消费计算等级")
+    void testTierOf() {
+        assertEquals(Customer.CustomerType.REGULAR, recalculator.tierOf(null));
+        assertEquals(Customer.CustomerType.REGULAR, recalculator.tierOf(Money.of("99.99")));
+        assertEquals(Customer.CustomerType.VIP, recalculator.tierOf(Money.of("100.00")));
+        assertEquals(Customer.CustomerType.VIP, recalculator.tierOf(Money.of("499.99")));
+        assertEquals(Customer.CustomerType.PREMIUM, recalculator.tierOf(Money.of("500.00")));
+    }
+
+    @Test
+    @DisplayName("测试分区并行重新计算，只修改等级变化的客户")
+    void testRecalculate() {
+        BackgroundJob job = new BackgroundJob("test", CustomerTierService.JOB_TYPE);
+        List<TierPartitionResult> results = customerTierService.recalculate(recalculator.findCustomerIdRange(), job);
+
+        assertEquals(3, results.size());
+        assertEquals(List.of(0, 1, 2), results.stream().map(TierPartitionResult::partition).toList());
+        assertEquals(10, results.stream().mapToLong(TierPartitionResult::scanned).sum());
+        assertEquals(5, results.stream().mapToLong(TierPartitionResult::changed).sum());
+        assertEquals(10, job.getProcessed());
+
+        assertEquals(List.of("REGULAR", "REGULAR", "REGULAR", "VIP", "VIP", "VIP", "PREMIUM", "PREMIUM", "REGULAR", "VIP"),
+                ids.stream().map(id -> jdbcTemplate.queryForObject(
+                        "SELECT customer_type FROM persons WHERE id = ?", String.class, id)).toList());
+
+        // 再次执行时没有需要修改的客户
+        String message = customerTierService.recalculateTiers(new BackgroundJob("again", CustomerTierService.JOB_TYPE));
+        assertTrue(message.contains("扫描10个，修改0个"), message);
+    }
+
+    @Test
+    @DisplayName("测试重新计算前先写入内存中累加的消费金额")
+    void testRecalculateIncludesPendingSpend() {
+        // 50.00 + 60.00 达到VIP
+        spendAccumulator.record(ids.get(8), Money.of("60.00"));
+
+        customerTierService.recalculateTiers(new BackgroundJob("pending", CustomerTierService.JOB_TYPE));
+
+        assertEquals(Money.ZERO, spendAccumulator.pending(ids.get(8)));
+        assertEquals("VIP", jdbcTemplate.queryForObject(
+                "SELECT customer_type FROM persons WHERE id = ?", String.class, ids.get(8)));
+    }
+
+    @Test
+    @DisplayName("测试任务未结束时再次提交返回同一任务，分区不占用applicationTaskExecutor")
+    void testSingleRunningJob() throws Exception {
+        // 占满applicationTaskExecutor的3个线程，任务提交后处于等待状态
+        List<CountDownLatch> releases = List.of(new CountDownLatch(1), new CountDownLatch(1), new CountDownLatch(1));
+        CountDownLatch busy = new CountDownLatch(3);
+        for (CountDownLatch release : releases) {
+            applicationTaskExecutor.execute(() -> {
+                busy.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+
+        try {
+            JobStatus first = customerTierService.recalculateTiers();
+            JobStatus second = customerTierService.recalculateTiers();
+            assertEquals(first.id(), second.id());
+
+            // 只空出一个线程执行任务，3个分区仍然能够完成
+            releases.get(0).countDown();
+            assertEquals(JobStatus.State.COMPLETED, awaitJob(first.id()).state());
+            assertNotEquals(first.id(), customerTierService.recalculateTiers().id());
+        } finally {
+            releases.forEach(CountDownLatch::countDown);
+        }
+    }
+
+    @Test
+    @DisplayName("测试没有客户时不创建分区")
+    void testNoCustomers() {
+        jdbcTemplate.update("DELETE FROM persons");
+
+        assertEquals(new IdRange(null, null), recalculator.findCustomerIdRange());
+        assertEquals(List.of(), customerTierService.recalculate(recalculator.findCustomerIdRange(),
+                new BackgroundJob("empty", CustomerTierService.JOB_TYPE)));
+    }
+
+    private JobStatus awaitJob(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        JobStatus status = backgroundJobService.findJob(id).orElseThrow();
+        while (status.state() == JobStatus.State.PENDING || status.state() == JobStatus.State.RUNNING) {
+            assertTrue(System.nanoTime() < deadline, "任务未在30秒内结束");
+            TimeUnit.MILLISECONDS.sleep(20);
+            status = backgroundJobService.findJob(id).orElseThrow();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.jpa.service;
+
+import com.example.jpa.config.HibernateListenerConfig;
+import com.example.jpa.dto.DepartmentMembershipChange;
+import com.example.jpa.entity.Department;
+import com.example.jpa.entity.User;
+import com.example.jpa.repository.DepartmentRepository;
+import com.example.jpa.repository.OrderRepository;
+import com.example.jpa.repository.UserRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 部门成员数测试
+ *
+ * 不使用测试事务，每次修改真实提交
+ */
+@DataJpaTest
+@Import({UserService.class, UserStatisticsTracker.class, UserStatisticsLoader.class,
+        DepartmentMemberCountReconciler.class, DepartmentMemberCountListener.class, HibernateListenerConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:membercounttest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never"
+})
+@DisplayName("部门成员数测试")
+class DepartmentMemberCountTest {
+
+    @MockBean
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private DepartmentMemberCountReconciler reconciler;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long departmentId;
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+        departmentRepository.deleteAll();
+        userIds.clear();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Department department = new Department();
+            department.setName("技术部");
+            departmentId = departmentRepository.save(department).getId();
+            for (int i = 0; i < 4; i++) {
+                User user = new User();
+                user.setUsername("user" + i);
+                user.setEmail("user" + i + "@example.com");
+                user.setAge(20 + i);
+                userIds.add(userRepository.save(user).getId());
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("测试加入、重复加入和离开部门时增减成员数")
+    void testAddAndRemove() {
+        userService.addDepartmentToUser(userIds.get(0), departmentId);
+        userService.addDepartmentToUser(userIds.get(1), departmentId);
+        userService.addDepartmentToUser(userIds.get(1), departmentId);
+        assertEquals(2L, memberCount());
+
+        userService.removeDepartmentFromUser(userIds.get(0), departmentId);
+        userService.removeDepartmentFromUser(userIds.get(0), departmentId);
+        assertEquals(1L, memberCount());
+        assertEquals(0, reconciler.reconcile());
+    }
+
+    @Test
+    @DisplayName("测试并发加入同一部门时成员数不丢失")
+    void testConcurrentAdd() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(userIds.size());
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long userId : userIds) {
+            futures.add(executor.submit(() -> userService.addDepartmentToUser(userId, departmentId)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(4L, memberCount());
+        assertEquals(0, reconciler.reconcile());
+    }
+
+    @Test
+    @DisplayName("测试校准等待未提交的成员调整，不会用旧的成员数覆盖")
+    void testReconcileWaitsForMembershipChange() throws Exception {
+        CountDownLatch changed = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        // 与UserService相同的顺序：先写关联表，再增加计数，在校准开始后才提交
+        Future<?> change = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO user_departments (user_id, department_id) VALUES (?, ?)",
+                    userIds.get(0), departmentId);
+            jdbcTemplate.update("UPDATE department_member_counts SET member_count = member_count + 1 WHERE department_id = ?",
+                    departmentId);
+            changed.countDown();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(changed.await(5, TimeUnit.SECONDS));
+
+        assertEquals(0, reconciler.reconcile());
+        change.get();
+        executor.shutdown();
+        assertEquals(1L, memberCount());
+    }
+
+    @Test
+    @DisplayName("测试删除用户时减去成员数")
+    void testDeleteUsers() {
+        userIds.forEach(userId -> userService.addDepartmentToUser(userId, departmentId));
+
+        userService.deleteUser(userIds.get(0));
+        assertEquals(3L, memberCount());
+
+        assertEquals(2, userService.deleteUsersByIds(userIds.subList(1, 3)));
+        assertEquals(1L, memberCount());
+        assertEquals(0, reconciler.reconcile());
+    }
+
+    @Test
+    @DisplayName("测试校准绕过成员数维护的修改")
+    void testReconcile() {
+        userService.addDepartmentToUser(userIds.get(0), departmentId);
+        jdbcTemplate.update("INSERT INTO user_departments (user_id, department_id) VALUES (?, ?)",
+                userIds.get(1), departmentId);
+        assertEquals(1L, memberCount());
+
+        assertEquals(1, reconciler.reconcile());
+        assertEquals(2L, memberCount());
+        assertEquals(2L, userService.getDepartmentsWithUserCount().get(0).userCount());
+
+        // 缺少计数行的部门按实际成员数补齐
+        jdbcTemplate.update("DELETE FROM department_member_counts");
+        assertEquals(0L, userService.getDepartmentsWithUserCount().get(0).userCount());
+        assertEquals(1, reconciler.reconcile());
+        assertEquals(2L, memberCount());
+    }
+
+    @Test
+    @DisplayName("测试通过实体修改成员时由监听器增减成员数")
+    void testEntityPaths() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Department department = departmentRepository.findById(departmentId).orElseThrow();
+            userRepository.findById(userIds.get(0)).orElseThrow().addDepartment(department);
+            userRepository.findById(userIds.get(1)).orElseThrow().addDepartment(department);
+        });
+        assertEquals(2L, memberCount());
+
+        // 级联插入带部门的新用户
+        Long newUserId = tx.execute(status -> {
+            User user = new User();
+            user.setUsername("new_user");
+            user.setEmail("new_user@example.com");
+            user.addDepartment(departmentRepository.findById(departmentId).orElseThrow());
+            return userRepository.save(user).getId();
+        });
+        assertEquals(3L, memberCount());
+
+        tx.executeWithoutResult(status -> userRepository.findById(userIds.get(0)).orElseThrow()
+                .removeDepartment(departmentRepository.findById(departmentId).orElseThrow()));
+        assertEquals(2L, memberCount());
+
+        // 删除部门集合未加载的用户
+        userService.deleteUser(newUserId);
+        assertEquals(1L, memberCount());
+        assertEquals(0, reconciler.reconcile());
+    }
+
+    @Test
+    @DisplayName("测试成员增减不清理部门的二级缓存")
+    void testDepartmentCacheKept() {
+        Cache cache = entityManagerFactory.getCache();
+        departmentRepository.findById(departmentId);
+        assertTrue(cache.contains(Department.class, departmentId));
+
+        userService.addDepartmentToUser(userIds.get(0), departmentId);
+        userService.changeDepartmentMembers(departmentId,
+                new DepartmentMembershipChange(userIds.subList(1, 3), userIds.subList(0, 1)));
+        assertTrue(cache.contains(Department.class, departmentId));
+        assertEquals(2L, memberCount());
+    }
+
+    @Test
+    @DisplayName("测试部门插入、删除时创建、删除计数行")
+    void testDepartmentLifecycle() {
+        Department department = new Department();
+        department.setName("市场部");
+        Long id = departmentRepository.save(department).getId();
+        assertEquals(1, countRows(id));
+
+        departmentRepository.deleteById(id);
+        assertEquals(0, countRows(id));
+    }
+
+    private long memberCount() {
+        return jdbcTemplate.queryForObject("SELECT member_count FROM department_member_counts WHERE department_id = ?",
+                Long.class, departmentId);
+    }
+
+    private int countRows(Long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM department_member_counts WHERE department_id = ?",
+                Integer.class, id);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.jpa.service;
+
+import com.example.jpa.config.HibernateListenerConfig;
+import com.example.jpa.dto.DepartmentMembershipChange;
+import com.example.jpa.dto.DepartmentMembershipResult;
+import com.example.jpa.entity.Department;
+import com.example.jpa.repository.DepartmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量调整部门成员测试
+ *
+ * 不使用测试事务，每次调整真实提交
+ */
+@DataJpaTest
+@Import({UserService.class, UserStatisticsTracker.class, UserStatisticsLoader.class,
+        DepartmentMemberCountListener.class, HibernateListenerConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:membershiptest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never"
+})
+@DisplayName("批量调整部门成员测试")
+class DepartmentMembershipTest {
+
+    private static final int USERS = 2500;
+
+    @MockBean
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long departmentId;
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM user_departments");
+        jdbcTemplate.update("DELETE FROM users");
+        departmentRepository.deleteAll();
+
+        Department department = new Department();
+        department.setName("技术部");
+        departmentId = departmentRepository.save(department).getId();
+
+        // 直接用SQL插入用户，与用户的增删监听无关
+        jdbcTemplate.update("INSERT INTO users (id, username, email, age, version, created_at, updated_at) " +
+                "SELECT X, 'user' || X, 'user' || X || '@example.com', 30, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP " +
+                "FROM SYSTEM_RANGE(100001, ?)", 100000 + USERS);
+        userIds.clear();
+        userIds.addAll(jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class));
+    }
+
+    @Test
+    @DisplayName("测试跨多个批次加入成员，忽略重复、已有和不存在的用户")
+    void testAddMembers() {
+        List<Long> add = new ArrayList<>(userIds);
+        add.add(userIds.get(0));
+        add.add(-1L);
+        add.add(null);
+
+        DepartmentMembershipResult result = userService.changeDepartmentMembers(departmentId,
+                new DepartmentMembershipChange(add, null));
+        assertEquals(new DepartmentMembershipResult(departmentId, USERS, 0), result);
+        assertEquals(USERS, links());
+        assertEquals(USERS, memberCount());
+
+        DepartmentMembershipResult again = userService.changeDepartmentMembers(departmentId,
+                new DepartmentMembershipChange(userIds.subList(0, 10), null));
+        assertEquals(0, again.added());
+        assertEquals(USERS, memberCount());
+    }
+
+    @Test
+    @DisplayName("测试先移除再加入，成员数与关联表一致")
+    void testRemoveAndAdd() {
+        userService.changeDepartmentMembers(departmentId, new DepartmentMembershipChange(userIds.subList(0, 2000), null));
+
+        DepartmentMembershipResult result = userService.changeDepartmentMembers(departmentId,
+                new DepartmentMembershipChange(userIds.subList(1500, USERS), userIds.subList(0, 1200)));
+        assertEquals(new DepartmentMembershipResult(departmentId, 500, 1200), result);
+        assertEquals(1300, links());
+        assertEquals(1300, memberCount());
+        assertEquals(1300L, departmentRepository.countUsersByDepartment().get(0).userCount());
+    }
+
+    @Test
+    @DisplayName("测试并发加入相同的用户时不违反主键约束，每个关联只计数一次")
+    void testConcurrentAdd() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<DepartmentMembershipResult>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            // 每个请求加入全部用户的一半，相邻请求有一半重叠
+            List<Long> add = userIds.subList(t * USERS / 4 / 2, t * USERS / 4 / 2 + USERS / 2);
+            futures.add(executor.submit(() -> userService.changeDepartmentMembers(departmentId,
+                    new DepartmentMembershipChange(add, null))));
+        }
+        int added = 0;
+        for (Future<DepartmentMembershipResult> future : futures) {
+            added += future.get().added();
+        }
+        executor.shutdown();
+
+        int expected = 3 * USERS / 4 / 2 + USERS / 2;
+        assertEquals(expected, added);
+        assertEquals(expected, links());
+        assertEquals(expected, memberCount());
+    }
+
+    @Test
+    @DisplayName("测试部门不存在时不做任何修改")
+    void testUnknownDepartment() {
+        assertThrows(RuntimeException.class, () -> userService.changeDepartmentMembers(-1L,
+                new DepartmentMembershipChange(userIds, null)));
+        assertEquals(0, links());
+    }
+
+    private int links() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_departments", Integer.class);
+    }
+
+    private long memberCount() {
+        return jdbcTemplate.queryForObject("SELECT member_count FROM department_member_counts WHERE department_id = ?", Long.class,
+                departmentId);
+    }
+}
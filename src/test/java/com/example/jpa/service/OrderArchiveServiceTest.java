@@ -0,0 +1,152 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.OrderStatistics;
+import com.example.jpa.dto.OrderSummary;
+import com.example.jpa.entity.Money;
+import com.example.jpa.entity.Order;
+import com.example.jpa.entity.OrderItem;
+import com.example.jpa.entity.User;
+import com.example.jpa.repository.ArchivedOrderRepository;
+import com.example.jpa.repository.OrderRepository;
+import com.example.jpa.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 订单归档测试
+ *
+ * 不使用测试事务，每批归档真实提交
+ */
+@DataJpaTest
+@Import({OrderArchiveService.class, OrderArchiver.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:orderarchivetest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never",
+    "app.order-archive.retention=P30D",
+    "app.order-archive.batch-size=2"
+})
+@DisplayName("订单归档测试")
+class OrderArchiveServiceTest {
+
+    @MockBean
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM order_items_archive");
+        jdbcTemplate.update("DELETE FROM orders_archive");
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("archive_user");
+        user.setEmail("archive@example.com");
+        userId = userRepository.save(user).getId();
+
+        // 3个可归档的旧订单，其余为近期订单或未完成的订单
+        saveOrder("OLD-1", Order.OrderStatus.DELIVERED, 100);
+        saveOrder("OLD-2", Order.OrderStatus.CANCELLED, 60);
+        saveOrder("OLD-3", Order.OrderStatus.DELIVERED, 31);
+        saveOrder("OLD-PENDING", Order.OrderStatus.SHIPPED, 100);
+        saveOrder("NEW-1", Order.OrderStatus.DELIVERED, 1);
+    }
+
+    @Test
+    @DisplayName("测试分批把旧的已完成订单及订单项移到归档表")
+    void testArchive() {
+        assertEquals(3, orderArchiveService.archive());
+
+        assertEquals(List.of("NEW-1", "OLD-PENDING"),
+                orderRepository.findAll().stream().map(Order::getOrderNumber).sorted().toList());
+        assertEquals(4, count("order_items"));
+        assertEquals(3, archivedOrderRepository.count());
+        assertEquals(6, count("order_items_archive"));
+        assertEquals(0, orderArchiveService.archive());
+
+        // 批大小为2：两批归档
+        verify(searchIndexService, times(2)).onProductNamesRemoved(anyList());
+    }
+
+    @Test
+    @DisplayName("测试查询可以选择包含归档订单")
+    void testReadsIncludeArchive() {
+        orderArchiveService.archive();
+
+        List<OrderSummary> hot = orderRepository.findSummariesByStatus(Order.OrderStatus.DELIVERED, false);
+        List<OrderSummary> all = orderRepository.findSummariesByStatus(Order.OrderStatus.DELIVERED, true);
+        assertEquals(List.of("NEW-1"), hot.stream().map(OrderSummary::orderNumber).toList());
+        assertEquals(List.of("OLD-1", "OLD-3", "NEW-1"), all.stream().map(OrderSummary::orderNumber).toList());
+        assertEquals(List.of(true, true, false), all.stream().map(OrderSummary::archived).toList());
+
+        assertEquals(5, orderRepository.findSummariesByUserId(userId, true).size());
+        assertEquals(3, orderRepository.findSummariesByCreatedAtBetween(
+                LocalDateTime.now().minusDays(200), LocalDateTime.now().minusDays(50), true).size());
+
+        // 每个订单金额3.00
+        OrderStatistics hotStatistics = orderRepository.getOrderStatistics(false);
+        OrderStatistics allStatistics = orderRepository.getOrderStatisticsByUserId(userId, true);
+        assertEquals(2, hotStatistics.orderCount());
+        assertEquals(5, allStatistics.orderCount());
+        assertEquals(0, new BigDecimal("15.00").compareTo(allStatistics.totalAmount()));
+        assertEquals(3.0, allStatistics.averageAmount(), 0.001);
+    }
+
+    private void saveOrder(String orderNumber, Order.OrderStatus status, int ageInDays) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setStatus(status);
+        order.setUser(userRepository.findById(userId).orElseThrow());
+        for (int i = 0; i < 2; i++) {
+            OrderItem item = new OrderItem();
+            item.setProductName("商品" + i);
+            item.setQuantity(1);
+            item.setPrice(Money.of("1.50"));
+            order.addOrderItem(item);
+        }
+        order.calculateTotalAmount();
+        Long id = orderRepository.save(order).getId();
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", LocalDateTime.now().minusDays(ageInDays), id);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.SalaryAdjustment;
+import com.example.jpa.dto.SalaryAdjustmentSummary;
+import com.example.jpa.entity.Employee;
+import com.example.jpa.entity.Money;
+import com.example.jpa.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 员工薪资批量调整测试
+ *
+ * 不使用测试事务，调整真实提交
+ */
+@DataJpaTest
+@Import(SalaryAdjustmentService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:salaryadjustmenttest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never",
+    "app.salary-adjustment.chunk-size=2"
+})
+@DisplayName("员工薪资批量调整测试")
+class SalaryAdjustmentServiceTest {
+
+    @Autowired
+    private SalaryAdjustmentService salaryAdjustmentService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @BeforeEach
+    void setUp() {
+        employeeRepository.deleteAll();
+        LocalDate today = LocalDate.now();
+        save("E1", Employee.Position.JUNIOR_DEVELOPER, "研发部", "1000.00", today.minusYears(3));
+        save("E2", Employee.Position.SENIOR_DEVELOPER, "研发部", "2000.00", today.minusYears(1));
+        save("E3", Employee.Position.SENIOR_DEVELOPER, "市场部", "3000.00", null);
+        save("E4", Employee.Position.MANAGER, "研发部", null, today.minusYears(5));
+        save("E5", Employee.Position.SENIOR_DEVELOPER, "研发部", "1234.55", today.minusMonths(6));
+    }
+
+    @Test
+    @DisplayName("测试按职位百分比调整，试运行不写入")
+    void testPercentageByPosition() {
+        SalaryAdjustment adjustment = new SalaryAdjustment(Set.of(Employee.Position.SENIOR_DEVELOPER), null,
+                SalaryAdjustment.Type.PERCENTAGE, new BigDecimal("5"));
+
+        SalaryAdjustmentSummary preview = salaryAdjustmentService.adjustSalaries(adjustment, true);
+        assertEquals(new SalaryAdjustmentSummary(true, 3, 0, new BigDecimal("6234.55"), new BigDecimal("311.73")),
+                preview);
+        assertEquals(List.of("1000.00", "2000.00", "3000.00", "null", "1234.55"), salaries());
+
+        SalaryAdjustmentSummary applied = salaryAdjustmentService.adjustSalaries(adjustment, false);
+        assertEquals(new SalaryAdjustmentSummary(false, 3, 0, new BigDecimal("6234.55"), new BigDecimal("311.73")),
+                applied);
+        assertEquals(List.of("1000.00", "2100.00", "3150.00", "null", "1296.28"), salaries());
+    }
+
+    @Test
+    @DisplayName("测试按部门固定金额调整，没有薪资的员工不调整")
+    void testFixedByDepartment() {
+        List<LocalDateTime> before = updatedAt();
+        LocalDateTime start = LocalDateTime.now();
+        SalaryAdjustmentSummary summary = salaryAdjustmentService.adjustSalaries(
+                new SalaryAdjustment(null, "研发部", SalaryAdjustment.Type.FIXED, new BigDecimal("100")), false);
+
+        assertEquals(3, summary.affectedRows());
+        assertEquals(new BigDecimal("300.00"), summary.payrollDelta());
+        assertEquals(List.of("1100.00", "2100.00", "3000.00", "null", "1334.55"), salaries());
+        assertUpdated(before, start, List.of(true, true, false, false, true));
+    }
+
+    @Test
+    @DisplayName("测试按工龄逐行调整")
+    void testPercentagePerYear() {
+        SalaryAdjustment adjustment = new SalaryAdjustment(Set.of(), null,
+                SalaryAdjustment.Type.PERCENTAGE_PER_YEAR, new BigDecimal("2"));
+
+        SalaryAdjustmentSummary preview = salaryAdjustmentService.adjustSalaries(adjustment, true);
+        assertEquals(new SalaryAdjustmentSummary(true, 2, 0, new BigDecimal("7234.55"), new BigDecimal("100.00")),
+                preview);
+        assertEquals("1000.00", salaries().get(0));
+
+        List<LocalDateTime> before = updatedAt();
+        LocalDateTime start = LocalDateTime.now();
+        SalaryAdjustmentSummary applied = salaryAdjustmentService.adjustSalaries(adjustment, false);
+        assertEquals(2, applied.affectedRows());
+        assertEquals(new BigDecimal("100.00"), applied.payrollDelta());
+        assertEquals(List.of("1060.00", "2040.00", "3000.00", "null", "1234.55"), salaries());
+        assertUpdated(before, start, List.of(true, true, false, false, false));
+    }
+
+    @Test
+    @DisplayName("测试无效的调整请求")
+    void testInvalidAdjustment() {
+        assertThrows(RuntimeException.class, () -> salaryAdjustmentService.adjustSalaries(
+                new SalaryAdjustment(null, null, null, BigDecimal.ONE), true));
+        assertThrows(RuntimeException.class, () -> salaryAdjustmentService.adjustSalaries(
+                new SalaryAdjustment(null, null, SalaryAdjustment.Type.PERCENTAGE, BigDecimal.ZERO), true));
+        assertThrows(RuntimeException.class, () -> salaryAdjustmentService.adjustSalaries(
+                new SalaryAdjustment(null, null, SalaryAdjustment.Type.FIXED, new BigDecimal("0.001")), true));
+    }
+
+    private void save(String employeeId, Employee.Position position, String department, String salary,
+                      LocalDate hireDate) {
+        Employee employee = new Employee();
+        employee.setName(employeeId);
+        employee.setEmployeeId(employeeId);
+        employee.setPosition(position);
+        employee.setDepartment(department);
+        employee.setSalary(salary == null ? null : Money.of(salary));
+        employee.setHireDate(hireDate);
+        employeeRepository.save(employee);
+    }
+
+    private List<String> salaries() {
+        return employeeRepository.findAll().stream()
+                .sorted((a, b) -> a.getEmployeeId().compareTo(b.getEmployeeId()))
+                .map(employee -> employee.getSalary() == null ? "null" : employee.getSalary().toString())
+                .toList();
+    }
+
+    private List<LocalDateTime> updatedAt() {
+        return employeeRepository.findAll().stream()
+                .sorted((a, b) -> a.getEmployeeId().compareTo(b.getEmployeeId()))
+                .map(Employee::getUpdatedAt)
+                .toList();
+    }
+
+    /**
+     * 调整过薪资的员工updated_at不早于调整开始的时间，其余不变
+     */
+    private void assertUpdated(List<LocalDateTime> before, LocalDateTime start, List<Boolean> expected) {
+        List<LocalDateTime> after = updatedAt();
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.get(i)) {
+                assertFalse(after.get(i).isBefore(start), "E" + (i + 1));
+            } else {
+                assertEquals(before.get(i), after.get(i), "E" + (i + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.ProductNameCount;
+import com.example.jpa.dto.ProductNameSnapshot;
+import com.example.jpa.entity.Money;
+import com.example.jpa.entity.Order;
+import com.example.jpa.entity.OrderItem;
+import com.example.jpa.entity.User;
+import com.example.jpa.repository.OrderRepository;
+import com.example.jpa.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 搜索索引数据加载测试
+ *
+ * 不使用测试事务，加载期间在另一个线程中提交订单
+ */
+@DataJpaTest
+@Import(SearchIndexLoader.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:searchindexloadertest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never"
+})
+@DisplayName("搜索索引数据加载测试")
+class SearchIndexLoaderTest {
+
+    @Autowired
+    private SearchIndexLoader loader;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+        user = new User();
+        user.setUsername("loader_user");
+        user.setEmail("loader@example.com");
+        user = userRepository.save(user);
+        saveOrder("ORDER-1", "iPad");
+    }
+
+    @Test
+    @DisplayName("测试取得修改序号之后提交的订单项不在统计结果中")
+    void testSequenceTakenAfterSnapshot() {
+        ProductNameSnapshot snapshot = loader.loadProductNames(() -> {
+            // 快照已经确定，这时提交的订单项对统计不可见，它的回调序号大于返回的序号
+            CompletableFuture.runAsync(() -> saveOrder("ORDER-2", "iPad")).join();
+            return 7;
+        });
+
+        assertEquals(7, snapshot.sequence());
+        assertEquals(List.of(new ProductNameCount("iPad", 1)), snapshot.counts());
+        assertEquals(List.of(new ProductNameCount("iPad", 2)), orderRepository.countOrderItemsByProductName());
+    }
+
+    private void saveOrder(String orderNumber, String productName) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setUser(user);
+        OrderItem item = new OrderItem();
+        item.setProductName(productName);
+        item.setQuantity(1);
+        item.setPrice(Money.of("1.50"));
+        order.addOrderItem(item);
+        order.calculateTotalAmount();
+        orderRepository.save(order);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.IdRange;
+import com.example.jpa.dto.ProductNameCount;
+import com.example.jpa.dto.ProductNameSnapshot;
+import com.example.jpa.dto.UserDetail;
+import com.example.jpa.dto.UserSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 搜索索引服务测试
+ */
+@DisplayName("搜索索引服务测试")
+class SearchIndexServiceTest {
+
+    private SearchIndexLoader loader;
+    private SearchIndexService searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        loader = mock(SearchIndexLoader.class);
+        when(loader.findUserIdRange()).thenReturn(new IdRange(1L, 25L));
+        when(loader.loadUsers(anyLong(), anyLong())).thenAnswer(invocation -> {
+            List<UserSummary> users = new ArrayList<>();
+            for (long id = invocation.<Long>getArgument(0); id <= invocation.<Long>getArgument(1); id++) {
+                users.add(user(id, "user" + id));
+            }
+            return users;
+        });
+        when(loader.loadDepartments()).thenReturn(List.of(
+                new UserDetail.DepartmentItem(1L, "技术部", "负责产品研发"),
+                new UserDetail.DepartmentItem(2L, "市场部", "负责技术产品推广")));
+        when(loader.loadProductNames(any())).thenAnswer(invocation -> new ProductNameSnapshot(
+                invocation.<LongSupplier>getArgument(0).getAsLong(),
+                List.of(new ProductNameCount("iPhone 15", 2), new ProductNameCount("iPad", 1))));
+        // 同步执行，分块大小10：用户按[1,10]、[11,20]、[21,25]三块加载
+        searchIndex = new SearchIndexService(loader, Runnable::run, Runnable::run, 10);
+    }
+
+    @Test
+    @DisplayName("测试分块重建用户索引")
+    void testRebuild() {
+        assertFalse(searchIndex.isReady());
+
+        searchIndex.rebuild();
+
+        assertTrue(searchIndex.isReady());
+        verify(loader).loadUsers(1, 10);
+        verify(loader).loadUsers(11, 20);
+        verify(loader).loadUsers(21, 25);
+        Page<UserSummary> page = searchIndex.searchUsers("user2", PageRequest.of(0, 3));
+        assertEquals(7, page.getTotalElements());
+        assertEquals(List.of("user2", "user20", "user21"), usernames(page));
+    }
+
+    @Test
+    @DisplayName("测试部门名称匹配排在描述匹配前面")
+    void testSearchDepartments() {
+        searchIndex.rebuild();
+
+        List<UserDetail.DepartmentItem> departments = searchIndex.searchDepartments("技术", 10);
+
+        assertEquals(List.of(1L, 2L), departments.stream().map(UserDetail.DepartmentItem::id).toList());
+    }
+
+    @Test
+    @DisplayName("测试增量更新用户和商品名称")
+    void testIncrementalUpdates() {
+        searchIndex.rebuild();
+
+        searchIndex.onUserSaved(user(3L, "renamed"));
+        searchIndex.onUserDeleted(2L);
+        searchIndex.onUserSaved(user(100L, "user_new"));
+        assertEquals(List.of("user_new"), usernames(searchIndex.searchUsers("user_", PageRequest.of(0, 10))));
+        assertEquals(List.of("renamed"), usernames(searchIndex.searchUsers("rename", PageRequest.of(0, 10))));
+        assertEquals(List.of("user20", "user21"), usernames(searchIndex.searchUsers("user2", PageRequest.of(0, 2))));
+
+        // 两个订单项使用"iPhone 15"，删除一个后仍然可以搜索到
+        searchIndex.onProductNameChanged("iPhone 15", null);
+        assertEquals(List.of("iPhone 15"), searchIndex.searchProductNames("phone", 10));
+        searchIndex.onProductNameChanged("iPhone 15", "iPhone 16");
+        assertEquals(List.of("iPhone 16"), searchIndex.searchProductNames("phone", 10));
+    }
+
+    @Test
+    @DisplayName("测试重建期间的修改在新索引上重放")
+    void testChangesDuringRebuildAreReplayed() {
+        when(loader.loadDepartments()).thenAnswer(invocation -> {
+            // 部门加载期间提交了一个新用户，已加载的用户数据中没有它
+            searchIndex.onUserSaved(user(200L, "late_user"));
+            return List.of();
+        });
+
+        searchIndex.rebuild();
+
+        assertEquals(List.of("late_user"), usernames(searchIndex.searchUsers("late", PageRequest.of(0, 10))));
+    }
+
+    @Test
+    @DisplayName("测试统计快照之前的修改不会重复计数")
+    void testProductChangesBeforeSnapshotAreNotReplayed() {
+        when(loader.loadDepartments()).thenAnswer(invocation -> {
+            // 商品名称加载之前提交，统计结果中已经包含这个订单项
+            searchIndex.onProductNameChanged(null, "iPad");
+            return List.of();
+        });
+        doAnswer(invocation -> {
+            // 加载任务开始之后、读取快照确定之前提交并回调，统计结果中同样包含这个订单项
+            searchIndex.onProductNameChanged(null, "iPad");
+            long sequence = invocation.<LongSupplier>getArgument(0).getAsLong();
+            // 快照确定之后提交，统计结果中没有这个订单项
+            searchIndex.onProductNameChanged(null, "MacBook");
+            return new ProductNameSnapshot(sequence, List.of(new ProductNameCount("iPad", 3)));
+        }).when(loader).loadProductNames(any());
+
+        searchIndex.rebuild();
+
+        assertEquals(List.of("MacBook"), searchIndex.searchProductNames("Mac", 10));
+        // 3个"iPad"订单项都删除后不能再搜索到
+        for (int i = 0; i < 3; i++) {
+            assertEquals(List.of("iPad"), searchIndex.searchProductNames("iPad", 10));
+            searchIndex.onProductNameChanged("iPad", null);
+        }
+        assertEquals(List.of(), searchIndex.searchProductNames("iPad", 10));
+    }
+
+    private static UserSummary user(Long id, String username) {
+        return new UserSummary(id, username, username + "@example.com", 20, null, null);
+    }
+
+    private static List<String> usernames(Page<UserSummary> page) {
+        return page.getContent().stream().map(UserSummary::username).toList();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.jpa.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 三元组索引测试
+ */
+@DisplayName("三元组索引测试")
+class TrigramIndexTest {
+
+    private TrigramIndex<Long, String> index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex<>();
+        put(1, "alice_smith");
+        put(2, "Bob");
+        put(3, "smith");
+        put(4, "john_smithson");
+        put(5, "张三丰");
+    }
+
+    @Test
+    @DisplayName("测试子串搜索不区分大小写，且不会误报")
+    void testSubstringSearch() {
+        assertEquals(List.of("smith", "john_smithson", "alice_smith"), search("SMITH"));
+        assertEquals(List.of("Bob"), search("bob"));
+        assertEquals(List.of("张三丰"), search("三丰"));
+        // 文档包含关键词的全部三元组"abc"、"bcd"，但不包含关键词本身
+        put(6, "abc_bcd");
+        assertEquals(List.of(), search("abcd"));
+        assertEquals(List.of(), search("nothing"));
+    }
+
+    @Test
+    @DisplayName("测试排序：完全匹配、前缀匹配、其他位置，同级别按位置和长度排序")
+    void testRanking() {
+        put(7, "smithy");
+        put(8, "xsmith");
+
+        assertEquals(List.of("smith", "smithy", "xsmith", "john_smithson", "alice_smith"), search("smith"));
+    }
+
+    @Test
+    @DisplayName("测试分页和总数")
+    void testPaging() {
+        for (long i = 10; i < 110; i++) {
+            put(i, "user" + i);
+        }
+
+        Page<String> first = index.search("user", PageRequest.of(0, 10));
+        Page<String> last = index.search("user", PageRequest.of(9, 10));
+
+        assertEquals(100, first.getTotalElements());
+        assertEquals(10, first.getTotalPages());
+        assertEquals("user10", first.getContent().get(0));
+        assertEquals(10, last.getContent().size());
+        assertEquals("user109", last.getContent().get(9));
+        assertTrue(index.search("user", PageRequest.of(10, 10)).getContent().isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试修改和删除文档后索引同步更新")
+    void testUpdateAndRemove() {
+        put(3, "renamed");
+        index.remove(2L);
+
+        assertEquals(List.of("john_smithson", "alice_smith"), search("smith"));
+        assertEquals(List.of("renamed"), search("name"));
+        assertEquals(List.of(), search("bob"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    @DisplayName("测试合并局部索引")
+    void testMerge() {
+        TrigramIndex<Long, String> other = new TrigramIndex<>();
+        other.put(100L, "smith_jr", "smith_jr");
+
+        index.merge(other);
+
+        assertEquals(List.of("smith", "smith_jr", "john_smithson", "alice_smith"), search("smith"));
+        assertEquals(6, index.size());
+    }
+
+    private void put(long id, String text) {
+        index.put(id, text, text);
+    }
+
+    private List<String> search(String keyword) {
+        return index.search(keyword, PageRequest.of(0, 20)).getContent();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.JobStatus;
+import com.example.jpa.entity.Department;
+import com.example.jpa.entity.Money;
+import com.example.jpa.entity.Order;
+import com.example.jpa.entity.OrderItem;
+import com.example.jpa.entity.User;
+import com.example.jpa.repository.DepartmentRepository;
+import com.example.jpa.repository.OrderRepository;
+import com.example.jpa.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 按年龄批量删除用户测试
+ *
+ * 不使用测试事务，每批删除真实提交，以验证提交后的索引更新
+ */
+@DataJpaTest
+@Import({UserService.class, UserStatisticsTracker.class, UserStatisticsLoader.class, UserBulkDeleteService.class,
+        BackgroundJobService.class, UserBulkDeleteServiceTest.SyncExecutorConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:bulkdeletetest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never",
+    "app.bulk-delete.chunk-size=2"
+})
+@DisplayName("按年龄批量删除用户测试")
+class UserBulkDeleteServiceTest {
+
+    @TestConfiguration
+    static class SyncExecutorConfig {
+        @Bean
+        Executor applicationTaskExecutor() {
+            return Runnable::run;
+        }
+    }
+
+    @MockBean
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private UserBulkDeleteService userBulkDeleteService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long keptUserId;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+        departmentRepository.deleteAll();
+
+        keptUserId = new TransactionTemplate(transactionManager).execute(status -> {
+            Department department = new Department();
+            department.setName("技术部");
+            departmentRepository.save(department);
+            for (int i = 0; i < 5; i++) {
+                saveUser("old" + i, 60, department);
+            }
+            return saveUser("young", 20, department).getId();
+        });
+    }
+
+    @Test
+    @DisplayName("测试分批删除用户及其订单、订单项和部门关联")
+    void testDeleteUsersByAge() {
+        JobStatus status = userBulkDeleteService.deleteUsersByAge(60);
+
+        assertEquals(JobStatus.State.COMPLETED, status.state());
+        assertEquals(5L, status.total());
+        assertEquals(5L, status.processed());
+        assertTrue(status.message().contains("共3批"));
+
+        assertEquals(List.of(keptUserId), userRepository.findAll().stream().map(User::getId).toList());
+        assertEquals(1, orderRepository.count());
+        assertEquals(2, count("order_items"));
+        assertEquals(1, count("user_departments"));
+        assertEquals(1, departmentRepository.count());
+
+        verify(searchIndexService, times(5)).onUserDeleted(anyLong());
+        verify(searchIndexService, never()).onUserDeleted(keptUserId);
+        // 每批提交后移除该批订单项的商品名称
+        verify(searchIndexService, times(3)).onProductNamesRemoved(anyList());
+    }
+
+    @Test
+    @DisplayName("测试没有匹配用户时任务正常完成")
+    void testDeleteUsersByAgeWithoutMatches() {
+        JobStatus status = userBulkDeleteService.deleteUsersByAge(99);
+
+        assertEquals(JobStatus.State.COMPLETED, status.state());
+        assertEquals(0L, status.processed());
+        assertEquals(6, userRepository.count());
+        verify(searchIndexService, never()).onUserDeleted(anyLong());
+        verify(searchIndexService, never()).onProductNamesRemoved(anyList());
+    }
+
+    private User saveUser(String username, int age, Department department) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setAge(age);
+        user.addDepartment(department);
+        user = userRepository.save(user);
+
+        Order order = new Order();
+        order.setOrderNumber("ORD-" + username);
+        order.setUser(user);
+        for (int i = 0; i < 2; i++) {
+            OrderItem item = new OrderItem();
+            item.setProductName(i == 0 ? "商品" : "其他");
+            item.setQuantity(1);
+            item.setPrice(Money.of("1.00"));
+            order.addOrderItem(item);
+        }
+        order.calculateTotalAmount();
+        orderRepository.save(order);
+        return user;
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
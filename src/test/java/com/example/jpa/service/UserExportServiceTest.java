@@ -0,0 +1,79 @@
+package com.example.jpa.service;
+
+import com.example.jpa.entity.User;
+import com.example.jpa.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户导出服务测试
+ */
+@DataJpaTest
+@Import(UserExportService.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:exporttest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never"
+})
+@DisplayName("用户导出服务测试")
+class UserExportServiceTest {
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        userRepository.save(user("alice", "alice@example.com", 20));
+        userRepository.save(user("bob,\"b\"", "bob@example.com", null));
+    }
+
+    @Test
+    @DisplayName("测试导出NDJSON")
+    void testExportNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = userExportService.exportUsers(UserExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":"));
+        assertTrue(lines[0].contains("\"username\":\"alice\""));
+        assertTrue(lines[1].contains("\"age\":null"));
+    }
+
+    @Test
+    @DisplayName("测试导出CSV")
+    void testExportCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userExportService.exportUsers(UserExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,username,email,age,createdAt,updatedAt", lines[0]);
+        assertTrue(lines[2].contains(",\"bob,\"\"b\"\"\",bob@example.com,,"));
+    }
+
+    private static User user(String username, String email, Integer age) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setAge(age);
+        return user;
+    }
+}
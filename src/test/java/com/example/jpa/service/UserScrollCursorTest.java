@@ -0,0 +1,44 @@
+package com.example.jpa.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户游标编解码测试
+ */
+@DisplayName("用户游标编解码测试")
+class UserScrollCursorTest {
+
+    @Test
+    @DisplayName("测试游标编码后可以还原排序键类型")
+    void testRoundTrip() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("createdAt", LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        keys.put("id", 42L);
+
+        String token = new UserScrollCursor("createdAt", Sort.Direction.DESC, keys).encode();
+        UserScrollCursor decoded = UserScrollCursor.decode(token);
+
+        assertEquals("createdAt", decoded.sortBy());
+        assertEquals(Sort.Direction.DESC, decoded.direction());
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), decoded.keys().get("createdAt"));
+        assertEquals(42L, decoded.keys().get("id"));
+    }
+
+    @Test
+    @DisplayName("测试无效游标")
+    void testInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> UserScrollCursor.decode("not-a-cursor"));
+
+        Map<String, Object> keys = Map.of("age", 20, "id", 1L);
+        String token = new UserScrollCursor("age", Sort.Direction.ASC, keys).encode();
+        assertThrows(IllegalArgumentException.class, () -> UserScrollCursor.decode(token));
+    }
+}
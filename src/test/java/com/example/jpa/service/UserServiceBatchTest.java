@@ -0,0 +1,93 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.UserBatchError;
+import com.example.jpa.dto.UserBatchResult;
+import com.example.jpa.entity.User;
+import com.example.jpa.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserService批量创建测试
+ */
+@DataJpaTest
+@Import({UserService.class, UserStatisticsTracker.class, UserStatisticsLoader.class})
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:batchtest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never"
+})
+@DisplayName("UserService批量创建测试")
+class UserServiceBatchTest {
+
+    @MockBean
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        userRepository.save(user("existing", "existing@example.com", 30));
+    }
+
+    @Test
+    @DisplayName("测试批量创建成功")
+    void testCreateUsers() {
+        UserBatchResult result = userService.createUsers(List.of(
+                user("a", "a@example.com", 20),
+                user("b", "b@example.com", 21)));
+
+        assertFalse(result.hasErrors());
+        assertEquals(2, result.created().size());
+        assertEquals(3, userRepository.count());
+    }
+
+    @Test
+    @DisplayName("测试批量创建返回每一行的错误")
+    void testCreateUsersReportsAllErrors() {
+        UserBatchResult result = userService.createUsers(List.of(
+                user("ok", "ok@example.com", 20),
+                user("existing", "new@example.com", 20),
+                user("dup", "dup@example.com", 20),
+                user("DUP", "other@example.com", 200),
+                user("fresh", "existing@example.com", 20)));
+
+        assertTrue(result.hasErrors());
+        assertTrue(result.created().isEmpty());
+        assertEquals(1, userRepository.count());
+
+        List<UserBatchError> errors = result.errors();
+        assertEquals(4, errors.size());
+        assertEquals(1, errors.get(0).index());
+        assertEquals("username", errors.get(0).field());
+        assertEquals(3, errors.get(1).index());
+        assertEquals(3, errors.get(2).index());
+        assertEquals(4, errors.get(3).index());
+        assertEquals("email", errors.get(3).field());
+    }
+
+    private static User user(String username, String email, Integer age) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setAge(age);
+        return user;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.UserPatch;
+import com.example.jpa.entity.User;
+import com.example.jpa.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserService部分更新和乐观锁测试
+ */
+@DataJpaTest
+@Import({UserService.class, UserStatisticsTracker.class, UserStatisticsLoader.class})
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:patchtest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.sql.init.mode=never"
+})
+@DisplayName("UserService部分更新测试")
+class UserServicePatchTest {
+
+    @MockBean
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = userRepository.save(user("patch_user", "patch@example.com", 20)).getId();
+        userRepository.save(user("other_user", "other@example.com", 30));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("测试只修改提供的字段并增加版本号")
+    void testPatchUpdatesOnlySuppliedFields() {
+        User patched = userService.patchUser(userId, new UserPatch(null, null, 21), 0L);
+
+        assertEquals(21, patched.getAge());
+        assertEquals("patch_user", patched.getUsername());
+        assertEquals("patch@example.com", patched.getEmail());
+        assertEquals(1L, patched.getVersion());
+    }
+
+    @Test
+    @DisplayName("测试版本号不同时不修改数据")
+    void testPatchWithStaleVersion() {
+        userService.patchUser(userId, new UserPatch(null, null, 21), null);
+        entityManager.clear();
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> userService.patchUser(userId, new UserPatch("renamed", null, null), 0L));
+        entityManager.clear();
+
+        User user = userRepository.findById(userId).orElseThrow();
+        assertEquals("patch_user", user.getUsername());
+        assertEquals(1L, user.getVersion());
+    }
+
+    @Test
+    @DisplayName("测试用户不存在、字段无效和唯一约束")
+    void testPatchValidation() {
+        RuntimeException notFound = assertThrows(RuntimeException.class,
+                () -> userService.patchUser(-1L, new UserPatch(null, null, 21), null));
+        assertFalse(notFound instanceof OptimisticLockingFailureException);
+        assertThrows(RuntimeException.class, () -> userService.patchUser(userId, new UserPatch(null, null, null), null));
+        assertThrows(RuntimeException.class, () -> userService.patchUser(userId, new UserPatch(null, null, 200), null));
+        assertThrows(RuntimeException.class,
+                () -> userService.patchUser(userId, new UserPatch("other_user", null, null), null));
+        // 修改为自己当前的用户名不算冲突
+        assertEquals("patch_user",
+                userService.patchUser(userId, new UserPatch("patch_user", null, null), null).getUsername());
+    }
+
+    @Test
+    @DisplayName("测试完整更新检查期望的版本号")
+    void testUpdateUserWithStaleVersion() {
+        User details = user("patch_user", "patch@example.com", 25);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> userService.updateUser(userId, details, 5L));
+
+        User updated = userService.updateUser(userId, details, 0L);
+        entityManager.flush();
+        assertEquals(1L, updated.getVersion());
+    }
+
+    private static User user(String username, String email, int age) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setAge(age);
+        return user;
+    }
+}
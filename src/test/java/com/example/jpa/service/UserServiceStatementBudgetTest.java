@@ -0,0 +1,172 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.UserDetail;
+import com.example.jpa.entity.Department;
+import com.example.jpa.entity.Money;
+import com.example.jpa.entity.Order;
+import com.example.jpa.entity.OrderItem;
+import com.example.jpa.entity.User;
+import com.example.jpa.monitoring.StatementBudget;
+import com.example.jpa.repository.DepartmentRepository;
+import com.example.jpa.repository.OrderRepository;
+import com.example.jpa.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static com.example.jpa.monitoring.StatementBudgetExtension.assertMaxStatements;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserService关联加载的SQL语句预算测试
+ * 
+ * 预算按当前实现执行的语句数设置，新增的延迟加载或N+1查询会使测试失败
+ */
+@DataJpaTest
+@Import({UserService.class, UserStatisticsTracker.class, UserStatisticsLoader.class})
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:statementbudgettest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+    "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.jpa.monitoring.QueryCountInspector",
+    "spring.sql.init.mode=never"
+})
+@DisplayName("UserService SQL语句预算测试")
+class UserServiceStatementBudgetTest {
+    
+    @MockBean
+    private SearchIndexService searchIndexService;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    private Long userId;
+    private Long departmentId;
+    
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("budget_user");
+        user.setEmail("budget@example.com");
+        for (int i = 0; i < 3; i++) {
+            Department department = new Department();
+            department.setName("部门" + i);
+            user.addDepartment(departmentRepository.save(department));
+        }
+        userId = userRepository.save(user).getId();
+        
+        for (int i = 0; i < 2; i++) {
+            Order order = new Order();
+            order.setOrderNumber("ORD-BUDGET-" + i);
+            order.setUser(user);
+            for (int j = 0; j < 3; j++) {
+                OrderItem item = new OrderItem();
+                item.setProductName("商品" + j);
+                item.setQuantity(1);
+                item.setPrice(Money.of("1.50"));
+                order.addOrderItem(item);
+            }
+            order.calculateTotalAmount();
+            orderRepository.save(order);
+        }
+        
+        Department extra = new Department();
+        extra.setName("新部门");
+        departmentId = departmentRepository.save(extra).getId();
+        
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    @Test
+    @StatementBudget(2)
+    @DisplayName("测试获取用户部门：用户 + 部门集合")
+    void testGetUserDepartments() {
+        List<Department> departments = userService.getUserDepartments(userId);
+        assertEquals(3, departments.size());
+    }
+    
+    @Test
+    @StatementBudget(2)
+    @DisplayName("测试展开部门和订单：用户 + 部门一条查询，订单 + 订单项一条查询")
+    void testFindUserDetailExpandAll() {
+        UserDetail detail = userService.findUserDetail(userId, EnumSet.allOf(UserDetail.Expand.class))
+                .orElseThrow();
+        
+        assertEquals(3, detail.departments().size());
+        assertEquals(2, detail.orders().size());
+        assertEquals(3, detail.orders().get(0).items().size());
+        assertEquals(Money.of("4.50"), detail.orders().get(0).totalAmount());
+    }
+    
+    @Test
+    @StatementBudget(1)
+    @DisplayName("测试不展开关联时只查询用户")
+    void testFindUserDetailWithoutExpand() {
+        UserDetail detail = userService.findUserDetail(userId, UserDetail.Expand.parse(List.of()))
+                .orElseThrow();
+        
+        assertNull(detail.departments());
+        assertNull(detail.orders());
+    }
+    
+    @Test
+    @DisplayName("测试不支持的expand参数")
+    void testParseUnknownExpand() {
+        assertEquals(EnumSet.of(UserDetail.Expand.ORDERS), UserDetail.Expand.parse(List.of("orders", " ")));
+        assertThrows(IllegalArgumentException.class, () -> UserDetail.Expand.parse(List.of("password")));
+    }
+    
+    @Test
+    @DisplayName("测试为用户添加部门：部门存在性检查、关联插入、成员数增加、用户和部门列表，不加载部门的用户集合")
+    void testAddDepartmentToUser() {
+        UserDetail detail = assertMaxStatements(4, () -> {
+            UserDetail result = userService.addDepartmentToUser(userId, departmentId);
+            entityManager.flush();
+            return result;
+        });
+        assertEquals(4, detail.departments().size());
+    }
+    
+    @Test
+    @DisplayName("测试从用户移除部门：部门存在性检查、关联删除、成员数减少、用户和部门列表")
+    void testRemoveDepartmentFromUser() {
+        Long existing = userService.getUserDepartments(userId).get(0).getId();
+        entityManager.clear();
+        
+        UserDetail detail = assertMaxStatements(4, () -> userService.removeDepartmentFromUser(userId, existing));
+        assertEquals(2, detail.departments().size());
+    }
+    
+    @Test
+    @DisplayName("测试超出预算时断言失败")
+    void testBudgetExceeded() {
+        assertThrows(AssertionFailedError.class,
+                () -> assertMaxStatements(1, () -> userService.getUserDepartments(userId)));
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.jpa.service;
+
+import com.example.jpa.dto.AgeCount;
+import com.example.jpa.dto.AgeCountSnapshot;
+import com.example.jpa.dto.UserStatistics;
+import com.example.jpa.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 用户统计信息增量维护测试
+ */
+@DisplayName("用户统计信息增量维护测试")
+class UserStatisticsTrackerTest {
+
+    private UserRepository userRepository;
+    private UserStatisticsTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.countUsersGroupByAge()).thenReturn(List.of(
+                new AgeCount(20, 2),
+                new AgeCount(30, 1),
+                new AgeCount(null, 1)));
+        tracker = new UserStatisticsTracker(new UserStatisticsLoader(userRepository));
+    }
+
+    @Test
+    @DisplayName("测试首次加载与原聚合查询结果一致")
+    void testInitialLoad() {
+        UserStatistics statistics = tracker.getStatistics();
+
+        assertEquals(4, statistics.totalCount());
+        assertEquals(17.5, statistics.averageAge(), 0.001);
+        assertEquals(30, statistics.maxAge());
+        assertEquals(0, statistics.minAge());
+        assertEquals(70.0 / 3, tracker.getAverageAge(), 0.001);
+        verify(userRepository, times(1)).countUsersGroupByAge();
+    }
+
+    @Test
+    @DisplayName("测试增量更新后不再查询数据库")
+    void testIncrementalUpdates() {
+        tracker.getStatistics();
+
+        tracker.onInsert(40);
+        tracker.onDelete(30);
+        tracker.onDelete(null);
+        tracker.onUpdate(20, 25);
+
+        UserStatistics statistics = tracker.getStatistics();
+        assertEquals(3, statistics.totalCount());
+        assertEquals(85.0 / 3, statistics.averageAge(), 0.001);
+        assertEquals(40, statistics.maxAge());
+        assertEquals(20, statistics.minAge());
+        verify(userRepository, times(1)).countUsersGroupByAge();
+    }
+
+    @Test
+    @DisplayName("测试失效后重新加载")
+    void testInvalidate() {
+        tracker.getStatistics();
+        tracker.invalidate();
+        tracker.getStatistics();
+
+        verify(userRepository, times(2)).countUsersGroupByAge();
+    }
+
+    @Test
+    @DisplayName("测试空表")
+    void testEmpty() {
+        when(userRepository.countUsersGroupByAge()).thenReturn(List.of());
+
+        assertEquals(new UserStatistics(0, null, null, null), tracker.getStatistics());
+        assertNull(tracker.getAverageAge());
+    }
+
+    @Test
+    @DisplayName("测试并发读取只加载一次")
+    void testConcurrentLoadCoalesced() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.countUsersGroupByAge()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(new AgeCount(20, 1));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<UserStatistics> first = executor.submit(tracker::getStatistics);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            List<Future<UserStatistics>> others = List.of(
+                    executor.submit(tracker::getStatistics),
+                    executor.submit(tracker::getStatistics),
+                    executor.submit(tracker::getStatistics));
+            release.countDown();
+
+            assertEquals(1, first.get(5, TimeUnit.SECONDS).totalCount());
+            for (Future<UserStatistics> other : others) {
+                assertEquals(1, other.get(5, TimeUnit.SECONDS).totalCount());
+            }
+            verify(userRepository, times(1)).countUsersGroupByAge();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("测试首次加载期间的修改不会丢失")
+    void testChangesDuringInitialLoad() {
+        UserStatisticsLoader loader = mock(UserStatisticsLoader.class);
+        tracker = new UserStatisticsTracker(loader);
+        when(loader.loadAgeCounts(any())).thenAnswer(invocation -> {
+            // 快照之前提交的新增已经包含在查询结果中
+            tracker.onInsert(20);
+            long watermark = invocation.<LongSupplier>getArgument(0).getAsLong();
+            // 快照之后提交的修改不在查询结果中
+            tracker.onInsert(40);
+            tracker.onUpdate(30, 35);
+            return new AgeCountSnapshot(watermark, List.of(new AgeCount(20, 2), new AgeCount(30, 1)));
+        });
+
+        UserStatistics statistics = tracker.getStatistics();
+
+        assertEquals(4, statistics.totalCount());
+        assertEquals(115.0 / 4, statistics.averageAge(), 0.001);
+        assertEquals(40, statistics.maxAge());
+        assertEquals(20, statistics.minAge());
+    }
+
+    @Test
+    @DisplayName("测试校准不会覆盖校准期间的修改")
+    void testReconcileKeepsConcurrentChanges() {
+        UserStatisticsLoader loader = mock(UserStatisticsLoader.class);
+        tracker = new UserStatisticsTracker(loader);
+        when(loader.loadAgeCounts(any())).thenAnswer(invocation -> new AgeCountSnapshot(
+                invocation.<LongSupplier>getArgument(0).getAsLong(),
+                List.of(new AgeCount(20, 2), new AgeCount(30, 1))));
+        tracker.getStatistics();
+        tracker.onInsert(30);
+
+        doAnswer(invocation -> {
+            long watermark = invocation.<LongSupplier>getArgument(0).getAsLong();
+            // 校准查询执行期间提交的新增
+            tracker.onInsert(40);
+            return new AgeCountSnapshot(watermark, List.of(new AgeCount(20, 2), new AgeCount(30, 2)));
+        }).when(loader).loadAgeCounts(any());
+        tracker.reconcile();
+
+        UserStatistics statistics = tracker.getStatistics();
+        assertEquals(5, statistics.totalCount());
+        assertEquals(140.0 / 5, statistics.averageAge(), 0.001);
+        assertEquals(40, statistics.maxAge());
+    }
+
+    @Test
+    @DisplayName("测试校准期间失效时丢弃校准结果")
+    void testInvalidateDuringReconcile() {
+        tracker.getStatistics();
+        when(userRepository.countUsersGroupByAge()).thenAnswer(invocation -> {
+            tracker.invalidate();
+            return List.of(new AgeCount(20, 1));
+        }).thenReturn(List.of(new AgeCount(30, 1)));
+
+        tracker.reconcile();
+
+        assertEquals(30, tracker.getStatistics().maxAge());
+        verify(userRepository, times(3)).countUsersGroupByAge();
+    }
+}